@@ -0,0 +1,127 @@
+package alpakkeer.benchmarks;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import akka.actor.typed.ActorRef;
+import akka.actor.typed.Behavior;
+import akka.actor.typed.javadsl.Adapter;
+import akka.actor.typed.javadsl.Behaviors;
+import alpakkeer.core.util.ActorPatterns;
+import alpakkeer.core.util.AskTimeoutException;
+import alpakkeer.core.util.OperationCompletionException;
+import alpakkeer.core.util.Operators;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures request-response round trips with {@link ActorPatterns#ask}, with a reply channel only and with an
+ * additional error channel, compared to the former implementation which spawned two named actors per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ActorPatternsBenchmark {
+
+   private static final class Request {
+
+      private final ActorRef<Done> replyTo;
+
+      private Request(ActorRef<Done> replyTo) {
+         this.replyTo = replyTo;
+      }
+
+   }
+
+   private ActorSystem system;
+
+   private ActorRef<Request> actor;
+
+   private ActorPatterns patterns;
+
+   @Setup(Level.Trial)
+   public void setup() {
+      system = ActorSystem.create("benchmark");
+      patterns = ActorPatterns.apply(system);
+      actor = Adapter.spawnAnonymous(system, Behaviors.receive((ctx, request) -> {
+         request.replyTo.tell(Done.getInstance());
+         return Behaviors.same();
+      }));
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      system.terminate();
+      system.getWhenTerminated().toCompletableFuture().join();
+   }
+
+   @Benchmark
+   public Done ask() {
+      return patterns
+         .ask(actor, Request::new)
+         .toCompletableFuture()
+         .join();
+   }
+
+   @Benchmark
+   public Done askWithErrorChannel() {
+      return patterns
+         .<Request, Done, Throwable>ask(actor, (replyTo, errorTo) -> new Request(replyTo))
+         .toCompletableFuture()
+         .join();
+   }
+
+   @Benchmark
+   public Done askWithSpawnedActors() {
+      return spawningAsk(15)
+         .toCompletableFuture()
+         .join();
+   }
+
+   /**
+    * The former implementation of {@link ActorPatterns#ask}. Unlike the former implementation the spawned actors are
+    * stopped after the reply, otherwise the benchmark would run out of memory.
+    */
+   private CompletionStage<Done> spawningAsk(long durationInSeconds) {
+      final String id = Operators.hash();
+
+      final CompletableFuture<Done> result = new CompletableFuture<>();
+      final CompletableFuture<Throwable> error = new CompletableFuture<>();
+      final CompletableFuture<Done> timeout = new CompletableFuture<>();
+
+      final Behavior<Done> resultBehavior = Behaviors.receive((ctx, msg) -> {
+         result.complete(msg);
+         return Behaviors.same();
+      });
+
+      final Behavior<Throwable> resultError = Behaviors.receive((ctx, msg) -> {
+         error.complete(msg);
+         return Behaviors.same();
+      });
+
+      final ActorRef<Done> resultActor = Adapter.spawn(system, resultBehavior, String.format("%s-result", id));
+      final ActorRef<Throwable> errorActor = Adapter.spawn(system, resultError, String.format("%s-error", id));
+
+      actor.tell(new Request(resultActor));
+
+      system.scheduler().scheduleOnce(
+         Duration.ofSeconds(durationInSeconds),
+         () -> timeout.complete(Done.getInstance()),
+         system.dispatcher());
+
+      error.thenAccept(e -> result.completeExceptionally(OperationCompletionException.apply(e)));
+      timeout.thenAccept(e -> result.completeExceptionally(AskTimeoutException.apply()));
+
+      return result.whenComplete((done, ex) -> {
+         system.stop(Adapter.toClassic(resultActor));
+         system.stop(Adapter.toClassic(errorActor));
+      });
+   }
+
+}
@@ -0,0 +1,122 @@
+package alpakkeer.benchmarks;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import alpakkeer.config.ContextHistoryConfiguration;
+import alpakkeer.config.PostgresContextStoreConfiguration;
+import alpakkeer.core.jobs.context.ContextStore;
+import alpakkeer.core.jobs.context.JdbcContextHistoryStore;
+import alpakkeer.core.jobs.context.JdbcContextStore;
+import alpakkeer.core.jobs.context.PostgresContextStore;
+import alpakkeer.core.util.ObjectMapperFactory;
+import com.typesafe.config.ConfigFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.DriverManager;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures saving and reading contexts with the JDBC context store and the JDBC context history store, compared to the
+ * Slick based store which renders each statement from a template and runs it within a stream.
+ *
+ * Requires a running Postgres database, configured like the context store, e.g. with `ALPAKKEER_POSTGRES_URL`,
+ * `ALPAKKEER_POSTGRES_USER` and `ALPAKKEER_POSTGRES_PASSWORD`. The context tables are created if they don't exist.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ContextStoreBenchmark {
+
+   public static final class Checkpoint {
+
+      public String name;
+
+      public long offset;
+
+      public static Checkpoint apply(String name, long offset) {
+         var checkpoint = new Checkpoint();
+         checkpoint.name = name;
+         checkpoint.offset = offset;
+         return checkpoint;
+      }
+
+   }
+
+   @Param({ "jdbc", "history", "slick" })
+   public String store;
+
+   private ActorSystem system;
+
+   private ContextStore contextStore;
+
+   private long offset;
+
+   @Setup(Level.Trial)
+   public void setup() throws Exception {
+      var config = ConfigFactory.load().getConfig("alpakkeer.context-store.db");
+      var properties = config.getConfig("database.db.properties");
+
+      try (var connection = DriverManager.getConnection(
+         properties.getString("url"), properties.getString("user"), properties.getString("password"));
+           var statement = connection.createStatement()) {
+
+         statement.execute(String.format("CREATE SCHEMA IF NOT EXISTS %s", config.getString("schema")));
+         statement.execute(String.format(
+            "CREATE TABLE IF NOT EXISTS %s.%s (" +
+               "job VARCHAR(128) PRIMARY KEY, inserted TIMESTAMP NOT NULL, type VARCHAR(256) NOT NULL, value JSONB NOT NULL)",
+            config.getString("schema"), config.getString("table")));
+         statement.execute(String.format(
+            "CREATE TABLE IF NOT EXISTS %s.%s (" +
+               "job VARCHAR(128) NOT NULL, version BIGINT NOT NULL, inserted TIMESTAMP NOT NULL, type VARCHAR(256) NOT NULL, " +
+               "snapshot BOOLEAN NOT NULL, value JSONB NOT NULL, PRIMARY KEY (job, version))",
+            config.getString("schema"), config.getString("history.table")));
+      }
+
+      var configuration = PostgresContextStoreConfiguration.apply(
+         config.getString("schema"), config.getString("table"), config.getConfig("database"),
+         config.getInt("pool-size"), config.getString("dispatcher"),
+         ContextHistoryConfiguration.apply(
+            config.getString("history.table"), config.getInt("history.snapshot-interval"),
+            config.getInt("history.retained-snapshots")));
+
+      var om = ObjectMapperFactory.apply().create();
+      system = ActorSystem.create("benchmark");
+
+      if (store.equals("jdbc")) {
+         contextStore = JdbcContextStore.apply(configuration, system, om);
+      } else if (store.equals("history")) {
+         contextStore = JdbcContextHistoryStore.apply(configuration, system, om);
+      } else {
+         contextStore = PostgresContextStore.apply(configuration, system, om);
+      }
+
+      contextStore.saveContext("benchmark", Checkpoint.apply("benchmark", 0)).toCompletableFuture().join();
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      system.terminate();
+      system.getWhenTerminated().toCompletableFuture().join();
+   }
+
+   @Benchmark
+   public Done save() {
+      return contextStore
+         .saveContext("benchmark", Checkpoint.apply("benchmark", offset++))
+         .toCompletableFuture()
+         .join();
+   }
+
+   @Benchmark
+   public Optional<Checkpoint> read() {
+      return contextStore
+         .<Checkpoint>readLatestContext("benchmark")
+         .toCompletableFuture()
+         .join();
+   }
+
+}
@@ -0,0 +1,154 @@
+package alpakkeer.benchmarks;
+
+import akka.actor.ActorSystem;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import alpakkeer.config.FileSystemLogConfiguration;
+import alpakkeer.config.FileSystemStreamMessagingConfiguration;
+import alpakkeer.core.stream.Record;
+import alpakkeer.core.stream.codec.RecordCodecs;
+import alpakkeer.core.stream.messaging.BatchSettings;
+import alpakkeer.core.stream.messaging.FileSystemLogStreamMessagingAdapter;
+import alpakkeer.core.stream.messaging.FileSystemStreamMessagingAdapter;
+import alpakkeer.core.stream.messaging.InMemoryStreamMessagingAdapter;
+import alpakkeer.core.stream.messaging.StreamMessagingAdapter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing records to and reading records from a topic with the in-memory and the file system messaging
+ * adapters. Each invocation writes and reads {@link #RECORDS} records, thus the scores are records per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(MessagingAdapterBenchmark.RECORDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class MessagingAdapterBenchmark {
+
+   static final int RECORDS = 1_000;
+
+   private static final String DISPATCHER = "akka.actor.default-blocking-io-dispatcher";
+
+   @Param({ "in-memory", "fs", "fs-log" })
+   public String adapter;
+
+   private ActorSystem system;
+
+   private Path directory;
+
+   private StreamMessagingAdapter messaging;
+
+   private int topic;
+
+   @Setup(Level.Trial)
+   public void setup() throws IOException {
+      system = ActorSystem.create("benchmark");
+      directory = Files.createTempDirectory("alpakkeer-benchmark");
+
+      var om = new ObjectMapper().findAndRegisterModules();
+      var config = FileSystemStreamMessagingConfiguration.apply(
+         directory.toString(), adapter.equals("fs") ? "files" : "log", DISPATCHER,
+         FileSystemLogConfiguration.apply(64 * 1024 * 1024, 1000, Duration.ofMillis(10)));
+
+      switch (adapter) {
+         case "fs":
+            messaging = FileSystemStreamMessagingAdapter.apply(system, om, config);
+            break;
+         case "fs-log":
+            messaging = FileSystemLogStreamMessagingAdapter.apply(system, RecordCodecs.json(om), config);
+            break;
+         default:
+            messaging = InMemoryStreamMessagingAdapter.apply();
+      }
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      system.terminate();
+      system.getWhenTerminated().toCompletableFuture().join();
+
+      try (var files = Files.walk(directory)) {
+         files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+   }
+
+   /**
+    * Each invocation uses a new topic, thus the file system adapter's directories do not grow across invocations.
+    */
+   private String nextTopic() {
+      return "topic-" + topic++;
+   }
+
+   @Benchmark
+   public void putAndGetRecord() {
+      var topic = nextTopic();
+
+      var puts = new CompletableFuture<?>[RECORDS];
+
+      for (var i = 0; i < RECORDS; i++) {
+         puts[i] = messaging.putRecord(topic, Record.apply("value-" + i, "key-" + i)).toCompletableFuture();
+      }
+
+      CompletableFuture.allOf(puts).join();
+
+      for (var i = 0; i < RECORDS; i++) {
+         messaging
+            .getNextRecord(topic, String.class)
+            .thenCompose(record -> record.orElseThrow().getContext().commit())
+            .toCompletableFuture()
+            .join();
+      }
+   }
+
+   @Benchmark
+   public void sinkAndSource() {
+      var topic = nextTopic();
+
+      Source
+         .range(1, RECORDS)
+         .map(i -> Record.apply("value-" + i, "key-" + i))
+         .runWith(messaging.recordsSink(topic), system)
+         .toCompletableFuture()
+         .join();
+
+      messaging
+         .recordsSource(topic, String.class)
+         .take(RECORDS)
+         .mapAsync(1, record -> record.getContext().commit())
+         .runWith(Sink.ignore(), system)
+         .toCompletableFuture()
+         .join();
+   }
+
+   @Benchmark
+   public void batchedSinkAndSource() {
+      var topic = nextTopic();
+
+      Source
+         .range(1, RECORDS)
+         .map(i -> Record.apply("value-" + i, "key-" + i))
+         .runWith(messaging.recordsSink(topic, BatchSettings.apply(100, Duration.ofMillis(10))), system)
+         .toCompletableFuture()
+         .join();
+
+      messaging
+         .recordsSource(topic, String.class)
+         .take(RECORDS)
+         .mapAsync(1, record -> record.getContext().commit())
+         .runWith(Sink.ignore(), system)
+         .toCompletableFuture()
+         .join();
+   }
+
+}
@@ -0,0 +1,103 @@
+package alpakkeer.benchmarks;
+
+import alpakkeer.core.stream.Record;
+import alpakkeer.core.stream.codec.RecordCodec;
+import alpakkeer.core.stream.codec.RecordCodecs;
+import alpakkeer.core.stream.codec.RecordTypeRegistry;
+import alpakkeer.core.stream.context.NoRecordContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the record codecs with the Jackson (de-)serialization of {@link Record} which was used before the codecs
+ * were introduced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class RecordCodecBenchmark {
+
+   public static class SampleValue {
+
+      public String id;
+
+      public String name;
+
+      public long count;
+
+      public double amount;
+
+      public Instant created;
+
+      public List<String> tags;
+
+   }
+
+   @Param({ "legacy", "json", "smile" })
+   public String codec;
+
+   private ObjectMapper om;
+
+   private RecordCodec recordCodec;
+
+   private Record<SampleValue, NoRecordContext> record;
+
+   private byte[] encoded;
+
+   @Setup(Level.Trial)
+   public void setup() throws IOException {
+      om = new ObjectMapper().findAndRegisterModules();
+
+      var value = new SampleValue();
+      value.id = "a0c6f3a2-6d5e-4b7b-9a53-3c0d1e1f4a11";
+      value.name = "sample";
+      value.count = 42;
+      value.amount = 3.1415;
+      value.created = Instant.now();
+      value.tags = List.of("lorem", "ipsum", "dolor");
+
+      record = Record.apply(value, value.id);
+
+      switch (codec) {
+         case "json":
+            recordCodec = RecordCodecs.json(om);
+            break;
+         case "smile":
+            var types = RecordTypeRegistry.apply();
+            types.register(1, SampleValue.class);
+            recordCodec = RecordCodecs.smile(om, types);
+            break;
+         default:
+            recordCodec = null;
+      }
+
+      encoded = encode();
+   }
+
+   @Benchmark
+   public byte[] encode() throws IOException {
+      if (recordCodec == null) {
+         return om.writeValueAsBytes(record);
+      } else {
+         return recordCodec.encode(record);
+      }
+   }
+
+   @Benchmark
+   public Record<?, ?> decode() throws IOException {
+      if (recordCodec == null) {
+         return om.readValue(encoded, Record.class);
+      } else {
+         return recordCodec.decode(encoded);
+      }
+   }
+
+}
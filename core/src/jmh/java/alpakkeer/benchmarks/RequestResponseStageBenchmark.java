@@ -0,0 +1,61 @@
+package alpakkeer.benchmarks;
+
+import akka.actor.ActorSystem;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import alpakkeer.core.stream.RequestResponseStage;
+import org.openjdk.jmh.annotations.*;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link RequestResponseStage} when requests are answered in order. Each invocation
+ * streams {@link #ELEMENTS} requests, thus the scores are requests per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(RequestResponseStageBenchmark.ELEMENTS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class RequestResponseStageBenchmark {
+
+   static final int ELEMENTS = 10_000;
+
+   @Param({ "1", "16", "128" })
+   public int parallelism;
+
+   private ActorSystem system;
+
+   private RequestResponseStage.Settings settings;
+
+   @Setup(Level.Trial)
+   public void setup() {
+      system = ActorSystem.create("benchmark");
+      settings = new RequestResponseStage.Settings(
+         parallelism,
+         FiniteDuration.apply(10, TimeUnit.SECONDS),
+         FiniteDuration.apply(5, TimeUnit.SECONDS));
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      system.terminate();
+   }
+
+   @Benchmark
+   public void requestResponse() {
+      var responses = Source.range(1, ELEMENTS).asScala();
+
+      Source
+         .range(1, ELEMENTS)
+         .via(RequestResponseStage.<Integer, Integer, akka.NotUsed>create(responses, Objects::equals, settings).asJava())
+         .runWith(Sink.ignore(), system)
+         .toCompletableFuture()
+         .join();
+   }
+
+}
@@ -0,0 +1,87 @@
+package alpakkeer.benchmarks;
+
+import akka.NotUsed;
+import akka.actor.ActorSystem;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import alpakkeer.core.stream.CheckpointMonitors;
+import alpakkeer.core.stream.LatencyMonitors;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of instrumenting a flow with the stream monitoring stages. Each invocation streams
+ * {@link #ELEMENTS} elements, thus the scores are elements per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(StreamMonitoringBenchmark.ELEMENTS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class StreamMonitoringBenchmark {
+
+   static final int ELEMENTS = 100_000;
+
+   private ActorSystem system;
+
+   @Setup(Level.Trial)
+   public void setup() {
+      system = ActorSystem.create("benchmark");
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      system.terminate();
+   }
+
+   private void run(Flow<Integer, Integer, NotUsed> flow) {
+      Source
+         .range(1, ELEMENTS)
+         .via(flow)
+         .runWith(Sink.ignore(), system)
+         .toCompletableFuture()
+         .join();
+   }
+
+   /**
+    * The uninstrumented flow, the baseline for all other benchmarks.
+    */
+   @Benchmark
+   public void baseline() {
+      run(Flow.<Integer>create().map(i -> i));
+   }
+
+   @Benchmark
+   public void checkpointMonitor() {
+      run(Flow.<Integer>create().map(i -> i).via(CheckpointMonitors.create(Duration.ofSeconds(1), stats -> {})));
+   }
+
+   /**
+    * A checkpoint monitor which emits statistics every millisecond; this includes the cost of the pulse timer and the
+    * statistics sink.
+    */
+   @Benchmark
+   public void checkpointMonitorWithFrequentStats() {
+      run(Flow.<Integer>create().map(i -> i).via(CheckpointMonitors.create(Duration.ofMillis(1), stats -> {})));
+   }
+
+   @Benchmark
+   public void latencyMonitor() {
+      run(LatencyMonitors.create(Flow.<Integer>create().map(i -> i), Duration.ofSeconds(1), stats -> {}));
+   }
+
+   /**
+    * A latency monitor which emits statistics every millisecond; this includes the cost of the pulse timer and the
+    * statistics sink.
+    */
+   @Benchmark
+   public void latencyMonitorWithFrequentStats() {
+      run(LatencyMonitors.create(Flow.<Integer>create().map(i -> i), Duration.ofMillis(1), stats -> {}));
+   }
+
+}
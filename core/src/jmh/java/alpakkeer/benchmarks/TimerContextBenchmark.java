@@ -0,0 +1,110 @@
+package alpakkeer.benchmarks;
+
+import alpakkeer.core.util.SpscLongRingBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the buffers which may hold the start times of the latency monitor: the primitive
+ * {@link SpscLongRingBuffer} and a {@link ConcurrentLinkedQueue} of boxed longs.
+ *
+ * The `*Sequential` benchmarks keep {@link #inFlight} values within the buffer and offer and poll one value per
+ * operation on a single thread. The `*Concurrent` benchmark groups run one producer and one consumer thread, as the
+ * start stage and the monitor stage do within an asynchronous graph; the producer stops offering while
+ * {@link #inFlight} values are not polled yet.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class TimerContextBenchmark {
+
+   @Param({ "1", "16", "256" })
+   public int inFlight;
+
+   private SpscLongRingBuffer ringBuffer;
+
+   private ConcurrentLinkedQueue<Long> queue;
+
+   private long offered;
+
+   private AtomicLong polled;
+
+   @Setup(Level.Iteration)
+   public void setup() {
+      ringBuffer = SpscLongRingBuffer.apply(inFlight);
+      queue = new ConcurrentLinkedQueue<>();
+      offered = inFlight - 1;
+      polled = new AtomicLong();
+
+      for (var i = 0; i < offered; i++) {
+         ringBuffer.offer(System.nanoTime());
+         queue.add(System.nanoTime());
+      }
+   }
+
+   @Benchmark
+   @Group("ringBufferSequential")
+   public long ringBufferSequential() {
+      ringBuffer.offer(System.nanoTime());
+      return System.nanoTime() - ringBuffer.poll(0);
+   }
+
+   @Benchmark
+   @Group("queueSequential")
+   public long queueSequential() {
+      queue.add(System.nanoTime());
+      return System.nanoTime() - queue.poll();
+   }
+
+   @Benchmark
+   @Group("ringBufferConcurrent")
+   @GroupThreads
+   public void ringBufferOffer() {
+      if (offered - polled.get() < inFlight) {
+         ringBuffer.offer(System.nanoTime());
+         offered++;
+      }
+   }
+
+   @Benchmark
+   @Group("ringBufferConcurrent")
+   @GroupThreads
+   public void ringBufferPoll(Blackhole bh) {
+      var start = ringBuffer.poll(Long.MIN_VALUE);
+
+      if (start != Long.MIN_VALUE) {
+         polled.lazySet(polled.get() + 1);
+         bh.consume(start);
+      }
+   }
+
+   @Benchmark
+   @Group("queueConcurrent")
+   @GroupThreads
+   public void queueOffer() {
+      if (offered - polled.get() < inFlight) {
+         queue.add(System.nanoTime());
+         offered++;
+      }
+   }
+
+   @Benchmark
+   @Group("queueConcurrent")
+   @GroupThreads
+   public void queuePoll(Blackhole bh) {
+      var start = queue.poll();
+
+      if (start != null) {
+         polled.lazySet(polled.get() + 1);
+         bh.consume(start.longValue());
+      }
+   }
+
+}
@@ -19,7 +19,8 @@ public final class AlpakkeerAPI {
       var jobs = new JobsResource(resources, runtime.getObjectMapper());
       var processes = new ProcessesResource(resources);
       var admin = new AdminResource(runtime.getConfiguration(), runtime.getScheduler());
-      var metrics = new MetricsResource(resources, runtime);
+      var metrics = new MetricsResource(resources, runtime, PrometheusExposition.apply(
+         runtime.getCollectorRegistry(), runtime.getConfiguration().getApi().getMetricsCacheTtl()));
 
       JavalinJackson.configure(runtime.getObjectMapper());
 
@@ -0,0 +1,113 @@
+package alpakkeer.api;
+
+import alpakkeer.core.monitoring.values.Marker;
+import alpakkeer.core.values.grafana.Annotation;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes responses of Grafana's JSON data source directly to an output stream, without creating the response objects
+ * of {@link alpakkeer.core.values.grafana} first. The content is flushed after each time series or list of annotations.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+final class GrafanaJsonWriter implements Closeable {
+
+   private final JsonGenerator gen;
+
+   /**
+    * Creates a new writer; closing the writer doesn't close the output stream.
+    *
+    * @param om  The object mapper which provides the JSON factory
+    * @param out The output stream
+    * @return The new writer
+    */
+   public static GrafanaJsonWriter apply(ObjectMapper om, OutputStream out) throws IOException {
+      var gen = om.getFactory().createGenerator(out);
+      gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      return new GrafanaJsonWriter(gen);
+   }
+
+   public void writeStartArray() throws IOException {
+      gen.writeStartArray();
+   }
+
+   public void writeEndArray() throws IOException {
+      gen.writeEndArray();
+   }
+
+   /**
+    * Starts a time series as `{ "target": ..., "datapoints": [`; its data points are written with
+    * {@link #writeDataPoint(long, double)}, see {@link #writeEndTimeSeries()}.
+    *
+    * @param target The name of the time series
+    */
+   public void writeStartTimeSeries(String target) throws IOException {
+      gen.writeStartObject();
+      gen.writeStringField("target", target);
+      gen.writeArrayFieldStart("datapoints");
+   }
+
+   /**
+    * Writes a data point of the current time series as `[value, timestamp]`.
+    *
+    * @param epochMillis The moment of the data point in milliseconds since the epoch
+    * @param value       The value of the data point
+    */
+   public void writeDataPoint(long epochMillis, double value) throws IOException {
+      gen.writeStartArray();
+      gen.writeNumber(value);
+      gen.writeNumber(epochMillis);
+      gen.writeEndArray();
+   }
+
+   public void writeEndTimeSeries() throws IOException {
+      gen.writeEndArray();
+      gen.writeEndObject();
+      gen.flush();
+   }
+
+   /**
+    * Writes markers as annotations (see {@link Annotation}); the annotations are not enclosed in an array.
+    *
+    * @param markers The markers
+    */
+   public void writeAnnotations(List<Marker> markers) throws IOException {
+      for (var marker : markers) {
+         gen.writeStartObject();
+         gen.writeStringField("text", marker.getTitle());
+         gen.writeStringField("title", marker.getText().orElse(null));
+         gen.writeBooleanField("isRegion", marker.getTo().isPresent());
+         gen.writeNumberField("time", marker.getFrom().toEpochMilli());
+
+         if (marker.getTo().isPresent()) {
+            gen.writeNumberField("timeEnd", marker.getTo().get().toEpochMilli());
+         } else {
+            gen.writeNullField("timeEnd");
+         }
+
+         gen.writeArrayFieldStart("tags");
+
+         for (var tag : marker.getTags()) {
+            gen.writeString(tag);
+         }
+
+         gen.writeEndArray();
+         gen.writeEndObject();
+      }
+
+      gen.flush();
+   }
+
+   @Override
+   public void close() throws IOException {
+      gen.close();
+   }
+
+}
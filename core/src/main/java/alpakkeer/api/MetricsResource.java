@@ -1,38 +1,60 @@
 package alpakkeer.api;
 
+import akka.Done;
+import akka.japi.Pair;
 import alpakkeer.javadsl.AlpakkeerRuntime;
+import alpakkeer.core.monitoring.Downsampler;
+import alpakkeer.core.monitoring.Downsampling;
+import alpakkeer.core.monitoring.DownsamplingMetricStore;
+import alpakkeer.core.monitoring.LabeledMetricsMonitor;
 import alpakkeer.core.monitoring.MetricStore;
 import alpakkeer.core.monitoring.values.Marker;
 import alpakkeer.core.monitoring.values.TimeSeries;
 import alpakkeer.core.resources.Resources;
 import alpakkeer.core.util.Operators;
-import alpakkeer.core.util.Strings;
 import alpakkeer.core.values.grafana.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Maps;
+import io.javalin.http.Context;
 import io.javalin.http.Handler;
 import io.javalin.plugin.openapi.dsl.OpenApiBuilder;
 import io.prometheus.client.exporter.common.TextFormat;
 import lombok.AllArgsConstructor;
-import scala.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.StringWriter;
-import java.time.Instant;
-import java.util.Collection;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @AllArgsConstructor
 public final class MetricsResource {
 
+   private static final Logger LOG = LoggerFactory.getLogger(MetricsResource.class);
+
    public static final String PARAM_NAME = "name";
 
+   private static final String JSON = "application/json";
+
+   /**
+    * Matches series selectors like `name{label="value"}`, the name is optional.
+    */
+   private static final Pattern SELECTOR = Pattern.compile("^([a-zA-Z_:][a-zA-Z0-9_:]*)?\\{(.*)}$");
+
+   private static final Pattern SELECTOR_LABEL = Pattern.compile("\\G\\s*([a-zA-Z_][a-zA-Z0-9_]*)\\s*=\\s*\"([^\"]*)\"\\s*(?:,|$)");
+
    private final Resources resources;
 
    private final AlpakkeerRuntime runtimeConfiguration;
 
+   private final PrometheusExposition prometheus;
+
    public Handler getAnnotationsHeader() {
       var docs = OpenApiBuilder
          .document()
@@ -62,11 +84,19 @@ public final class MetricsResource {
          .result("200", String.class, TextFormat.CONTENT_TYPE_004);
 
       return OpenApiBuilder.documented(docs, ctx -> {
-         var writer = new StringWriter();
-         TextFormat.write004(writer, runtimeConfiguration.getCollectorRegistry().metricFamilySamples());
+         var gzip = Optional
+            .ofNullable(ctx.header("Accept-Encoding"))
+            .map(encodings -> encodings.contains("gzip"))
+            .orElse(false);
 
          ctx.header("Content-Type", TextFormat.CONTENT_TYPE_004);
-         ctx.result(writer.toString());
+         ctx.header("Vary", "Accept-Encoding");
+
+         if (gzip) {
+            ctx.header("Content-Encoding", "gzip");
+         }
+
+         prometheus.write(ctx.res.getOutputStream(), gzip);
       });
    }
 
@@ -91,15 +121,33 @@ public final class MetricsResource {
          .document()
          .operation(op -> {
             op.summary("Search");
-            op.description("Returns available metrics for the job.");
+            op.description("Returns available metrics for the job; a target like `name{label=\"value\"}` returns the matching series, other targets filter the names.");
             op.addTagsItem("Metrics");
          })
          .body(SearchRequest.class)
          .jsonArray("200", String.class);
 
       return OpenApiBuilder.documented(docs, ctx -> {
-         var metrics = getTimeSeriesMetrics();
-         ctx.json(metrics.keySet());
+         var target = Optional
+            .ofNullable(ctx.body())
+            .filter(body -> !body.isBlank())
+            .map(body -> ctx.bodyAsClass(SearchRequest.class).getTarget())
+            .filter(t -> !t.isBlank());
+
+         if (target.isEmpty()) {
+            ctx.json(getTimeSeriesMetrics().keySet());
+         } else {
+            var selected = getSelectorLabels(target.get())
+               .map(labels -> List.copyOf(resources.getMetrics().getTimeSeriesMetrics(labels).keySet()))
+               .orElseGet(() -> getTimeSeriesMetrics()
+                  .keySet()
+                  .stream()
+                  .filter(name -> name.contains(target.get()))
+                  .sorted()
+                  .collect(Collectors.toList()));
+
+            ctx.json(selected);
+         }
       });
    }
 
@@ -133,31 +181,43 @@ public final class MetricsResource {
       return OpenApiBuilder.documented(docs, ctx -> {
          var metrics = getTimeSeriesMetrics();
          var request = ctx.bodyAsClass(QueryRequest.class);
-         var from = request.getRange().getFrom().toInstant();
-         var to = request.getRange().getTo().toInstant();
 
-         var result = Operators.allOf(request
+         // queries which don't read a buffer are started before the response is written
+         var results = request
             .getTargets()
             .stream()
-            .map(target -> {
-               if (target.getType() != null && target.getType().toLowerCase().equals("timeseries") && metrics.containsKey(target.getTarget())) {
-                  CompletionStage<Object> gts = metrics.get(target.getTarget()).query(from, to).thenApply(ts ->
-                     alpakkeer.core.values.grafana.TimeSeries.apply(
-                        target.getTarget(),
-                        ts.getData().stream().map(dp -> DataPoint.apply(
-                           dp.getMoment().toEpochMilli(),
-                           dp.getValue())).collect(Collectors.toList())));
-
-                  return Optional.of(gts);
-               } else {
-                  return Optional.<CompletionStage<Object>>empty();
-               }
-            })
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .collect(Collectors.toList()));
-
-         ctx.json(result.toCompletableFuture());
+            .filter(target -> target.getType() != null && target.getType().toLowerCase().equals("timeseries"))
+            .flatMap(target -> getTimeSeriesMetrics(metrics, target)
+               .entrySet()
+               .stream()
+               .map(metric -> Pair.create(metric.getKey(), query(metric.getValue(), target, request))))
+            .collect(Collectors.toList());
+
+         ctx.contentType(JSON);
+         ctx.result(write(ctx, writer -> {
+            CompletionStage<Done> written = CompletableFuture.completedFuture(Done.getInstance());
+
+            // the time series are written one after another, failed queries result in empty time series
+            for (var result : results) {
+               written = written.thenCompose(done -> {
+                  Operators.suppressExceptions(() -> writer.writeStartTimeSeries(result.first()));
+
+                  return result
+                     .second()
+                     .apply((epochMillis, value) -> Operators.suppressExceptions(() -> writer.writeDataPoint(epochMillis, value)))
+                     .handle((d, ex) -> {
+                        if (ex != null) {
+                           LOG.warn(String.format("An exception occurred while querying time series `%s`", result.first()), ex);
+                        }
+
+                        Operators.suppressExceptions(writer::writeEndTimeSeries);
+                        return Done.getInstance();
+                     });
+               });
+            }
+
+            return written;
+         }));
       });
    }
 
@@ -178,108 +238,184 @@ public final class MetricsResource {
          var from = request.getRange().getFrom().toInstant();
          var to = request.getRange().getTo().toInstant();
 
-         var result = Operators.allOf(List.of(request.getAnnotation().getQuery().split(","))
+         var results = List.of(request.getAnnotation().getQuery().split(","))
             .stream()
             .map(String::trim)
             .filter(markers::containsKey)
             .map(target -> markers
                .get(target)
                .query(from, to)
-               .thenApply(mks -> mks
-                  .stream()
-                  .map(marker -> Annotation.apply(
-                     marker.getTitle(),
-                     marker.getText().orElse(null),
-                     marker.getTo().isPresent(),
-                     marker.getFrom().toEpochMilli(),
-                     marker.getTo().map(Instant::toEpochMilli).orElse(null),
-                     marker.getTags()))
-                  .collect(Collectors.toList())))
-            .collect(Collectors.toList()))
-            .thenApply(l -> l.stream().flatMap(Collection::stream).collect(Collectors.toList()));
-
-         ctx.json(result.toCompletableFuture());
+               .handle((result, ex) -> {
+                  if (ex != null) {
+                     LOG.warn(String.format("An exception occurred while querying markers `%s`", target), ex);
+                     return List.<Marker>of();
+                  } else {
+                     return result;
+                  }
+               })
+               .toCompletableFuture())
+            .collect(Collectors.toList());
+
+         ctx.contentType(JSON);
+         ctx.result(write(ctx, writer -> {
+            CompletionStage<Done> written = CompletableFuture.completedFuture(Done.getInstance());
+
+            for (var result : results) {
+               written = written
+                  .thenCompose(done -> result)
+                  .thenApply(annotations -> {
+                     Operators.suppressExceptions(() -> writer.writeAnnotations(annotations));
+                     return Done.getInstance();
+                  });
+            }
+
+            return written;
+         }));
       });
    }
 
-   private Map<String, MetricStore<List<Marker>>> getMarkers() {
-      var collectors = runtimeConfiguration
-         .getMetricsCollectors()
-         .stream()
-         .flatMap(collector -> collector
-            .getMarkerMetrics()
-            .stream()
-            .map(ts -> Tuple2.apply(ts.getName(), ts)));
-
-      var jobs = resources
-         .getJobs()
-         .stream()
-         .flatMap(job -> job
-            .getDefinition()
-            .getMonitors()
-            .getMetricsMonitors()
-            .getMarkerMetrics()
-            .stream()
-            .map(m -> Tuple2.apply(job.getDefinition().getName(), m)))
-         .map(t -> {
-            var jobName = t._1();
-            var metricName = t._2().getName();
-            var key = String.format(
-               "%s__%s",
-               Strings.convert(jobName).toSnakeCase(),
-               Strings.convert(metricName).toSnakeCase());
-
-            return Tuple2.apply(key, t._2());
+   /**
+    * Writes a JSON array directly to the response while its elements become available, thus the request thread doesn't
+    * wait for them and the response content is never buffered as a whole.
+    *
+    * @param ctx   The context of the request
+    * @param write Writes the elements of the array, the returned stage completes when all elements are written
+    * @return A future which completes when the response is written
+    */
+   private CompletableFuture<Done> write(
+      Context ctx, Function<GrafanaJsonWriter, CompletionStage<Done>> write) throws IOException {
+
+      var writer = GrafanaJsonWriter.apply(runtimeConfiguration.getObjectMapper(), ctx.res.getOutputStream());
+      writer.writeStartArray();
+
+      return write
+         .apply(writer)
+         .thenApply(done -> {
+            Operators.suppressExceptions(() -> {
+               writer.writeEndArray();
+               writer.close();
+            });
+
+            return done;
+         })
+         .toCompletableFuture();
+   }
+
+   /**
+    * Prepares the query of a time-series metric which reduces its data points to the requested maximum number of data
+    * points. The downsampling method may be selected per target with the target's data, e.g.
+    * `{ "downsampling": "max" }`; otherwise the default of the metric is used.
+    *
+    * Metrics which read a buffer are queried when the returned function is called, and pass their data points to the
+    * output while reading the buffer. Other metrics are queried immediately, their data points are passed to the
+    * output as soon as the query completed.
+    *
+    * @return A function which passes the downsampled data points to an output
+    */
+   private static Function<Downsampler.Output, CompletionStage<Done>> query(
+      MetricStore<TimeSeries> metric, Target target, QueryRequest request) {
+
+      var from = request.getRange().getFrom().toInstant();
+      var to = request.getRange().getTo().toInstant();
+      var intervalMs = Optional.ofNullable(request.getIntervalMs()).orElse(0L);
+
+      var method = Optional
+         .ofNullable(target.getData())
+         .map(data -> data.get("downsampling"))
+         .filter(JsonNode::isTextual)
+         .flatMap(name -> Downsampling.fromName(name.asText()))
+         .orElseGet(() -> metric instanceof DownsamplingMetricStore
+            ? ((DownsamplingMetricStore) metric).getDownsampling()
+            : Downsampling.LTTB);
+
+      Function<Downsampler.Output, Downsampler> downsampler = output -> Downsampler.apply(
+         method, from, to, request.getMaxDataPoints(), intervalMs, output);
+
+      if (metric instanceof DownsamplingMetricStore) {
+         return output -> ((DownsamplingMetricStore) metric)
+            .query(from, to, downsampler.apply(output))
+            .thenApply(ts -> Done.getInstance());
+      } else {
+         var result = metric.query(from, to);
+
+         return output -> result.thenApply(ts -> {
+            downsampler.apply(output).addAll(ts).getResult();
+            return Done.getInstance();
          });
+      }
+   }
 
-      return Stream
-         .concat(jobs, collectors)
-         .collect(Collectors.toMap(
-            t -> t._1,
-            t -> t._2
-         ));
+   /**
+    * Returns the metrics selected by a target: The metric with the target's name, or all series which match a selector
+    * like `name{label="value"}` or a plain series name, and the labels of the target's data, e.g.
+    * `{ "labels": { "job": "sample" } }`.
+    */
+   private Map<String, MetricStore<TimeSeries>> getTimeSeriesMetrics(Map<String, MetricStore<TimeSeries>> metrics, Target target) {
+      var name = Optional.ofNullable(target.getTarget()).filter(t -> !t.isBlank());
+      var labels = Maps.<String, String>newHashMap();
+
+      Optional
+         .ofNullable(target.getData())
+         .map(data -> data.get("labels"))
+         .filter(JsonNode::isObject)
+         .ifPresent(data -> data.fields().forEachRemaining(label -> {
+            if (label.getValue().isTextual()) {
+               labels.put(label.getKey(), label.getValue().asText());
+            }
+         }));
+
+      if (labels.isEmpty() && name.isPresent() && metrics.containsKey(name.get())) {
+         return Map.of(name.get(), metrics.get(name.get()));
+      }
+
+      name
+         .map(n -> getSelectorLabels(n).orElse(Map.of(LabeledMetricsMonitor.NAME_LABEL, n)))
+         .ifPresent(selected -> selected.forEach(labels::putIfAbsent));
+
+      if (labels.isEmpty()) {
+         return Map.of();
+      } else {
+         return resources.getMetrics().getTimeSeriesMetrics(labels);
+      }
    }
 
-   private Map<String, MetricStore<TimeSeries>> getTimeSeriesMetrics() {
-      var collectors = runtimeConfiguration
-         .getMetricsCollectors()
-         .stream()
-         .flatMap(collector -> collector
-         .getTimeSeriesMetrics()
-         .stream()
-         .map(ts -> Tuple2.apply(ts.getName(), ts)));
-
-      var jobs = resources
-         .getJobs()
-         .stream()
-         .flatMap(job -> job
-            .getDefinition()
-            .getMonitors()
-            .getMetricsMonitors()
-            .getTimeSeriesMetrics()
-            .stream()
-            .map(m -> Tuple2.apply(job.getDefinition().getName(), m)))
-         .map(t -> {
-            var jobName = t._1();
-            var metricName = t._2().getName();
-            var key = String.format(
-               "%s__%s",
-               Strings.convert(jobName).toSnakeCase(),
-               Strings.convert(metricName).toSnakeCase());
-
-            return Tuple2.apply(key, t._2());
-         });
+   /**
+    * @return The labels of a selector like `name{label="value"}`, including the name as
+    * {@link LabeledMetricsMonitor#NAME_LABEL}; empty if the value is no selector
+    */
+   private static Optional<Map<String, String>> getSelectorLabels(String selector) {
+      var matcher = SELECTOR.matcher(selector.trim());
+
+      if (!matcher.matches()) {
+         return Optional.empty();
+      }
+
+      var labels = Maps.<String, String>newHashMap();
+
+      if (matcher.group(1) != null) {
+         labels.put(LabeledMetricsMonitor.NAME_LABEL, matcher.group(1));
+      }
 
-      var custom = resources
-         .getTimeSeriesMetrics()
-         .stream()
-         .map(ts -> Tuple2.apply(ts.getName(), ts));
+      var body = matcher.group(2);
+      var label = SELECTOR_LABEL.matcher(body);
 
-      return Stream.concat(Stream.concat(jobs, collectors), custom)
-         .collect(Collectors.toMap(
-            t -> t._1,
-            t -> t._2
-         ));
+      while (label.find()) {
+         labels.put(label.group(1), label.group(2));
+
+         if (label.end() == body.length()) {
+            return Optional.of(labels);
+         }
+      }
+
+      return body.isBlank() ? Optional.of(labels) : Optional.empty();
+   }
+
+   private Map<String, MetricStore<List<Marker>>> getMarkers() {
+      return resources.getMetrics().getMarkerMetrics();
+   }
+
+   private Map<String, MetricStore<TimeSeries>> getTimeSeriesMetrics() {
+      return resources.getMetrics().getTimeSeriesMetrics();
    }
 
 }
@@ -0,0 +1,145 @@
+package alpakkeer.api;
+
+import com.google.common.collect.MapMaker;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Summary;
+import io.prometheus.client.exporter.common.TextFormat;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Renders the samples of a collector registry in Prometheus' text format. The rendered text is cached for a
+ * configurable time, thus frequent scrapes, e.g. by multiple Prometheus replicas, share a single rendering. The time
+ * spent rendering is exposed as `alpakkeer__metrics_render_seconds`.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+final class PrometheusExposition {
+
+   private static final ConcurrentMap<CollectorRegistry, Summary> RENDER_DURATIONS = new MapMaker().weakKeys().makeMap();
+
+   private final CollectorRegistry registry;
+
+   private final long ttlNanos;
+
+   private final Summary renderDuration;
+
+   private volatile Snapshot snapshot;
+
+   /**
+    * Creates a new exposition.
+    *
+    * @param registry The collector registry
+    * @param ttl      The time for which a rendered exposition is served from the cache; zero disables caching
+    * @return The new exposition
+    */
+   public static PrometheusExposition apply(CollectorRegistry registry, Duration ttl) {
+      var renderDuration = RENDER_DURATIONS.computeIfAbsent(registry, r -> Summary
+         .build("alpakkeer__metrics_render_seconds", "Time spent rendering the Prometheus metrics in seconds")
+         .register(r));
+
+      return new PrometheusExposition(registry, ttl.toNanos(), renderDuration, null);
+   }
+
+   /**
+    * Writes the exposition to an output stream.
+    *
+    * @param out  The output stream
+    * @param gzip Whether the exposition should be written gzip-compressed
+    */
+   public void write(OutputStream out, boolean gzip) throws IOException {
+      if (ttlNanos <= 0) {
+         if (gzip) {
+            var compressed = new GZIPOutputStream(out);
+            render(compressed);
+            compressed.finish();
+         } else {
+            render(out);
+         }
+      } else {
+         var current = getSnapshot();
+         out.write(gzip ? current.getGzipped() : current.getPlain());
+      }
+   }
+
+   private Snapshot getSnapshot() throws IOException {
+      var current = snapshot;
+
+      if (current != null && System.nanoTime() - current.createdNanos < ttlNanos) {
+         return current;
+      }
+
+      synchronized (this) {
+         current = snapshot;
+
+         if (current == null || System.nanoTime() - current.createdNanos >= ttlNanos) {
+            var bytes = new ByteArrayOutputStream();
+            render(bytes);
+            current = new Snapshot(System.nanoTime(), bytes.toByteArray());
+            snapshot = current;
+         }
+
+         return current;
+      }
+   }
+
+   private void render(OutputStream out) throws IOException {
+      var timer = renderDuration.startTimer();
+
+      try {
+         var writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+         TextFormat.write004(writer, registry.metricFamilySamples());
+         writer.flush();
+      } finally {
+         timer.observeDuration();
+      }
+   }
+
+   private static class Snapshot {
+
+      private final long createdNanos;
+
+      private final byte[] plain;
+
+      /**
+       * Compressed on the first request which accepts gzip.
+       */
+      private volatile byte[] gzipped;
+
+      Snapshot(long createdNanos, byte[] plain) {
+         this.createdNanos = createdNanos;
+         this.plain = plain;
+      }
+
+      public byte[] getPlain() {
+         return plain;
+      }
+
+      public byte[] getGzipped() throws IOException {
+         var result = gzipped;
+
+         if (result == null) {
+            var bytes = new ByteArrayOutputStream(plain.length / 4 + 64);
+
+            try (var compressed = new GZIPOutputStream(bytes)) {
+               compressed.write(plain);
+            }
+
+            result = bytes.toByteArray();
+            gzipped = result;
+         }
+
+         return result;
+      }
+
+   }
+
+}
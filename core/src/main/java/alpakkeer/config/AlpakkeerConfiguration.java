@@ -36,6 +36,8 @@ public final class AlpakkeerConfiguration {
 
    private final MessagingConfiguration messaging;
 
+   private final RecordCodecConfiguration codec;
+
    private final List<JobConfiguration> jobs;
 
    private final List<ProcessConfiguration> processes;
@@ -0,0 +1,41 @@
+package alpakkeer.config;
+
+import alpakkeer.core.config.annotations.ConfigurationProperties;
+import alpakkeer.core.config.annotations.Value;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+@Getter
+@ConfigurationProperties
+@NoArgsConstructor(access = AccessLevel.PRIVATE, force = true)
+@AllArgsConstructor(staticName = "apply")
+public final class CachingContextStoreConfiguration {
+
+   /**
+    * Whether contexts are cached in memory in front of the configured context store.
+    */
+   private final boolean enabled;
+
+   /**
+    * The maximum number of cached contexts.
+    */
+   @Value("max-size")
+   private final long maxSize;
+
+   /**
+    * The time after which a cached context is evicted if it was not read or written.
+    */
+   @Value("expire-after")
+   private final Duration expireAfter;
+
+   /**
+    * The interval in which saved contexts are written to the context store; zero writes contexts immediately.
+    */
+   @Value("flush-interval")
+   private final Duration flushInterval;
+
+}
@@ -0,0 +1,32 @@
+package alpakkeer.config;
+
+import alpakkeer.core.config.annotations.ConfigurationProperties;
+import alpakkeer.core.config.annotations.Value;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@ConfigurationProperties
+@NoArgsConstructor(access = AccessLevel.PRIVATE, force = true)
+@AllArgsConstructor(staticName = "apply")
+public final class ContextHistoryConfiguration {
+
+   private final String table;
+
+   /**
+    * The number of versions after which a full snapshot of a context is stored; versions in between are stored as
+    * JSON patches against their previous version. Must be at least 1; 1 stores each version as a snapshot.
+    */
+   @Value("snapshot-interval")
+   private final int snapshotInterval;
+
+   /**
+    * The number of snapshots kept per job, including the patches in between; older versions are deleted. Must be at
+    * least 1.
+    */
+   @Value("retained-snapshots")
+   private final int retainedSnapshots;
+
+}
@@ -22,4 +22,6 @@ public final class ContextStoreConfiguration {
 
    private final PostgresContextStoreConfiguration db;
 
+   private final CachingContextStoreConfiguration cache;
+
 }
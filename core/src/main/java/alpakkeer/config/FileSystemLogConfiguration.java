@@ -0,0 +1,36 @@
+package alpakkeer.config;
+
+import alpakkeer.core.config.annotations.ConfigurationProperties;
+import alpakkeer.core.config.annotations.Value;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+@Getter
+@ConfigurationProperties
+@NoArgsConstructor(access = AccessLevel.PRIVATE, force = true)
+@AllArgsConstructor(staticName = "apply")
+public final class FileSystemLogConfiguration {
+
+   /**
+    * The size of a segment file in bytes. A new segment is started when a record does not fit into the current one.
+    */
+   @Value("segment-size")
+   private final long segmentSize;
+
+   /**
+    * The number of appended records after which the log is flushed to disk.
+    */
+   @Value("flush-records")
+   private final int flushRecords;
+
+   /**
+    * The maximum interval between two flushes.
+    */
+   @Value("flush-interval")
+   private final Duration flushInterval;
+
+}
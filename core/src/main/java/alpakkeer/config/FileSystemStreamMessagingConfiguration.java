@@ -14,4 +14,17 @@ public final class FileSystemStreamMessagingConfiguration {
 
    private final String directory;
 
+   /**
+    * Specifies how records are stored.
+    * Possible values: files, log
+    */
+   private final String mode;
+
+   /**
+    * The dispatcher which runs blocking file operations.
+    */
+   private final String dispatcher;
+
+   private final FileSystemLogConfiguration log;
+
 }
@@ -0,0 +1,32 @@
+package alpakkeer.config;
+
+import alpakkeer.core.config.annotations.ConfigurationProperties;
+import alpakkeer.core.config.annotations.Value;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+@Getter
+@ConfigurationProperties
+@NoArgsConstructor(access = AccessLevel.PRIVATE, force = true)
+@AllArgsConstructor(staticName = "apply")
+public final class InMemoryMessagingConfiguration {
+
+   /**
+    * The maximum number of records which are kept per topic. Puts wait until all consumer groups have read enough
+    * records when a topic is full.
+    */
+   @Value("max-capacity")
+   private final int maxCapacity;
+
+   /**
+    * The time after which a consumer group which doesn't poll is removed if its records are needed to store new
+    * records; it continues at the oldest retained record if it polls again.
+    */
+   @Value("group-timeout")
+   private final Duration groupTimeout;
+
+}
@@ -0,0 +1,34 @@
+package alpakkeer.config;
+
+import alpakkeer.core.config.annotations.ConfigurationProperties;
+import alpakkeer.core.config.annotations.Value;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+@Getter
+@ConfigurationProperties
+@NoArgsConstructor(access = AccessLevel.PRIVATE, force = true)
+@AllArgsConstructor(staticName = "apply")
+public final class KafkaCommitterConfiguration {
+
+   /**
+    * If enabled, offsets are committed when a record's context is committed instead of Kafka's auto-commit.
+    */
+   private final boolean enabled;
+
+   @Value("max-batch")
+   private final long maxBatch;
+
+   @Value("max-interval")
+   private final Duration maxInterval;
+
+   private final int parallelism;
+
+   @Value("buffer-size")
+   private final int bufferSize;
+
+}
@@ -8,6 +8,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import java.time.Duration;
+
 @Getter
 @ConfigurationProperties
 @NoArgsConstructor(access = AccessLevel.PRIVATE, force = true)
@@ -23,4 +25,16 @@ public final class KafkaMessagingAdapterConfiguration {
    @Value("producer")
    private Config producer;
 
+   /**
+    * Specifies how records are written to Kafka.
+    * Possible values: envelope, headers
+    */
+   @Value("record-format")
+   private String recordFormat;
+
+   private KafkaCommitterConfiguration committer;
+
+   @Value("next-record-timeout")
+   private Duration nextRecordTimeout;
+
 }
@@ -1,6 +1,7 @@
 package alpakkeer.config;
 
 import alpakkeer.core.config.annotations.ConfigurationProperties;
+import alpakkeer.core.config.annotations.Value;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -18,6 +19,9 @@ public final class MessagingConfiguration {
     */
    private final String type;
 
+   @Value("in-memory")
+   private final InMemoryMessagingConfiguration inMemory;
+
    private final FileSystemStreamMessagingConfiguration fs;
 
    private final KafkaMessagingAdapterConfiguration kafka;
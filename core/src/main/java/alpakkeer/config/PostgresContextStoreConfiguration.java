@@ -1,6 +1,7 @@
 package alpakkeer.config;
 
 import alpakkeer.core.config.annotations.ConfigurationProperties;
+import alpakkeer.core.config.annotations.Value;
 import com.typesafe.config.Config;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -19,4 +20,17 @@ public final class PostgresContextStoreConfiguration {
 
    private final Config database;
 
+   /**
+    * The maximum number of pooled connections of the JDBC context store.
+    */
+   @Value("pool-size")
+   private final int poolSize;
+
+   /**
+    * The dispatcher used for blocking JDBC calls.
+    */
+   private final String dispatcher;
+
+   private final ContextHistoryConfiguration history;
+
 }
@@ -0,0 +1,28 @@
+package alpakkeer.config;
+
+import alpakkeer.core.config.annotations.ConfigurationProperties;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@ConfigurationProperties
+@NoArgsConstructor(access = AccessLevel.PRIVATE, force = true)
+@AllArgsConstructor(staticName = "apply")
+public final class RecordCodecConfiguration {
+
+   /**
+    * Specifies the codec used to serialize records and contexts.
+    * Possible values: json, smile
+    */
+   private final String type;
+
+   /**
+    * Compact type ids which are used by binary codecs instead of class names.
+    */
+   private final List<RecordTypeConfiguration> types;
+
+}
@@ -1,11 +1,14 @@
 package alpakkeer.config;
 
 import alpakkeer.core.config.annotations.ConfigurationProperties;
+import alpakkeer.core.config.annotations.Value;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import java.time.Duration;
+
 @Getter
 @ConfigurationProperties
 @NoArgsConstructor(access = AccessLevel.PRIVATE, force = true)
@@ -16,4 +19,10 @@ public final class ServerConfiguration {
 
    private final int port;
 
+   /**
+    * The time for which the rendered Prometheus metrics are served from a cache; zero disables the cache.
+    */
+   @Value("metrics-cache-ttl")
+   private final Duration metricsCacheTtl;
+
 }
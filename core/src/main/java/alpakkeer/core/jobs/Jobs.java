@@ -5,6 +5,7 @@ import akka.actor.ActorSystem;
 import akka.actor.typed.ActorRef;
 import akka.actor.typed.javadsl.Adapter;
 import alpakkeer.core.jobs.actor.JobActor;
+import alpakkeer.core.jobs.actor.context.JobStatusCache;
 import alpakkeer.core.jobs.actor.protocol.*;
 import alpakkeer.core.jobs.context.ContextStore;
 import alpakkeer.core.jobs.model.JobStatus;
@@ -17,6 +18,7 @@ import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 public final class Jobs {
@@ -36,6 +38,8 @@ public final class Jobs {
 
       private final ActorPatterns patterns;
 
+      private final JobStatusCache<P, C> status;
+
       @Override
       public JobDefinition<P, C> getDefinition() {
          return definition;
@@ -59,20 +63,21 @@ public final class Jobs {
 
       @Override
       public CompletionStage<JobStatus> getStatus() {
-         return patterns.ask(actor, Status::apply);
+         return CompletableFuture.completedFuture(status.getStatus());
       }
 
       @Override
       public CompletionStage<JobStatusDetails<P, C>> getStatusDetails() {
-         return patterns.ask(actor, StatusDetails::apply);
+         return status.getStatusDetails();
       }
 
    }
 
    public static <P, C> Job<P, C> apply(ActorSystem system, CronScheduler scheduler, ContextStore contextStore, JobDefinition<P, C> definition) {
-      var behavior = JobActor.apply(definition, scheduler, contextStore);
+      var status = JobStatusCache.apply(definition, scheduler, contextStore);
+      var behavior = JobActor.apply(definition, scheduler, contextStore, status);
       var actor = Adapter.spawn(system, behavior, definition.getName());
-      var actorJob = ActorJob.apply(definition, actor, ActorPatterns.apply(system));
+      var actorJob = ActorJob.apply(definition, actor, ActorPatterns.apply(system), status);
 
       definition.getSchedule().forEach(s -> actorJob
          .schedule(s.getCron(), s.isQueue(), s.getProperties())
@@ -8,6 +8,7 @@ import akka.actor.typed.javadsl.Receive;
 import alpakkeer.core.jobs.context.ContextStore;
 import alpakkeer.core.jobs.JobDefinition;
 import alpakkeer.core.jobs.actor.context.Context;
+import alpakkeer.core.jobs.actor.context.JobStatusCache;
 import alpakkeer.core.jobs.actor.protocol.*;
 import alpakkeer.core.jobs.actor.states.Idle;
 import alpakkeer.core.jobs.actor.states.State;
@@ -17,13 +18,13 @@ public final class JobActor<P, C> extends AbstractBehavior<Message<P, C>> {
 
    private State<P, C> state;
 
-   private JobActor(ActorContext<Message<P, C>> context, JobDefinition<P, C> definition, CronScheduler scheduler, ContextStore contextStore) {
+   private JobActor(ActorContext<Message<P, C>> context, JobDefinition<P, C> definition, CronScheduler scheduler, ContextStore contextStore, JobStatusCache<P, C> statusCache) {
       super(context);
-      this.state = Idle.apply(context, Context.apply(definition, scheduler, contextStore));
+      this.state = Idle.apply(context, Context.apply(definition, scheduler, contextStore, statusCache));
    }
 
-   public static <P, C> Behavior<Message<P, C>> apply(JobDefinition<P, C> definition, CronScheduler scheduler, ContextStore contextStore) {
-      return Behaviors.setup(ctx -> new JobActor<>(ctx, definition, scheduler, contextStore));
+   public static <P, C> Behavior<Message<P, C>> apply(JobDefinition<P, C> definition, CronScheduler scheduler, ContextStore contextStore, JobStatusCache<P, C> statusCache) {
+      return Behaviors.setup(ctx -> new JobActor<>(ctx, definition, scheduler, contextStore, statusCache));
    }
 
    @Override
@@ -45,16 +46,19 @@ public final class JobActor<P, C> extends AbstractBehavior<Message<P, C>> {
 
    private Behavior<Message<P, C>> onCompleted(Completed<P, C> completed) {
       state = state.onCompleted(completed);
+      state.publish();
       return Behaviors.same();
    }
 
    private Behavior<Message<P, C>> onFinalized(Finalized<P, C> finalized) {
       state = state.onFinalized(finalized);
+      state.publish();
       return Behaviors.same();
    }
 
    private Behavior<Message<P, C>> onFailed(Failed<P, C> failed) {
       state = state.onFailed(failed);
+      state.publish();
       return Behaviors.same();
    }
 
@@ -70,11 +74,13 @@ public final class JobActor<P, C> extends AbstractBehavior<Message<P, C>> {
 
    private Behavior<Message<P, C>> onStart(Start<P, C> start) {
       state = state.onStart(start);
+      state.publish();
       return Behaviors.same();
    }
 
    private Behavior<Message<P, C>> onStarted(Started<P, C> started) {
       state = state.onStarted(started);
+      state.publish();
       return Behaviors.same();
    }
 
@@ -90,6 +96,7 @@ public final class JobActor<P, C> extends AbstractBehavior<Message<P, C>> {
 
    private Behavior<Message<P, C>> onStop(Stop<P, C> stop) {
       state = state.onStop(stop);
+      state.publish();
       return Behaviors.same();
    }
 
@@ -2,6 +2,8 @@ package alpakkeer.core.jobs.actor.context;
 
 import alpakkeer.core.jobs.context.ContextStore;
 import alpakkeer.core.jobs.JobDefinition;
+import alpakkeer.core.jobs.model.CurrentExecution;
+import alpakkeer.core.jobs.model.JobState;
 import alpakkeer.core.jobs.model.ScheduledExecution;
 import alpakkeer.core.scheduler.CronScheduler;
 import alpakkeer.core.util.Operators;
@@ -29,8 +31,19 @@ public class Context<P, C> {
 
    List<QueuedExecutionInternal<P, C>> queue;
 
-   public static <P, C> Context<P, C> apply(JobDefinition<P, C> jobDefinition, CronScheduler scheduler, ContextStore contextStore) {
-      return apply(jobDefinition, scheduler, contextStore, Lists.newArrayList(), Lists.newArrayList());
+   JobStatusCache<P, C> statusCache;
+
+   /**
+    * Replies which are sent after the next publication of the job's state.
+    */
+   List<Runnable> replies;
+
+   public static <P, C> Context<P, C> apply(
+      JobDefinition<P, C> jobDefinition, CronScheduler scheduler, ContextStore contextStore, JobStatusCache<P, C> statusCache) {
+
+      return apply(
+         jobDefinition, scheduler, contextStore, Lists.newArrayList(), Lists.newArrayList(), statusCache,
+         Lists.newArrayList());
    }
 
    public void addScheduledExecution(ScheduledExecutionReference<P> scheduled) {
@@ -38,6 +51,12 @@ public class Context<P, C> {
    }
 
    public CompletionStage<List<ScheduledExecution<P>>> getSchedule() {
+      return getSchedule(scheduler, schedule);
+   }
+
+   public static <P> CompletionStage<List<ScheduledExecution<P>>> getSchedule(
+      CronScheduler scheduler, List<ScheduledExecutionReference<P>> schedule) {
+
       return Operators
          .allOf(schedule
             .stream()
@@ -62,4 +81,31 @@ public class Context<P, C> {
       schedule.removeIf(s -> s.getName().equals(name));
    }
 
+   /**
+    * Publishes the current state of the job to the job's status cache; afterwards the pending replies are sent.
+    *
+    * @param state   The state of the job
+    * @param current The current execution, if the job is not idle
+    */
+   public void publish(JobState state, CurrentExecution<P> current) {
+      statusCache.publish(
+         state, current,
+         queue.stream().map(QueuedExecutionInternal::getQueuedExecution).collect(Collectors.toList()),
+         schedule);
+
+      var pending = List.copyOf(replies);
+      replies.clear();
+      pending.forEach(Runnable::run);
+   }
+
+   /**
+    * Sends a reply after the next publication of the job's state, thus the receiver of the reply observes the state
+    * which results from its request in the job's status.
+    *
+    * @param reply Sends the reply
+    */
+   public void replyAfterPublish(Runnable reply) {
+      replies.add(reply);
+   }
+
 }
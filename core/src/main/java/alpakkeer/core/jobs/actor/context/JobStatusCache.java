@@ -0,0 +1,199 @@
+package alpakkeer.core.jobs.actor.context;
+
+import alpakkeer.core.jobs.JobDefinition;
+import alpakkeer.core.jobs.context.ContextStore;
+import alpakkeer.core.jobs.model.*;
+import alpakkeer.core.scheduler.CronScheduler;
+import alpakkeer.core.util.Operators;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The status of a job, published by the job actor whenever it handled a message. The status can be read by any thread
+ * without asking the actor.
+ *
+ * The job's current context and the status of its monitors are cached as well. The context is only cached while the
+ * job is idle, since running executions may update the context directly within the context store; it is replaced when
+ * the job actor stores a new context. The status of the monitors is reloaded after state transitions and after
+ * {@link #MONITOR_STATUS_MAX_AGE}, since monitors update their status while the job is running.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class JobStatusCache<P, C> {
+
+   private static final Duration MONITOR_STATUS_MAX_AGE = Duration.ofSeconds(1);
+
+   private final JobDefinition<P, C> definition;
+
+   private final CronScheduler scheduler;
+
+   private final ContextStore contextStore;
+
+   private final AtomicReference<Snapshot<P>> snapshot;
+
+   private final AtomicReference<CompletableFuture<C>> context;
+
+   private final AtomicReference<MonitorStatus> monitorStatus;
+
+   public static <P, C> JobStatusCache<P, C> apply(
+      JobDefinition<P, C> definition, CronScheduler scheduler, ContextStore contextStore) {
+
+      var initial = Snapshot.<P>apply(JobState.IDLE, null, List.of(), List.of());
+
+      return new JobStatusCache<>(
+         definition, scheduler, contextStore,
+         new AtomicReference<>(initial), new AtomicReference<>(), new AtomicReference<>());
+   }
+
+   /**
+    * Publishes a new snapshot of the job's state; must only be called by the job actor.
+    *
+    * @param state    The state of the job
+    * @param current  The current execution, if the job is not idle
+    * @param queued   The queued executions
+    * @param schedule The scheduled executions
+    */
+   public void publish(
+      JobState state, CurrentExecution<P> current, List<QueuedExecution<P>> queued,
+      List<ScheduledExecutionReference<P>> schedule) {
+
+      var previous = snapshot.getAndSet(Snapshot.apply(state, current, List.copyOf(queued), List.copyOf(schedule)));
+
+      if (!previous.getState().equals(state)) {
+         monitorStatus.set(null);
+      }
+
+      if (previous.getState().equals(JobState.IDLE) && !state.equals(JobState.IDLE)) {
+         context.set(null);
+      }
+   }
+
+   public JobStatus getStatus() {
+      var current = snapshot.get();
+      return JobStatus.apply(definition.getName(), current.getState(), current.getQueued().size());
+   }
+
+   public CompletionStage<JobStatusDetails<P, C>> getStatusDetails() {
+      var current = snapshot.get();
+
+      var currentContext = getContext().exceptionally(ex -> {
+         definition.getLogger().warn(
+            String.format("An exception occurred while reading current context of job `%s`", definition.getName()),
+            ex);
+
+         return definition.getInitialContext();
+      });
+
+      return Operators.compose(
+         Context.getSchedule(scheduler, current.getSchedule()),
+         getMonitorStatus(),
+         currentContext,
+         (schedule, details, ctx) -> JobStatusDetails.apply(
+            definition.getName(),
+            current.getState(),
+            ctx,
+            current.getCurrent(),
+            current.getQueued(),
+            schedule,
+            details.orElse(null)));
+   }
+
+   /**
+    * Returns the cached context of the job or reads it from the context store if it is not cached yet. Failed reads
+    * and reads while the job is running are not cached.
+    *
+    * @return The current context of the job
+    */
+   public CompletionStage<C> getContext() {
+      var cached = context.get();
+
+      if (cached != null) {
+         return cached;
+      } else if (!snapshot.get().getState().equals(JobState.IDLE)) {
+         return readContext();
+      }
+
+      var pending = new CompletableFuture<C>();
+
+      if (!context.compareAndSet(null, pending)) {
+         return getContext();
+      }
+
+      readContext().whenComplete((ctx, ex) -> {
+         if (ex != null) {
+            context.compareAndSet(pending, null);
+            pending.completeExceptionally(ex);
+         } else {
+            pending.complete(ctx);
+         }
+      });
+
+      return pending;
+   }
+
+   /**
+    * Replaces the cached context, e.g. after it has been stored.
+    *
+    * @param ctx The new context
+    */
+   public void setContext(C ctx) {
+      context.set(CompletableFuture.completedFuture(ctx));
+   }
+
+   /**
+    * Invalidates the cached context, thus it is read from the context store with the next request.
+    */
+   public void invalidateContext() {
+      context.set(null);
+   }
+
+   private CompletionStage<C> readContext() {
+      return contextStore
+         .<C>readLatestContext(definition.getName())
+         .thenApply(opt -> opt.orElse(definition.getInitialContext()));
+   }
+
+   private CompletionStage<Optional<Object>> getMonitorStatus() {
+      var cached = monitorStatus.get();
+
+      if (cached != null && System.nanoTime() - cached.getCreatedNanos() < MONITOR_STATUS_MAX_AGE.toNanos()) {
+         return cached.getStatus();
+      }
+
+      var status = definition.getMonitors().getStatus();
+      monitorStatus.set(MonitorStatus.apply(System.nanoTime(), status));
+      return status;
+   }
+
+   @Value
+   @AllArgsConstructor(staticName = "apply")
+   private static class Snapshot<P> {
+
+      JobState state;
+
+      CurrentExecution<P> current;
+
+      List<QueuedExecution<P>> queued;
+
+      List<ScheduledExecutionReference<P>> schedule;
+
+   }
+
+   @Value
+   @AllArgsConstructor(staticName = "apply")
+   private static class MonitorStatus {
+
+      long createdNanos;
+
+      CompletionStage<Optional<Object>> status;
+
+   }
+
+}
@@ -5,8 +5,11 @@ import akka.actor.typed.javadsl.ActorContext;
 import alpakkeer.core.jobs.actor.context.Context;
 import alpakkeer.core.jobs.actor.context.CurrentExecutionInternal;
 import alpakkeer.core.jobs.actor.protocol.*;
+import alpakkeer.core.jobs.model.CurrentExecution;
 import alpakkeer.core.jobs.model.JobState;
 
+import java.util.Optional;
+
 public final class Finalizing<P, C> extends State<P, C> {
 
    private final CurrentExecutionInternal<P, C> currentExecution;
@@ -62,8 +65,13 @@ public final class Finalizing<P, C> extends State<P, C> {
    @Override
    public State<P, C> onStop(Stop<P, C> stop) {
       if (stop.isClearQueue()) context.getQueue().clear();
-      stop.getReplyTo().tell(Done.getInstance());
+      reply(stop.getReplyTo(), Done.getInstance());
       return this;
    }
 
+   @Override
+   protected Optional<CurrentExecution<P>> getCurrentExecution() {
+      return Optional.of(currentExecution.getCurrentExecution());
+   }
+
 }
@@ -50,7 +50,7 @@ public final class Idle<P, C> extends State<P, C> {
 
    @Override
    public State<P, C> onStop(Stop<P, C> stop) {
-      stop.getReplyTo().tell(Done.getInstance());
+      reply(stop.getReplyTo(), Done.getInstance());
       return this;
    }
 
@@ -5,9 +5,11 @@ import alpakkeer.core.jobs.JobHandle;
 import alpakkeer.core.jobs.actor.context.Context;
 import alpakkeer.core.jobs.actor.context.CurrentExecutionInternal;
 import alpakkeer.core.jobs.actor.protocol.*;
+import alpakkeer.core.jobs.model.CurrentExecution;
 import alpakkeer.core.jobs.model.JobState;
 
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 public final class Running<P, C> extends State<P, C> {
 
@@ -79,4 +81,9 @@ public final class Running<P, C> extends State<P, C> {
       return Stopping.apply(actor, context, currentExecution, stop);
    }
 
+   @Override
+   protected Optional<CurrentExecution<P>> getCurrentExecution() {
+      return Optional.of(currentExecution.getCurrentExecution());
+   }
+
 }
@@ -4,10 +4,12 @@ import akka.actor.typed.javadsl.ActorContext;
 import alpakkeer.core.jobs.actor.context.Context;
 import alpakkeer.core.jobs.actor.context.CurrentExecutionInternal;
 import alpakkeer.core.jobs.actor.protocol.*;
+import alpakkeer.core.jobs.model.CurrentExecution;
 import alpakkeer.core.jobs.model.JobState;
 import com.google.common.collect.Lists;
 
 import java.util.List;
+import java.util.Optional;
 
 public final class Starting<P, C> extends State<P, C> {
 
@@ -90,4 +92,9 @@ public final class Starting<P, C> extends State<P, C> {
       return this;
    }
 
+   @Override
+   protected Optional<CurrentExecution<P>> getCurrentExecution() {
+      return Optional.of(currentExecution.getCurrentExecution());
+   }
+
 }
@@ -1,5 +1,6 @@
 package alpakkeer.core.jobs.actor.states;
 
+import akka.actor.typed.ActorRef;
 import akka.actor.typed.javadsl.ActorContext;
 import alpakkeer.core.jobs.actor.context.Context;
 import alpakkeer.core.jobs.actor.context.CurrentExecutionInternal;
@@ -8,14 +9,13 @@ import alpakkeer.core.jobs.actor.context.ScheduledExecutionReference;
 import alpakkeer.core.jobs.actor.protocol.*;
 import alpakkeer.core.jobs.exceptions.AlreadyRunningException;
 import alpakkeer.core.jobs.model.*;
-import alpakkeer.core.util.Operators;
 import org.slf4j.Logger;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
-import java.util.stream.Collectors;
 
 public abstract class State<P, C> {
 
@@ -70,6 +70,9 @@ public abstract class State<P, C> {
          scheduled.getName(), scheduled.getProperties(), scheduled.isQueue(),
          scheduled.getCron()));
 
+      // the reply is sent asynchronously, thus the schedule is published before
+      publish();
+
       context.getScheduler().getJob(scheduled.getName()).whenComplete((details, exception) -> {
          if (exception != null) {
             log.warn("An exception occurred while getting job details from scheduler", exception);
@@ -85,29 +88,13 @@ public abstract class State<P, C> {
    }
 
    public void onStatus(Status<P, C> status) {
-      context.getSchedule().thenAccept(schedule -> {
-         var result = JobStatus.apply(
-            context.getJobDefinition().getName(),
-            state, context.getQueue().size());
-
-         status.getReplyTo().tell(result);
-      });
+      status.getReplyTo().tell(context.getStatusCache().getStatus());
    }
 
    public void onStatusDetails(StatusDetails<P, C> status) {
-      Operators
-         .compose(
-            context.getSchedule(),
-            context.getJobDefinition().getMonitors().getStatus(),
-            getCurrentContext(),
-            (schedule, details, ctx) -> JobStatusDetails.apply(
-               context.getJobDefinition().getName(),
-               state,
-               ctx,
-               null,
-               context.getQueue().stream().map(QueuedExecutionInternal::getQueuedExecution).collect(Collectors.toList()),
-               schedule,
-               details.orElse(null)))
+      context
+         .getStatusCache()
+         .getStatusDetails()
          .whenComplete((details, ex) -> {
             if (ex != null) {
                log.warn(
@@ -119,11 +106,36 @@ public abstract class State<P, C> {
          });
    }
 
+   /**
+    * Publishes the state of the job to the job's status cache, and sends the replies of the handled message (see
+    * {@link #reply(ActorRef, Object)}).
+    */
+   public void publish() {
+      context.publish(state, getCurrentExecution().orElse(null));
+   }
+
+   /**
+    * @return The current execution, if the job is not idle
+    */
+   protected Optional<CurrentExecution<P>> getCurrentExecution() {
+      return Optional.empty();
+   }
+
+   /**
+    * Replies to a request once the state which results from the request is published.
+    *
+    * @param replyTo The receiver of the reply
+    * @param message The reply
+    * @param <T>     The type of the reply
+    */
+   protected <T> void reply(ActorRef<T> replyTo, T message) {
+      context.replyAfterPublish(() -> replyTo.tell(message));
+   }
+
    protected CompletionStage<C> getCurrentContext() {
       return context
-         .getContextStore()
-         .<C>readLatestContext(context.getJobDefinition().getName())
-         .thenApply(opt -> opt.orElse(context.getJobDefinition().getInitialContext()))
+         .getStatusCache()
+         .getContext()
          .exceptionally(ex -> {
             log.warn(String.format(
                "An exception occurred while reading current context of job `%s`", context.getJobDefinition().getName()),
@@ -134,6 +146,8 @@ public abstract class State<P, C> {
    }
 
    protected void setCurrentContext(C ctx) {
+      context.getStatusCache().invalidateContext();
+
       context.getContextStore()
          .saveContext(
             context.getJobDefinition().getName(),
@@ -143,6 +157,8 @@ public abstract class State<P, C> {
                log.warn(
                   String.format("An exception occurred while storing job context for job `%s`", context.getJobDefinition().getName()),
                   ex);
+            } else {
+               context.getStatusCache().setContext(ctx);
             }
 
             actor.getSelf().tell(Finalized.apply());
@@ -151,13 +167,13 @@ public abstract class State<P, C> {
 
    protected void queue(Start<P, C> start) {
       if (!start.isQueue() && !context.getQueue().isEmpty()) {
-         start.getErrorTo().tell(AlreadyRunningException.apply(context.getJobDefinition().getName()));
+         reply(start.getErrorTo(), AlreadyRunningException.apply(context.getJobDefinition().getName()));
       } else {
          var queuedExecution = QueuedExecution.apply(start.getProperties());
          var queuedExecutionInternal = QueuedExecutionInternal.apply(queuedExecution, new CompletableFuture<C>());
          context.getQueue().add(queuedExecutionInternal);
          context.getJobDefinition().getMonitors().onQueued(context.getQueue().size());
-         start.getReplyTo().tell(queuedExecutionInternal.getMaybeResult());
+         reply(start.getReplyTo(), queuedExecutionInternal.getMaybeResult());
       }
    }
 
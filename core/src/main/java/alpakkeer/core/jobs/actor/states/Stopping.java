@@ -5,11 +5,13 @@ import akka.actor.typed.javadsl.ActorContext;
 import alpakkeer.core.jobs.actor.context.Context;
 import alpakkeer.core.jobs.actor.context.CurrentExecutionInternal;
 import alpakkeer.core.jobs.actor.protocol.*;
+import alpakkeer.core.jobs.model.CurrentExecution;
 import alpakkeer.core.jobs.model.JobState;
 import com.google.common.collect.Lists;
 
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 public final class Stopping<P, C> extends State<P, C> {
 
@@ -40,7 +42,7 @@ public final class Stopping<P, C> extends State<P, C> {
 
    @Override
    public State<P, C> onCompleted(Completed<P, C> completed) {
-      stopRequests.forEach(s -> s.getReplyTo().tell(Done.getInstance()));
+      stopRequests.forEach(s -> reply(s.getReplyTo(), Done.getInstance()));
 
       if (completed.getResult().isPresent()) {
          context.getJobDefinition().getMonitors().onStopped(
@@ -79,7 +81,7 @@ public final class Stopping<P, C> extends State<P, C> {
 
       currentExecution.getCompletableFuture().completeExceptionally(failed.getException());
 
-      stopRequests.forEach(s -> s.getReplyTo().tell(Done.getInstance()));
+      stopRequests.forEach(s -> reply(s.getReplyTo(), Done.getInstance()));
       return processQueue();
    }
 
@@ -102,4 +104,9 @@ public final class Stopping<P, C> extends State<P, C> {
       return this;
    }
 
+   @Override
+   protected Optional<CurrentExecution<P>> getCurrentExecution() {
+      return Optional.of(currentExecution.getCurrentExecution());
+   }
+
 }
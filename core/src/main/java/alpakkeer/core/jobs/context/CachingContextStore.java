@@ -0,0 +1,183 @@
+package alpakkeer.core.jobs.context;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import akka.actor.Cancellable;
+import akka.actor.CoordinatedShutdown;
+import alpakkeer.config.CachingContextStoreConfiguration;
+import alpakkeer.core.util.Operators;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * A context store which keeps deserialized contexts in memory in front of another context store. Cached contexts are
+ * evicted by size and time.
+ *
+ * Saved contexts are written behind: They are cached immediately and written to the underlying store in the flush
+ * interval, thus only the latest context of a job within an interval is written. A scheduled flush is skipped while
+ * the previous flush is still running. Pending contexts are flushed when the actor system shuts down. Contexts are
+ * shared by all readers, thus they should be immutable.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CachingContextStore implements ContextStore {
+
+   private static final Logger LOG = LoggerFactory.getLogger(CachingContextStore.class);
+
+   private final ContextStore store;
+
+   private final Cache<String, Optional<Object>> cache;
+
+   /**
+    * The saved contexts which have not been written to the underlying store yet.
+    */
+   private final ConcurrentHashMap<String, Object> pending;
+
+   private final Duration flushInterval;
+
+   private CompletionStage<Done> flushing;
+
+   /**
+    * The schedule of the periodic flushes, if any.
+    */
+   private Cancellable schedule;
+
+   /**
+    * Creates a new caching context store.
+    *
+    * @param system The actor system used to schedule flushes
+    * @param store  The underlying context store
+    * @param config The cache configuration
+    * @return The new context store
+    */
+   public static CachingContextStore apply(ActorSystem system, ContextStore store, CachingContextStoreConfiguration config) {
+      var cache = CacheBuilder
+         .newBuilder()
+         .maximumSize(config.getMaxSize())
+         .expireAfterAccess(config.getExpireAfter())
+         .<String, Optional<Object>>build();
+
+      var caching = new CachingContextStore(
+         store, cache, new ConcurrentHashMap<>(), config.getFlushInterval(),
+         CompletableFuture.completedFuture(Done.getInstance()), null);
+
+      if (!config.getFlushInterval().isZero()) {
+         caching.schedule = system
+            .scheduler()
+            .scheduleWithFixedDelay(
+               config.getFlushInterval(), config.getFlushInterval(),
+               caching::tick, system.dispatcher());
+
+         CoordinatedShutdown
+            .get(system)
+            .addTask(
+               CoordinatedShutdown.PhaseBeforeActorSystemTerminate(), "alpakkeer-flush-context-store",
+               caching::shutdown);
+      }
+
+      return caching;
+   }
+
+   @Override
+   public <C> CompletionStage<Done> saveContext(String name, C context) {
+      cache.put(name, Optional.of(context));
+
+      if (flushInterval.isZero()) {
+         return store.saveContext(name, context);
+      } else {
+         pending.put(name, context);
+         return CompletableFuture.completedFuture(Done.getInstance());
+      }
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public <C> CompletionStage<Optional<C>> readLatestContext(String name) {
+      var saved = pending.get(name);
+
+      if (saved != null) {
+         return CompletableFuture.completedFuture(Optional.of((C) saved));
+      }
+
+      var cached = cache.getIfPresent(name);
+
+      if (cached != null) {
+         return CompletableFuture.completedFuture((Optional<C>) cached);
+      }
+
+      return store
+         .<C>readLatestContext(name)
+         .thenApply(context -> {
+            // a context saved in the meantime must not be replaced by the read one
+            cache.asMap().putIfAbsent(name, (Optional<Object>) context);
+            return context;
+         });
+   }
+
+   /**
+    * Writes the pending contexts to the underlying store. A flush starts after the previous flush has finished, thus
+    * contexts of a job are written in the order they were saved.
+    *
+    * @return A CompletionStage which completes when the pending contexts are written
+    */
+   public synchronized CompletionStage<Done> flush() {
+      flushing = flushing.thenCompose(done -> flush$internal());
+      return flushing;
+   }
+
+   /**
+    * Cancels the periodic flushes and writes the remaining pending contexts.
+    *
+    * @return A CompletionStage which completes when the pending contexts are written
+    */
+   public synchronized CompletionStage<Done> shutdown() {
+      if (schedule != null) {
+         schedule.cancel();
+      }
+
+      return flush();
+   }
+
+   /**
+    * Starts a scheduled flush, unless the previous flush is still running; thus slow writes don't pile up flushes.
+    */
+   private synchronized void tick() {
+      if (flushing.toCompletableFuture().isDone()) {
+         flush();
+      }
+   }
+
+   private CompletionStage<Done> flush$internal() {
+      return Operators
+         .allOf(Map
+            .copyOf(pending)
+            .entrySet()
+            .stream()
+            .map(entry -> store
+               .saveContext(entry.getKey(), entry.getValue())
+               .handle((done, ex) -> {
+                  if (ex != null) {
+                     LOG.warn(String.format("An exception occurred while writing context of job `%s`", entry.getKey()), ex);
+                  } else {
+                     // a context which was saved while writing stays pending
+                     pending.remove(entry.getKey(), entry.getValue());
+                  }
+
+                  return Done.getInstance();
+               }))
+            .collect(Collectors.toList()))
+         .thenApply(done -> Done.getInstance());
+   }
+
+}
@@ -0,0 +1,29 @@
+package alpakkeer.core.jobs.context;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A context store which keeps previous versions of the contexts. Each saved context is a new version; versions are
+ * numbered per job, starting with 1.
+ */
+public interface ContextHistoryStore extends ContextStore {
+
+   /**
+    * Reads a version of a job's context, e.g. to roll back the context by saving it again.
+    *
+    * @param name    The name of the job
+    * @param version The version of the context
+    * @param <C>     The type of the context
+    * @return The context or none if the version does not exist (anymore)
+    */
+   <C> CompletionStage<Optional<C>> readContext(String name, long version);
+
+   /**
+    * @param name The name of the job
+    * @return The available versions of the job's context in ascending order
+    */
+   CompletionStage<List<Long>> getVersions(String name);
+
+}
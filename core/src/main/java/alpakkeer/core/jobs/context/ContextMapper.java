@@ -1,25 +1,54 @@
 package alpakkeer.core.jobs.context;
 
 import alpakkeer.core.stream.Record;
-import alpakkeer.core.stream.context.NoRecordContext;
-import alpakkeer.core.util.Operators;
+import alpakkeer.core.stream.codec.RecordCodec;
+import alpakkeer.core.stream.codec.RecordCodecs;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
 @AllArgsConstructor(staticName = "apply")
 public final class ContextMapper {
 
-   private final ObjectMapper om;
+   private final RecordCodec codec;
+
+   public static ContextMapper apply(ObjectMapper om) {
+      return apply(RecordCodecs.json(om));
+   }
+
+   public <C> byte[] toBytes(C context) {
+      return codec.encode(Record.apply(context));
+   }
+
+   public <C> C fromBytes(byte[] context) {
+      return codec.<C>decode(context).getValue();
+   }
 
+   /**
+    * Returns the context in its textual representation; contexts of binary codecs are Base64 encoded.
+    */
    public <C> String toString(C context) {
-      return Operators.suppressExceptions(() -> om.writeValueAsString(Record.apply(context)));
+      var bytes = toBytes(context);
+
+      if (codec.isBinary()) {
+         return Base64.getEncoder().encodeToString(bytes);
+      } else {
+         return new String(bytes, StandardCharsets.UTF_8);
+      }
    }
 
-   @SuppressWarnings("unchecked")
    public <C> C fromString(String context) {
-      return Operators
-         .suppressExceptions(() -> (Record<C, NoRecordContext>) om.readValue(context, Record.class))
-         .getValue();
+      if (codec.isBinary()) {
+         return fromBytes(Base64.getDecoder().decode(context));
+      } else {
+         return fromBytes(context.getBytes(StandardCharsets.UTF_8));
+      }
+   }
+
+   public String getFileExtension() {
+      return codec.getFileExtension();
    }
 
 }
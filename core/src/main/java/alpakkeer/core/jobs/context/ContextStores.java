@@ -9,26 +9,42 @@ public final class  ContextStores {
    }
 
    public static ContextStore createFromConfiguration(AlpakkeerBaseRuntime runtime) {
+      var configuration = runtime.getConfiguration().getContextStore();
+      var store = createStoreFromConfiguration(runtime);
+
+      if (configuration.getCache().isEnabled()) {
+         return CachingContextStore.apply(runtime.getSystem(), store, configuration.getCache());
+      } else {
+         return store;
+      }
+   }
+
+   private static ContextStore createStoreFromConfiguration(AlpakkeerBaseRuntime runtime) {
       var configuration = runtime.getConfiguration().getContextStore();
       var om = runtime.getObjectMapper();
+      var codec = runtime.getRecordCodec();
       var system = runtime.getSystem();
 
       switch (configuration.getType().toLowerCase()) {
          case "in-memory":
          case "in-mem":
          case "default":
-            return InMemoryContextStore.apply(om);
+            return InMemoryContextStore.apply(codec);
          case "fs":
          case "file-system":
          case "files":
-            return FileSystemContextStore.apply(configuration.getFs(), om);
+            return FileSystemContextStore.apply(configuration.getFs(), codec);
          case "postgres":
          case "db":
          case "database":
-            return PostgresContextStore.apply(configuration.getDb(), system, om);
+            return JdbcContextStore.apply(configuration.getDb(), system, om, codec);
+         case "postgres-history":
+            return JdbcContextHistoryStore.apply(configuration.getDb(), system, om, codec);
+         case "postgres-slick":
+            return PostgresContextStore.apply(configuration.getDb(), system, om, codec);
          default:
             throw new RuntimeException(String.format("Unknown context store type `%s`. " +
-               "Allowed values are `in-memory`, `file-system`", configuration.getType()));
+               "Allowed values are `in-memory`, `file-system`, `postgres`, `postgres-history`, `postgres-slick`", configuration.getType()));
       }
    }
 
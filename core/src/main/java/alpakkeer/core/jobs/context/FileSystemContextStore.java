@@ -2,16 +2,14 @@ package alpakkeer.core.jobs.context;
 
 import akka.Done;
 import alpakkeer.config.FileSystemContextStoreConfiguration;
-import alpakkeer.core.stream.Record;
-import alpakkeer.core.stream.context.NoRecordContext;
+import alpakkeer.core.stream.codec.RecordCodec;
+import alpakkeer.core.stream.codec.RecordCodecs;
 import alpakkeer.core.util.Operators;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 
 import java.io.File;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Optional;
@@ -23,43 +21,43 @@ public final class FileSystemContextStore implements ContextStore {
 
    private final Path directory;
 
-   private final ObjectMapper om;
+   private final ContextMapper mapper;
 
-   public static FileSystemContextStore apply(Path directory, ObjectMapper om) {
+   public static FileSystemContextStore apply(Path directory, RecordCodec codec) {
       Operators.suppressExceptions(() -> Files.createDirectories(directory));
-      return new FileSystemContextStore(directory, om);
+      return new FileSystemContextStore(directory, ContextMapper.apply(codec));
+   }
+
+   public static FileSystemContextStore apply(Path directory, ObjectMapper om) {
+      return apply(directory, RecordCodecs.json(om));
+   }
+
+   public static FileSystemContextStore apply(FileSystemContextStoreConfiguration config, RecordCodec codec) {
+      return apply(new File(config.getDirectory()).toPath(), codec);
    }
 
    public static FileSystemContextStore apply(FileSystemContextStoreConfiguration config, ObjectMapper om) {
-      return apply(new File(config.getDirectory()).toPath(), om);
+      return apply(config, RecordCodecs.json(om));
    }
 
    @Override
    public <C> CompletionStage<Done> saveContext(String name, C context) {
       Operators.suppressExceptions(() -> {
-         var filename = name + ".json";
-
-         try (OutputStream os = Files.newOutputStream(directory.resolve(filename))) {
-            var record = Record.apply(context);
-            om.writeValue(os, record);
-         }
+         var filename = name + "." + mapper.getFileExtension();
+         Files.write(directory.resolve(filename), mapper.toBytes(context));
       });
 
       return CompletableFuture.completedFuture(Done.getInstance());
    }
 
    @Override
-   @SuppressWarnings("unchecked")
    public <C> CompletionStage<Optional<C>> readLatestContext(String name) {
       return CompletableFuture.completedFuture(
          Operators.suppressExceptions(() -> {
-            var file = directory.resolve(name + ".json");
+            var file = directory.resolve(name + "." + mapper.getFileExtension());
 
             if (Files.exists(file)) {
-               try (InputStream is = Files.newInputStream(file)) {
-                  var record = (Record<C, NoRecordContext>) om.readValue(is, Record.class);
-                  return Optional.of(record.getValue());
-               }
+               return Optional.of(mapper.<C>fromBytes(Files.readAllBytes(file)));
             } else {
                return Optional.empty();
             }
@@ -1,9 +1,8 @@
 package alpakkeer.core.jobs.context;
 
 import akka.Done;
-import alpakkeer.core.stream.Record;
-import alpakkeer.core.stream.context.NoRecordContext;
-import alpakkeer.core.util.Operators;
+import alpakkeer.core.stream.codec.RecordCodec;
+import alpakkeer.core.stream.codec.RecordCodecs;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Maps;
 import lombok.AccessLevel;
@@ -17,30 +16,28 @@ import java.util.concurrent.CompletionStage;
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 public final class InMemoryContextStore implements ContextStore {
 
-   private final ObjectMapper om;
+   private final ContextMapper mapper;
 
-   private final HashMap<String, String> store;
+   private final HashMap<String, byte[]> store;
+
+   public static InMemoryContextStore apply(RecordCodec codec) {
+      return new InMemoryContextStore(ContextMapper.apply(codec), Maps.newHashMap());
+   }
 
    public static InMemoryContextStore apply(ObjectMapper om) {
-      return new InMemoryContextStore(om, Maps.newHashMap());
+      return apply(RecordCodecs.json(om));
    }
 
    @Override
    public <C> CompletionStage<Done> saveContext(String name, C context) {
-      Record record = Record.apply(context);
-      store.put(name, Operators.suppressExceptions(() -> om.writeValueAsString(record)));
+      store.put(name, mapper.toBytes(context));
       return CompletableFuture.completedFuture(Done.getInstance());
    }
 
    @Override
-   @SuppressWarnings("unchecked")
    public <C> CompletionStage<Optional<C>> readLatestContext(String name) {
       if (store.containsKey(name)) {
-         return CompletableFuture.completedFuture(
-             Operators.suppressExceptions(() -> {
-                var record = (Record<C, NoRecordContext>) om.readValue(store.get(name), Record.class);
-                return Optional.of(record.getValue());
-             }));
+         return CompletableFuture.completedFuture(Optional.of(mapper.<C>fromBytes(store.get(name))));
       } else {
          return CompletableFuture.completedFuture(Optional.empty());
       }
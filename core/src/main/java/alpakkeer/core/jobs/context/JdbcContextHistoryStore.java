@@ -0,0 +1,345 @@
+package alpakkeer.core.jobs.context;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import alpakkeer.config.ContextHistoryConfiguration;
+import alpakkeer.config.PostgresContextStoreConfiguration;
+import alpakkeer.core.stream.codec.JsonRecordCodec;
+import alpakkeer.core.stream.codec.RecordCodec;
+import alpakkeer.core.stream.codec.RecordCodecs;
+import alpakkeer.core.util.Operators;
+import alpakkeer.core.util.Templates;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flipkart.zjsonpatch.JsonDiff;
+import com.flipkart.zjsonpatch.JsonPatch;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * A context history store which stores versions of contexts in a Postgres table (see `V00002__context-history.sql`).
+ *
+ * A version is stored as JSON patch against its previous version, thus saving a large context which changed only
+ * slightly is cheap. A full snapshot is stored for the first version, after the configured number of versions, when
+ * the type of the context changes or when the patch is not smaller than the context itself. After each snapshot, the
+ * versions before the oldest retained snapshot are deleted.
+ *
+ * The latest version of each job's context is kept in memory to compute the patch of the next version; saves of a
+ * job are executed one after another.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class JdbcContextHistoryStore implements ContextHistoryStore {
+
+   private static final Logger LOG = LoggerFactory.getLogger(JdbcContextHistoryStore.class);
+
+   private final DataSource dataSource;
+
+   private final Executor executor;
+
+   private final RecordCodec codec;
+
+   private final ObjectMapper om;
+
+   private final ContextHistoryConfiguration config;
+
+   private final Statements statements;
+
+   /**
+    * The latest version of each job's context.
+    */
+   private final ConcurrentHashMap<String, Version> latest;
+
+   /**
+    * The latest save operation of each job.
+    */
+   private final ConcurrentHashMap<String, CompletableFuture<Done>> saves;
+
+   /**
+    * Creates a new context history store.
+    *
+    * @param dataSource The data source, usually a connection pool
+    * @param executor   The executor for blocking JDBC calls
+    * @param om         The object mapper used to create JSON patches; must be the object mapper of the codec
+    * @param codec      The codec to serialize contexts; must not be binary
+    * @param schema     The schema of the history table
+    * @param config     The history configuration
+    * @param dialect    The dialect of the statements, `postgres` or `h2`
+    * @return The new context history store
+    */
+   public static JdbcContextHistoryStore apply(
+      DataSource dataSource, Executor executor, ObjectMapper om, RecordCodec codec, String schema,
+      ContextHistoryConfiguration config, String dialect) {
+
+      if (config.getSnapshotInterval() < 1) {
+         throw new IllegalArgumentException("The snapshot interval of the context history must be at least 1");
+      }
+
+      if (config.getRetainedSnapshots() < 1) {
+         throw new IllegalArgumentException("The number of retained snapshots of the context history must be at least 1");
+      }
+
+      return new JdbcContextHistoryStore(
+         dataSource, executor, codec, om, config, Statements.apply(schema, config.getTable(), dialect),
+         new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+   }
+
+   public static JdbcContextHistoryStore apply(
+      PostgresContextStoreConfiguration config, ActorSystem system, ObjectMapper om, RecordCodec codec) {
+
+      // values are stored in a `jsonb` column, thus binary codecs cannot be used
+      var json = codec.isBinary() ? JsonRecordCodec.apply(om, codec.getTypes()) : codec;
+
+      return apply(
+         JdbcContextStore.createDataSource(config, system), system.dispatchers().lookup(config.getDispatcher()),
+         om, json, config.getSchema(), config.getHistory(), JdbcContextStore.getDialect(config));
+   }
+
+   public static JdbcContextHistoryStore apply(PostgresContextStoreConfiguration config, ActorSystem system, ObjectMapper om) {
+      return apply(config, system, om, RecordCodecs.json(om));
+   }
+
+   @Override
+   public <C> CompletionStage<Done> saveContext(String name, C context) {
+      var type = context.getClass().getName();
+      var value = codec.encodeValue(context);
+
+      return saves
+         .compute(name, (n, previous) -> (previous != null ? previous : CompletableFuture.completedFuture(Done.getInstance()))
+            .handleAsync((done, ex) -> Operators.suppressExceptions(() -> save$internal(name, type, value)), executor))
+         .whenComplete((done, ex) -> {
+            if (ex != null) {
+               LOG.error(String.format("An exception occurred while updating context for job `%s`", name), ex);
+            }
+         });
+   }
+
+   @Override
+   public <C> CompletionStage<Optional<C>> readLatestContext(String name) {
+      var cached = latest.get(name);
+
+      if (cached != null) {
+         return CompletableFuture.completedFuture(Optional.of(decode(cached)));
+      }
+
+      return read$internal(name, Long.MAX_VALUE);
+   }
+
+   @Override
+   public <C> CompletionStage<Optional<C>> readContext(String name, long version) {
+      var cached = latest.get(name);
+
+      if (cached != null && cached.getVersion() == version) {
+         return CompletableFuture.completedFuture(Optional.of(decode(cached)));
+      }
+
+      return read$internal(name, version);
+   }
+
+   @Override
+   public CompletionStage<List<Long>> getVersions(String name) {
+      return CompletableFuture.supplyAsync(() -> Operators.suppressExceptions(() -> {
+         try (var connection = dataSource.getConnection(); var statement = connection.prepareStatement(statements.versions)) {
+            statement.setString(1, name);
+
+            try (var result = statement.executeQuery()) {
+               var versions = Lists.<Long>newArrayList();
+
+               while (result.next()) {
+                  versions.add(result.getLong(1));
+               }
+
+               return versions;
+            }
+         }
+      }), executor);
+   }
+
+   private <C> CompletionStage<Optional<C>> read$internal(String name, long version) {
+      return CompletableFuture.supplyAsync(() -> {
+         try (var connection = dataSource.getConnection()) {
+            return restore(connection, name, version).map(this::<C>decode);
+         } catch (Exception e) {
+            var msg = String.format(
+               "An exception occurred reading version `%d` of context for job `%s`", version, name);
+            LOG.warn(msg, e);
+            return Optional.<C>empty();
+         }
+      }, executor);
+   }
+
+   private Done save$internal(String name, String type, byte[] value) throws Exception {
+      try (var connection = dataSource.getConnection()) {
+         var previous = Optional.ofNullable(latest.get(name)).or(() -> Operators.suppressExceptions(
+            () -> restore(connection, name, Long.MAX_VALUE)));
+
+         var tree = om.readTree(value);
+         var version = previous.map(p -> p.getVersion() + 1).orElse(1L);
+         var stored = new String(value, StandardCharsets.UTF_8);
+         var snapshot = previous.isEmpty()
+            || version - previous.get().getSnapshot() >= config.getSnapshotInterval()
+            || !previous.get().getType().equals(type);
+
+         if (!snapshot) {
+            var patch = om.writeValueAsString(JsonDiff.asJson(previous.get().getValue(), tree));
+
+            if (patch.length() < stored.length()) {
+               stored = patch;
+            } else {
+               snapshot = true;
+            }
+         }
+
+         try (var statement = connection.prepareStatement(statements.insert)) {
+            statement.setString(1, name);
+            statement.setLong(2, version);
+            statement.setObject(3, LocalDateTime.now());
+            statement.setString(4, type);
+            statement.setBoolean(5, snapshot);
+            statement.setString(6, stored);
+            statement.executeUpdate();
+         }
+
+         var current = Version.apply(version, snapshot ? version : previous.get().getSnapshot(), type, tree);
+         latest.merge(name, current, Version::newest);
+
+         if (snapshot) {
+            Operators.ignoreExceptions(() -> compact(connection, name), LOG);
+         }
+
+         return Done.getInstance();
+      } catch (Exception ex) {
+         // the cached version might not match the stored versions anymore
+         latest.remove(name);
+         throw ex;
+      }
+   }
+
+   /**
+    * Restores a version from the latest snapshot at or before the version and the patches after the snapshot.
+    */
+   private Optional<Version> restore(Connection connection, String name, long version) throws Exception {
+      try (var statement = connection.prepareStatement(statements.select)) {
+         statement.setString(1, name);
+         statement.setLong(2, version);
+         statement.setString(3, name);
+         statement.setLong(4, version);
+
+         try (var result = statement.executeQuery()) {
+            Version restored = null;
+
+            while (result.next()) {
+               var v = result.getLong(1);
+               var type = result.getString(2);
+               var value = om.readTree(result.getString(4));
+
+               if (result.getBoolean(3)) {
+                  restored = Version.apply(v, v, type, value);
+               } else {
+                  restored = Version.apply(v, restored.getSnapshot(), type, JsonPatch.apply(value, restored.getValue()));
+               }
+            }
+
+            if (restored != null && version == Long.MAX_VALUE) {
+               latest.merge(name, restored, Version::newest);
+            }
+
+            return Optional.ofNullable(restored);
+         }
+      }
+   }
+
+   /**
+    * Deletes the versions before the oldest retained snapshot.
+    */
+   private void compact(Connection connection, String name) throws Exception {
+      try (var statement = connection.prepareStatement(statements.delete)) {
+         statement.setString(1, name);
+         statement.setString(2, name);
+         statement.setInt(3, config.getRetainedSnapshots() - 1);
+
+         var deleted = statement.executeUpdate();
+
+         if (deleted > 0) {
+            LOG.debug("Compacted context history of job `{}`, deleted {} versions", name, deleted);
+         }
+      }
+   }
+
+   private <C> C decode(Version version) {
+      var msg = String.format("Unable to de-serialize context of job into instance of `%s`", version.getType());
+
+      @SuppressWarnings("unchecked")
+      var clazz = (Class<C>) Operators.suppressExceptions(() -> codec.getTypes().getType(version.getType()), msg);
+
+      return Operators.suppressExceptions(() -> codec.decodeValue(om.writeValueAsBytes(version.getValue()), clazz), msg);
+   }
+
+   @Value
+   @AllArgsConstructor(staticName = "apply")
+   private static class Version {
+
+      long version;
+
+      /**
+       * The version of the snapshot the version is based on.
+       */
+      long snapshot;
+
+      String type;
+
+      JsonNode value;
+
+      public static Version newest(Version a, Version b) {
+         return a.getVersion() >= b.getVersion() ? a : b;
+      }
+
+   }
+
+   @AllArgsConstructor(access = AccessLevel.PRIVATE)
+   private static class Statements {
+
+      private final String insert;
+
+      private final String select;
+
+      private final String versions;
+
+      private final String delete;
+
+      public static Statements apply(String schema, String table, String dialect) {
+         var params = Maps.<String, Object>newHashMap();
+         params.put("schema", schema);
+         params.put("table", table);
+
+         return new Statements(
+            render("insert-context", dialect, params),
+            render("select-context", dialect, params),
+            render("select-versions", dialect, params),
+            render("delete-versions", dialect, params));
+      }
+
+      private static String render(String statement, String dialect, Map<String, Object> params) {
+         return Templates.renderTemplateFromResources(
+            String.format("db/sql/context-history/%s/%s.sql", dialect, statement), params);
+      }
+
+   }
+
+}
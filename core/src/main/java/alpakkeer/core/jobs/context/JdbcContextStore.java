@@ -0,0 +1,174 @@
+package alpakkeer.core.jobs.context;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import alpakkeer.config.PostgresContextStoreConfiguration;
+import alpakkeer.core.stream.codec.JsonRecordCodec;
+import alpakkeer.core.stream.codec.RecordCodec;
+import alpakkeer.core.stream.codec.RecordCodecs;
+import alpakkeer.core.util.Operators;
+import alpakkeer.core.util.Templates;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Maps;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * A context store which stores contexts in the `jsonb` column of a Postgres table (see `V00001__initial-setup.sql`).
+ *
+ * Contexts are written and read with prepared statements from a connection pool, values are bound as parameters. The
+ * statements are rendered once when the store is created. Databases with a JDBC URL starting with `jdbc:h2:` are
+ * accessed with H2 statements, e.g. for tests.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class JdbcContextStore implements ContextStore {
+
+   private static final Logger LOG = LoggerFactory.getLogger(JdbcContextStore.class);
+
+   private final DataSource dataSource;
+
+   private final Executor executor;
+
+   private final RecordCodec codec;
+
+   private final String upsertStatement;
+
+   private final String selectStatement;
+
+   /**
+    * Creates a new context store.
+    *
+    * @param dataSource The data source, usually a connection pool
+    * @param executor   The executor for blocking JDBC calls
+    * @param codec      The codec to serialize contexts; must not be binary
+    * @param schema     The schema of the context table
+    * @param table      The name of the context table
+    * @param dialect    The dialect of the statements, `postgres` or `h2`
+    * @return The new context store
+    */
+   public static JdbcContextStore apply(
+      DataSource dataSource, Executor executor, RecordCodec codec, String schema, String table, String dialect) {
+
+      var params = Maps.<String, Object>newHashMap();
+      params.put("schema", schema);
+      params.put("table", table);
+
+      var upsert = Templates.renderTemplateFromResources(
+         String.format("db/sql/context-store/jdbc/%s/upsert-context.sql", dialect), params);
+
+      var select = Templates.renderTemplateFromResources(
+         String.format("db/sql/context-store/jdbc/%s/select-context.sql", dialect), params);
+
+      return new JdbcContextStore(dataSource, executor, codec, upsert, select);
+   }
+
+   public static JdbcContextStore apply(
+      PostgresContextStoreConfiguration config, ActorSystem system, ObjectMapper om, RecordCodec codec) {
+
+      // values are stored in a `jsonb` column, thus binary codecs cannot be used
+      var json = codec.isBinary() ? JsonRecordCodec.apply(om, codec.getTypes()) : codec;
+
+      return apply(
+         createDataSource(config, system), system.dispatchers().lookup(config.getDispatcher()), json,
+         config.getSchema(), config.getTable(), getDialect(config));
+   }
+
+   public static JdbcContextStore apply(PostgresContextStoreConfiguration config, ActorSystem system, ObjectMapper om) {
+      return apply(config, system, om, RecordCodecs.json(om));
+   }
+
+   @Override
+   public <C> CompletionStage<Done> saveContext(String name, C context) {
+      return CompletableFuture.supplyAsync(() -> Operators.suppressExceptions(() -> {
+         try (var connection = dataSource.getConnection(); var statement = connection.prepareStatement(upsertStatement)) {
+            statement.setString(1, name);
+            statement.setObject(2, LocalDateTime.now());
+            statement.setString(3, context.getClass().getName());
+            statement.setString(4, new String(codec.encodeValue(context), StandardCharsets.UTF_8));
+            statement.executeUpdate();
+         }
+
+         return Done.getInstance();
+      }), executor).whenComplete((done, ex) -> {
+         if (ex != null) {
+            LOG.error(String.format("An exception occurred while updating context for job `%s`", name), ex);
+         }
+      });
+   }
+
+   @Override
+   public <C> CompletionStage<Optional<C>> readLatestContext(String name) {
+      return CompletableFuture.supplyAsync(() -> {
+         try (var connection = dataSource.getConnection(); var statement = connection.prepareStatement(selectStatement)) {
+            statement.setString(1, name);
+
+            try (var result = statement.executeQuery()) {
+               if (result.next()) {
+                  return Optional.of(this.<C>fromRow(result.getString(1), result.getString(2)));
+               } else {
+                  return Optional.<C>empty();
+               }
+            }
+         } catch (Exception e) {
+            var msg = String.format(
+               "An exception occurred reading context for job `%s` - Will fallback to initial context.", name);
+            LOG.warn(msg, e);
+            return Optional.<C>empty();
+         }
+      }, executor);
+   }
+
+   /**
+    * Creates the connection pool for the configured database; the pool is closed when the actor system terminates.
+    */
+   static HikariDataSource createDataSource(PostgresContextStoreConfiguration config, ActorSystem system) {
+      var properties = config.getDatabase().getConfig("db.properties");
+
+      var hikari = new HikariConfig();
+      hikari.setPoolName("alpakkeer-context-store");
+      hikari.setJdbcUrl(properties.getString("url"));
+      hikari.setUsername(properties.getString("user"));
+      hikari.setPassword(properties.getString("password"));
+      hikari.setMaximumPoolSize(config.getPoolSize());
+
+      var dataSource = new HikariDataSource(hikari);
+      system.registerOnTermination(dataSource::close);
+      return dataSource;
+   }
+
+   /**
+    * @return The dialect of the statements for the configured database, `postgres` or `h2`
+    */
+   static String getDialect(PostgresContextStoreConfiguration config) {
+      var url = config.getDatabase().getString("db.properties.url");
+      return url.startsWith("jdbc:h2:") ? "h2" : "postgres";
+   }
+
+   @SuppressWarnings("unchecked")
+   private <C> C fromRow(String className, String value) {
+      try {
+         var clazz = (Class<C>) codec.getTypes().getType(className);
+         return codec.decodeValue(value.getBytes(StandardCharsets.UTF_8), clazz);
+      } catch (Exception e) {
+         var msg = String.format(
+            "Unable to de-serialize the following JSON into instance of `%s`:\n%s",
+            className,
+            value.replaceAll("(?m)^", "   |   "));
+
+         throw new RuntimeException(msg, e);
+      }
+   }
+
+}
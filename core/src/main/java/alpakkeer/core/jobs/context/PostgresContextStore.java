@@ -10,6 +10,9 @@ import akka.stream.javadsl.Keep;
 import akka.stream.javadsl.Sink;
 import akka.stream.javadsl.Source;
 import alpakkeer.config.PostgresContextStoreConfiguration;
+import alpakkeer.core.stream.codec.JsonRecordCodec;
+import alpakkeer.core.stream.codec.RecordCodec;
+import alpakkeer.core.stream.codec.RecordCodecs;
 import alpakkeer.core.util.Operators;
 import alpakkeer.core.util.Templates;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -19,6 +22,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import scala.PartialFunction;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
@@ -35,17 +39,25 @@ public final class PostgresContextStore implements ContextStore {
 
    private final ActorSystem system;
 
-   private final ObjectMapper om;
+   private final RecordCodec codec;
 
    private final SlickSession session;
 
+   public static PostgresContextStore apply(
+      PostgresContextStoreConfiguration config, ActorSystem system, ObjectMapper om, RecordCodec codec) {
+
+      // values are stored in a `jsonb` column, thus binary codecs cannot be used
+      var json = codec.isBinary() ? JsonRecordCodec.apply(om, codec.getTypes()) : codec;
+      return apply(config, system, json, SlickSession.forConfig(config.getDatabase()));
+   }
+
    public static PostgresContextStore apply(PostgresContextStoreConfiguration config, ActorSystem system, ObjectMapper om) {
-      return apply(config, system, om, SlickSession.forConfig( config.getDatabase()));
+      return apply(config, system, om, RecordCodecs.json(om));
    }
 
    @Override
    public <C> CompletionStage<Done> saveContext(String name, C context) {
-      var value = Operators.suppressExceptions(() -> om.writeValueAsString(context));
+      var value = new String(codec.encodeValue(context), StandardCharsets.UTF_8);
       var className = context.getClass().getName();
       var params = Maps.<String, Object>newHashMap();
 
@@ -98,7 +110,6 @@ public final class PostgresContextStore implements ContextStore {
          .run(system);
    }
 
-   @SuppressWarnings("unchecked")
    private <C> C fromSlickRow(SlickRow row) {
       var className = row.nextString();
       var value = row.nextString();
@@ -108,9 +119,10 @@ public final class PostgresContextStore implements ContextStore {
          className,
          value.replaceAll("(?m)^", "   |   "));
 
-      var clazz = Operators.suppressExceptions(() -> Class.forName(className), msg);
+      @SuppressWarnings("unchecked")
+      var clazz = (Class<C>) Operators.suppressExceptions(() -> codec.getTypes().getType(className), msg);
 
-      return (C) Operators.suppressExceptions(() -> om.readValue(value, clazz));
+      return Operators.suppressExceptions(() -> codec.decodeValue(value.getBytes(StandardCharsets.UTF_8), clazz), msg);
    }
 
 }
@@ -1,8 +1,8 @@
 package alpakkeer.core.jobs.monitor;
 
 import akka.actor.ActorSystem;
+import akka.japi.Pair;
 import alpakkeer.core.monitoring.*;
-import alpakkeer.core.monitoring.values.DataPoint;
 import alpakkeer.core.monitoring.values.Marker;
 import alpakkeer.core.monitoring.values.TimeSeries;
 import alpakkeer.core.stream.CheckpointMonitor;
@@ -14,9 +14,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.EvictingQueue;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Value;
@@ -28,6 +26,10 @@ import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -38,10 +40,17 @@ public final class InMemoryHistoryJobMonitor<P, C> implements JobMonitor<P, C>,
 
    ObjectMapper om;
 
-   ActorSystem system;
+   /**
+    * The maximum number of data points of each time series; by default the statistics of all executions in the history.
+    */
+   int seriesLimit;
 
    ConcurrentHashMap<String, Running<P>> runningExecutions;
 
+   ConcurrentSkipListMap<String, Series> series;
+
+   List<Consumer<MetricStore<TimeSeries>>> listeners;
+
    EvictingQueue<Executed<P, C>> history;
 
    List<MetricStore<List<Marker>>> markers;
@@ -102,7 +111,9 @@ public final class InMemoryHistoryJobMonitor<P, C> implements JobMonitor<P, C>,
             .collect(Collectors.toList()));
 
       return apply(
-         statsLimit, om, system, running, history, List.of(runsSuccessful, runsFailed, runsStopped));
+         statsLimit, om, (int) Math.min((long) limit * statsLimit, Integer.MAX_VALUE), running,
+         new ConcurrentSkipListMap<>(), new CopyOnWriteArrayList<>(), history,
+         List.of(runsSuccessful, runsFailed, runsStopped));
    }
 
    public static <P, C> InMemoryHistoryJobMonitor<P, C> apply(int limit, ObjectMapper om, ActorSystem system) {
@@ -113,88 +124,6 @@ public final class InMemoryHistoryJobMonitor<P, C> implements JobMonitor<P, C>,
       return apply(100, om, system);
    }
 
-   private static <P, C> Set<String> getCheckpoints(
-      EvictingQueue<Executed<P, C>> history,
-      ConcurrentHashMap<String, Running<P>> runningExecutions) {
-
-      var historic = history
-         .stream()
-         .flatMap(e -> e.getCheckpoints().keySet().stream())
-         .collect(Collectors.toSet());
-
-      var current = runningExecutions
-         .values()
-         .stream()
-         .flatMap(r -> r.getCheckpoints().keySet().stream())
-         .collect(Collectors.toSet());
-
-      var result = Sets.<String>newHashSet();
-      result.addAll(historic);
-      result.addAll(current);
-
-      return result;
-   }
-
-   private static <P, C> Set<String> getStages(
-      EvictingQueue<Executed<P, C>> history,
-      ConcurrentHashMap<String, Running<P>> runningExecutions) {
-
-      var historic = history
-         .stream()
-         .flatMap(e -> e.getStages().keySet().stream())
-         .collect(Collectors.toSet());
-
-      var current = runningExecutions
-         .values()
-         .stream()
-         .flatMap(r -> r.getStages().keySet().stream())
-         .collect(Collectors.toSet());
-
-      var result = Sets.<String>newHashSet();
-      result.addAll(historic);
-      result.addAll(current);
-
-      return result;
-   }
-
-   private static <P, C> Stream<CheckpointMonitor.Stats> getCheckpointMonitorEvents(
-      String checkpoint,
-      EvictingQueue<Executed<P, C>> history,
-      ConcurrentHashMap<String, Running<P>> runningExecutions) {
-
-      var historic = history
-         .stream()
-         .flatMap(executed -> executed.getCheckpoints().getOrDefault(checkpoint, EvictingQueue.create(0)).stream());
-
-      var running = runningExecutions
-         .values()
-         .stream()
-         .flatMap(r -> r.getCheckpoints().getOrDefault(checkpoint, EvictingQueue.create(0)).stream());
-
-      return Stream
-         .concat(historic, running)
-         .sorted(Comparator.<CheckpointMonitor.Stats, Long>comparing(s -> s.moment().toEpochMilli()).reversed());
-   }
-
-   private static <P, C> Stream<LatencyMonitor.Stats> getLatencyMonitorEvents(
-      String stage,
-      EvictingQueue<Executed<P, C>> history,
-      ConcurrentHashMap<String, Running<P>> runningExecutions) {
-
-      var historic = history
-         .stream()
-         .flatMap(executed -> executed.getStages().getOrDefault(stage, EvictingQueue.create(0)).stream());
-
-      var running = runningExecutions
-         .values()
-         .stream()
-         .flatMap(r -> r.getStages().getOrDefault(stage, EvictingQueue.create(0)).stream());
-
-      return Stream
-         .concat(historic, running)
-         .sorted(Comparator.<LatencyMonitor.Stats, Long>comparing(s -> s.moment().toEpochMilli()).reversed());
-   }
-
    @Value
    @AllArgsConstructor(staticName = "apply")
    private static class Running<P> {
@@ -240,11 +169,23 @@ public final class InMemoryHistoryJobMonitor<P, C> implements JobMonitor<P, C>,
       @JsonProperty
       String exception;
 
-      @JsonIgnore
-      Map<String, EvictingQueue<CheckpointMonitor.Stats>> checkpoints;
+   }
 
-      @JsonIgnore
-      Map<String, EvictingQueue<LatencyMonitor.Stats>> stages;
+   /**
+    * A time series of the monitor's metrics; it contains the statistics of all executions of the job.
+    */
+   @Value
+   @AllArgsConstructor(access = AccessLevel.PRIVATE)
+   private static class Series {
+
+      TimeSeriesBuffer buffer;
+
+      MetricStore<TimeSeries> metric;
+
+      public static Series apply(String name, String description, Downsampling downsampling, int limit) {
+         var buffer = TimeSeriesBuffer.apply(limit);
+         return new Series(buffer, Metrics.createTimeSeriesMetric(name, description, buffer, downsampling));
+      }
 
    }
 
@@ -280,84 +221,17 @@ public final class InMemoryHistoryJobMonitor<P, C> implements JobMonitor<P, C>,
 
    @Override
    public List<MetricStore<TimeSeries>> getTimeSeriesMetrics() {
-      var checkpoints = getCheckpoints(history, runningExecutions);
-      var stages = getStages(history, runningExecutions);
-
-      var checkpointCounts = checkpoints
-         .stream()
-         .map(cp -> Metrics.createTimeSeriesMetricFromDataPoints(
-            Strings.convert(cp).toSnakeCase() + "__count",
-            "number of elements processed within interval",
-            () -> getCheckpointMonitorEvents(cp, history, runningExecutions)
-               .map(s -> DataPoint.apply(s.moment(), s.count()))
-               .collect(Collectors.toList()),
-            system))
-         .collect(Collectors.toList());
-
-      var checkpointThroughput = checkpoints
-         .stream()
-         .map(cp -> Metrics.createTimeSeriesMetricFromDataPoints(
-            Strings.convert(cp).toSnakeCase() + "__throughput_elements_per_second",
-            "number of elements processed within interval",
-            () -> getCheckpointMonitorEvents(cp, history, runningExecutions)
-               .map(s -> DataPoint.apply(s.moment(), s.throughputElementsPerSecond()))
-               .collect(Collectors.toList()),
-            system))
-         .collect(Collectors.toList());
-
-      var checkpointPullPushLatency = checkpoints
-         .stream()
-         .map(cp -> Metrics.createTimeSeriesMetricFromDataPoints(
-            Strings.convert(cp).toSnakeCase() + "__pull_push_latency_ns",
-            "pull-push latency within interval",
-            () -> getCheckpointMonitorEvents(cp, history, runningExecutions)
-               .map(s -> DataPoint.apply(s.moment(), s.pullPushLatencyNanos()))
-               .collect(Collectors.toList()),
-            system))
-         .collect(Collectors.toList());
-
-      var checkpointPushPullLatency = checkpoints
-         .stream()
-         .map(cp -> Metrics.createTimeSeriesMetricFromDataPoints(
-            Strings.convert(cp).toSnakeCase() + "__push_pull_latency_ns",
-            "push-pull latency within interval",
-            () -> getCheckpointMonitorEvents(cp, history, runningExecutions)
-               .map(s -> DataPoint.apply(s.moment(), s.pushPullLatencyNanos()))
-               .collect(Collectors.toList()),
-            system))
-         .collect(Collectors.toList());
-
-      var stageLatency = stages
-         .stream()
-         .map(st -> Metrics.createTimeSeriesMetricFromDataPoints(
-            Strings.convert(st).toSnakeCase() + "__latency_ms",
-            "The average latency in ms of the stage for the measured interval.",
-            () -> getLatencyMonitorEvents(st, history, runningExecutions)
-               .map(s -> DataPoint.apply(s.moment(), s.avgLatency()))
-               .collect(Collectors.toList()),
-            system))
-         .collect(Collectors.toList());
-
-      var stageCount = stages
+      return series
+         .values()
          .stream()
-         .map(st -> Metrics.createTimeSeriesMetricFromDataPoints(
-            Strings.convert(st).toSnakeCase() + "__count",
-            "The number of processed elements within the interval.",
-            () -> getLatencyMonitorEvents(st, history, runningExecutions)
-               .map(s -> DataPoint.apply(s.moment(), s.avgLatency()))
-               .collect(Collectors.toList()),
-            system))
+         .map(Series::getMetric)
          .collect(Collectors.toList());
+   }
 
-      var stats = Lists.<MetricStore<TimeSeries>>newArrayList();
-      stats.addAll(checkpointCounts);
-      stats.addAll(checkpointThroughput);
-      stats.addAll(checkpointPullPushLatency);
-      stats.addAll(checkpointPushPullLatency);
-      stats.addAll(stageLatency);
-      stats.addAll(stageCount);
-
-      return stats;
+   @Override
+   public boolean addTimeSeriesListener(Consumer<MetricStore<TimeSeries>> listener) {
+      listeners.add(listener);
+      return true;
    }
 
    @Override
@@ -396,11 +270,15 @@ public final class InMemoryHistoryJobMonitor<P, C> implements JobMonitor<P, C>,
          if (running.getCheckpoints().containsKey(name)) {
             running.getCheckpoints().get(name).add(statistics);
          } else {
+            var initial = new CheckpointMonitor.Stats(running.getStarted(), 0, 0, 0, 0);
             var queue = EvictingQueue.<CheckpointMonitor.Stats>create(statsLimit);
-            queue.add(new CheckpointMonitor.Stats(running.getStarted(), 0, 0, 0, 0));
+            queue.add(initial);
             queue.add(statistics);
             running.getCheckpoints().put(name, queue);
+            record(name, initial);
          }
+
+         record(name, statistics);
       }
    }
 
@@ -412,11 +290,15 @@ public final class InMemoryHistoryJobMonitor<P, C> implements JobMonitor<P, C>,
          if (running.getStages().containsKey(name)) {
             running.getStages().get(name).add(statistics);
          } else {
+            var initial = new LatencyMonitor.Stats(running.getStarted(), 0, 0, 0);
             var queue = EvictingQueue.<LatencyMonitor.Stats>create(statsLimit);
-            queue.add(new LatencyMonitor.Stats(running.getStarted(), 0, 0, 0));
+            queue.add(initial);
             queue.add(statistics);
             running.getStages().put(name, queue);
+            record(name, initial);
          }
+
+         record(name, statistics);
       }
    }
 
@@ -456,7 +338,7 @@ public final class InMemoryHistoryJobMonitor<P, C> implements JobMonitor<P, C>,
 
          history.add(Executed.apply(
             executionId, exec.getProperties(), exec.getStarted(),
-            Instant.now(), seconds, completed, result, error, exec.checkpoints, exec.stages));
+            Instant.now(), seconds, completed, result, error));
       }
    }
 
@@ -466,11 +348,82 @@ public final class InMemoryHistoryJobMonitor<P, C> implements JobMonitor<P, C>,
          var checkpoints = exec.checkpoints.keySet();
          var stages = exec.stages.keySet();
 
-         checkpoints.forEach(cp -> exec.getCheckpoints().get(cp).add(new CheckpointMonitor.Stats(
-            Instant.now(), 0, 0, 0, 0)));
+         checkpoints.forEach(cp -> {
+            var stats = new CheckpointMonitor.Stats(Instant.now(), 0, 0, 0, 0);
+            exec.getCheckpoints().get(cp).add(stats);
+            record(cp, stats);
+         });
+
+         stages.forEach(st -> {
+            var stats = new LatencyMonitor.Stats(Instant.now(), 0, 0, 0);
+            exec.getStages().get(st).add(stats);
+            record(st, stats);
+         });
+      }
+   }
+
+   private TimeSeriesBuffer getSeries(String name, String description) {
+      return getSeries(name, description, Downsampling.LTTB);
+   }
+
+   private TimeSeriesBuffer getSeries(String name, String description, Downsampling downsampling) {
+      var existing = series.get(name);
+
+      if (existing != null) {
+         return existing.getBuffer();
+      }
+
+      var created = Series.apply(name, description, downsampling, seriesLimit);
+      var previous = series.putIfAbsent(name, created);
+
+      if (previous != null) {
+         return previous.getBuffer();
+      } else {
+         listeners.forEach(listener -> listener.accept(created.getMetric()));
+         return created.getBuffer();
+      }
+   }
+
+   private void record(String checkpoint, CheckpointMonitor.Stats stats) {
+      var name = Strings.convert(checkpoint).toSnakeCase();
+      var moment = stats.moment();
+
+      getSeries(name + "__count", "number of elements processed within interval", Downsampling.SUM)
+         .append(moment, stats.count());
+      getSeries(name + "__throughput_elements_per_second", "number of elements processed within interval")
+         .append(moment, stats.throughputElementsPerSecond());
+      getSeries(name + "__pull_push_latency_ns", "pull-push latency within interval")
+         .append(moment, stats.pullPushLatencyNanos());
+      getSeries(name + "__push_pull_latency_ns", "push-pull latency within interval")
+         .append(moment, stats.pushPullLatencyNanos());
+   }
+
+   private void record(String stage, LatencyMonitor.Stats stats) {
+      var name = Strings.convert(stage).toSnakeCase();
+      var moment = stats.moment();
+
+      getSeries(name + "__latency_ms", "The average latency in ms of the stage for the measured interval.")
+         .append(moment, stats.avgLatency());
+      getSeries(name + "__count", "The number of processed elements within the interval.", Downsampling.SUM)
+         .append(moment, stats.count());
+
+      if (!stats.percentiles().isEmpty()) {
+         Stream.<Pair<String, Function<LatencyMonitor.Percentiles, Long>>>of(
+            Pair.create("p50", LatencyMonitor.Percentiles::p50),
+            Pair.create("p90", LatencyMonitor.Percentiles::p90),
+            Pair.create("p99", LatencyMonitor.Percentiles::p99),
+            Pair.create("p999", LatencyMonitor.Percentiles::p999),
+            Pair.create("max", LatencyMonitor.Percentiles::max))
+            .forEach(percentile -> getSeries(
+               name + "__latency_" + percentile.first() + "_ms",
+               String.format("The %s latency in ms of the stage for the measured interval.", percentile.first()))
+               .append(moment, percentile.second().apply(stats.percentiles()) / 1e6));
+      }
 
-         stages.forEach(cp -> exec.getStages().get(cp).add(new LatencyMonitor.Stats(
-            Instant.now(), 0, 0, 0)));
+      if (stats.dropped() > 0 || series.containsKey(name + "__dropped")) {
+         getSeries(
+            name + "__dropped", "The number of elements dropped by the stage within the interval.", Downsampling.SUM)
+            .append(moment, stats.dropped());
       }
    }
 
@@ -3,27 +3,46 @@ package alpakkeer.core.jobs.monitor;
 import alpakkeer.core.stream.CheckpointMonitor;
 import alpakkeer.core.stream.LatencyMonitor;
 import alpakkeer.core.util.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
+import io.prometheus.client.Collector;
 import io.prometheus.client.CollectorRegistry;
 import io.prometheus.client.Counter;
 import io.prometheus.client.Gauge;
 import io.prometheus.client.Summary;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
-
-@AllArgsConstructor(staticName = "apply")
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Exposes the statistics of a job's executions as Prometheus metrics. The metric families are shared by all jobs of
+ * a collector registry; the job and the checkpoint (or stage) are labels of the metrics, e.g.
+ * `alpakkeer__checkpoint_count_sum{job="my_job",checkpoint="my_checkpoint"}`.
+ *
+ * Counters keep their values across executions, the gauges of the last measurement interval are reset to zero when an
+ * execution ends. Latency percentiles are exposed as summary, its quantiles cover the last measurement interval.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 public final class PrometheusJobMonitor<P, C> implements JobMonitor<P, C> {
 
    private static Logger LOG = LoggerFactory.getLogger(PrometheusJobMonitor.class);
 
+   private static final ConcurrentMap<CollectorRegistry, Families> FAMILIES = new MapMaker().weakKeys().makeMap();
+
    @Value
    @AllArgsConstructor(staticName = "apply")
    private static class RunningJob {
@@ -34,57 +53,30 @@ public final class PrometheusJobMonitor<P, C> implements JobMonitor<P, C> {
 
    private final String name;
 
-   private final Gauge queuedExecutions;
-
-   private final Gauge jobDuration;
+   private final Families families;
 
-   private final Summary jobDurations;
-
-   private final Map<String, RunningJob> runningExecutions;
+   private final Gauge.Child queuedExecutions;
 
-   private final Map<String, Gauge> pushPullLatencies;
+   private final Gauge.Child jobDuration;
 
-   private final Map<String, Gauge> pullPushLatencies;
+   private final Summary.Child jobDurations;
 
-   private final Map<String, Counter> counts;
-
-   private final Map<String, Gauge> countsInterval;
-
-   private final Map<String, Gauge> throughputs;
+   private final Map<String, RunningJob> runningExecutions;
 
-   private final Map<String, Gauge> latencies;
+   private final ConcurrentMap<String, CheckpointMetrics> checkpoints;
 
-   private final CollectorRegistry registry;
+   private final ConcurrentMap<String, StageMetrics> stages;
 
    public static <P, C> PrometheusJobMonitor<P, C> apply(String name, CollectorRegistry registry) {
       var nameSC = Strings.convert(name).toSnakeCase();
-
-      Gauge queuedJobs = Gauge
-         .build()
-         .name(String.format("%s__queued_executions", nameSC))
-         .help(String.format("Current number of queued executions of job `%s`", nameSC))
-         .create()
-         .register(registry);
-
-      Gauge jobDuration = Gauge
-         .build()
-         .name(String.format("%s__job_duration_seconds", nameSC))
-         .help(String.format("The duration of the job execution of job `%s` in seconds", nameSC))
-         .create()
-         .register(registry);
-
-      Summary jobDurations = Summary
-         .build()
-         .name(String.format("%s__job_durations_seconds", nameSC))
-         .help(String.format("A summary of recorded durations of job `%s` in seconds", nameSC))
-         .create()
-         .register(registry);
-
-      return apply(
-         nameSC, queuedJobs, jobDuration, jobDurations, Maps.newConcurrentMap(),
-         Maps.newConcurrentMap(), Maps.newConcurrentMap(), Maps.newConcurrentMap(),
-         Maps.newConcurrentMap(), Maps.newConcurrentMap(), Maps.newConcurrentMap(),
-         registry);
+      var families = FAMILIES.computeIfAbsent(registry, Families::apply);
+
+      return new PrometheusJobMonitor<>(
+         nameSC, families,
+         families.queuedExecutions.labels(nameSC),
+         families.jobDuration.labels(nameSC),
+         families.jobDurations.labels(nameSC),
+         Maps.newConcurrentMap(), Maps.newConcurrentMap(), Maps.newConcurrentMap());
    }
 
    @Override
@@ -122,55 +114,14 @@ public final class PrometheusJobMonitor<P, C> implements JobMonitor<P, C> {
 
    @Override
    public void onStats(String executionId, String name, CheckpointMonitor.Stats statistics) {
-      var nameSC = Strings.convert(name).toSnakeCase();
-
       try {
-         if (!counts.containsKey(nameSC)) {
-            counts.put(nameSC, Counter
-               .build(
-                  String.format("%s__%s__count_sum", this.name, nameSC),
-                  "Number of documents processed by this checkpoint")
-               .register(registry));
-         }
-
-         if (!countsInterval.containsKey(nameSC)) {
-            countsInterval.put(nameSC, Gauge
-               .build(
-                  String.format("%s__%s__count_current", this.name, nameSC),
-                  "Number of documents processed by this checkpoint within measurement interval")
-               .register(registry));
-         }
+         var metrics = checkpoints.computeIfAbsent(name, n -> CheckpointMetrics.apply(families, this.name, n));
 
-         if (!throughputs.containsKey(nameSC)) {
-            throughputs.put(nameSC, Gauge
-               .build(
-                  String.format("%s__%s__throughout_per_second", this.name, nameSC),
-                  "Throughput processed by this checkpoint within measurement interval")
-               .register(registry));
-         }
-
-         if (!pullPushLatencies.containsKey(nameSC)) {
-            pullPushLatencies.put(nameSC, Gauge
-               .build(
-                  String.format("%s__%s__pull_push_latency_in_ns", this.name, nameSC),
-                  "Average pull-push latency within last interval")
-               .register(registry));
-         }
-
-         if (!pushPullLatencies.containsKey(nameSC)) {
-            pushPullLatencies.put(nameSC, Gauge
-               .build(
-                  String.format("%s__%s__push_pull_latency_in_ns", this.name, nameSC),
-                  "Average pull-push latency within last interval")
-               .register(registry));
-         }
-
-
-         counts.get(nameSC).inc(statistics.count());
-         countsInterval.get(nameSC).set(statistics.count());
-         throughputs.get(nameSC).set(statistics.throughputElementsPerSecond());
-         pullPushLatencies.get(nameSC).set(statistics.pullPushLatencyNanos());
-         pushPullLatencies.get(nameSC).set(statistics.pushPullLatencyNanos());
+         metrics.count.inc(statistics.count());
+         metrics.countCurrent.set(statistics.count());
+         metrics.throughput.set(statistics.throughputElementsPerSecond());
+         metrics.pullPushLatency.set(statistics.pullPushLatencyNanos());
+         metrics.pushPullLatency.set(statistics.pushPullLatencyNanos());
       } catch (Exception ex) {
          LOG.warn("An exception occurred while updating Prometheus metrics", ex);
       }
@@ -178,36 +129,15 @@ public final class PrometheusJobMonitor<P, C> implements JobMonitor<P, C> {
 
    @Override
    public void onStats(String executionId, String name, LatencyMonitor.Stats statistics) {
-      var nameSC = Strings.convert(name).toSnakeCase();
-
       try {
-         if (!counts.containsKey(nameSC)) {
-            counts.put(nameSC, Counter
-               .build(
-                  String.format("%s__%s__count_sum", this.name, nameSC),
-                  "Number of documents processed by this checkpoint")
-               .register(registry));
-         }
+         var metrics = stages.computeIfAbsent(name, n -> StageMetrics.apply(families, this.name, n));
 
-         if (!countsInterval.containsKey(nameSC)) {
-            countsInterval.put(nameSC, Gauge
-               .build(
-                  String.format("%s__%s__count_current", this.name, nameSC),
-                  "Number of documents processed by this checkpoint within measurement interval")
-               .register(registry));
-         }
-
-         if (!latencies.containsKey(nameSC)) {
-            latencies.put(nameSC, Gauge
-               .build(
-                  String.format("%s__%s__latency_in_ms", this.name, nameSC),
-                  "Average latency of stage within last interval in milliseconds.")
-               .register(registry));
-         }
+         metrics.count.inc(statistics.count());
+         metrics.countCurrent.set(statistics.count());
+         metrics.latency.set(statistics.avgLatency());
+         metrics.dropped.inc(statistics.dropped());
 
-         counts.get(nameSC).inc(statistics.count());
-         countsInterval.get(nameSC).set(statistics.count());
-         latencies.get(nameSC).set(statistics.avgLatency());
+         metrics.observePercentiles(statistics);
       } catch (Exception ex) {
          LOG.warn("An exception occurred while updating Prometheus metrics", ex);
       }
@@ -240,12 +170,286 @@ public final class PrometheusJobMonitor<P, C> implements JobMonitor<P, C> {
    }
 
    private void finish() {
-      counts.values().forEach(Counter::clear);
-      countsInterval.values().forEach(Gauge::clear);
-      pushPullLatencies.values().forEach(Gauge::clear);
-      pullPushLatencies.values().forEach(Gauge::clear);
-      throughputs.values().forEach(Gauge::clear);
-      latencies.values().forEach(Gauge::clear);
+      checkpoints.values().forEach(CheckpointMetrics::reset);
+      stages.values().forEach(StageMetrics::reset);
+   }
+
+   /**
+    * The metric families of all jobs of a collector registry.
+    */
+   @AllArgsConstructor(access = AccessLevel.PRIVATE)
+   private static class Families {
+
+      private static final String[] JOB = { "job" };
+
+      private static final String[] CHECKPOINT = { "job", "checkpoint" };
+
+      private final Gauge queuedExecutions;
+
+      private final Gauge jobDuration;
+
+      private final Summary jobDurations;
+
+      private final Counter count;
+
+      private final Gauge countCurrent;
+
+      private final Gauge throughput;
+
+      private final Gauge pullPushLatency;
+
+      private final Gauge pushPullLatency;
+
+      private final Gauge latency;
+
+      private final LatencySummaries latencyPercentiles;
+
+      private final Counter dropped;
+
+      public static Families apply(CollectorRegistry registry) {
+         return new Families(
+            Gauge
+               .build("alpakkeer__job_queued_executions", "Current number of queued executions of the job")
+               .labelNames(JOB)
+               .register(registry),
+            Gauge
+               .build("alpakkeer__job_duration_seconds", "The duration of the last execution of the job in seconds")
+               .labelNames(JOB)
+               .register(registry),
+            Summary
+               .build("alpakkeer__job_durations_seconds", "A summary of recorded durations of the job in seconds")
+               .labelNames(JOB)
+               .register(registry),
+            Counter
+               .build("alpakkeer__checkpoint_count_sum", "Number of documents processed by the checkpoint")
+               .labelNames(CHECKPOINT)
+               .register(registry),
+            Gauge
+               .build(
+                  "alpakkeer__checkpoint_count_current",
+                  "Number of documents processed by the checkpoint within measurement interval")
+               .labelNames(CHECKPOINT)
+               .register(registry),
+            Gauge
+               .build(
+                  "alpakkeer__checkpoint_throughput_per_second",
+                  "Throughput processed by the checkpoint within measurement interval")
+               .labelNames(CHECKPOINT)
+               .register(registry),
+            Gauge
+               .build(
+                  "alpakkeer__checkpoint_pull_push_latency_in_ns",
+                  "Average pull-push latency within last interval")
+               .labelNames(CHECKPOINT)
+               .register(registry),
+            Gauge
+               .build(
+                  "alpakkeer__checkpoint_push_pull_latency_in_ns",
+                  "Average push-pull latency within last interval")
+               .labelNames(CHECKPOINT)
+               .register(registry),
+            Gauge
+               .build(
+                  "alpakkeer__checkpoint_latency_in_ms",
+                  "Average latency of stage within last interval in milliseconds.")
+               .labelNames(CHECKPOINT)
+               .register(registry),
+            new LatencySummaries(
+               "alpakkeer__checkpoint_latency_seconds",
+               "Latency percentiles of stage within last interval in seconds.",
+               Maps.newConcurrentMap())
+               .register(registry),
+            Counter
+               .build(
+                  "alpakkeer__checkpoint_dropped_sum",
+                  "Number of elements which entered the stage but didn't leave it")
+               .labelNames(CHECKPOINT)
+               .register(registry));
+      }
+
+   }
+
+   @AllArgsConstructor(access = AccessLevel.PRIVATE)
+   private static class CheckpointMetrics {
+
+      private final Counter.Child count;
+
+      private final Gauge.Child countCurrent;
+
+      private final Gauge.Child throughput;
+
+      private final Gauge.Child pullPushLatency;
+
+      private final Gauge.Child pushPullLatency;
+
+      public static CheckpointMetrics apply(Families families, String job, String checkpoint) {
+         var checkpointSC = Strings.convert(checkpoint).toSnakeCase();
+
+         return new CheckpointMetrics(
+            families.count.labels(job, checkpointSC),
+            families.countCurrent.labels(job, checkpointSC),
+            families.throughput.labels(job, checkpointSC),
+            families.pullPushLatency.labels(job, checkpointSC),
+            families.pushPullLatency.labels(job, checkpointSC));
+      }
+
+      public void reset() {
+         countCurrent.set(0);
+         throughput.set(0);
+         pullPushLatency.set(0);
+         pushPullLatency.set(0);
+      }
+
+   }
+
+   @AllArgsConstructor(access = AccessLevel.PRIVATE)
+   private static class StageMetrics {
+
+      private final Families families;
+
+      private final String job;
+
+      private final String stage;
+
+      private final Counter.Child count;
+
+      private final Gauge.Child countCurrent;
+
+      private final Gauge.Child latency;
+
+      private final Counter.Child dropped;
+
+      /**
+       * Created with the first percentiles, thus stages without histograms don't expose percentiles.
+       */
+      private volatile LatencySummary percentiles;
+
+      public static StageMetrics apply(Families families, String job, String stage) {
+         var stageSC = Strings.convert(stage).toSnakeCase();
+
+         return new StageMetrics(
+            families, job, stageSC,
+            families.count.labels(job, stageSC),
+            families.countCurrent.labels(job, stageSC),
+            families.latency.labels(job, stageSC),
+            families.dropped.labels(job, stageSC),
+            null);
+      }
+
+      public void observePercentiles(LatencyMonitor.Stats statistics) {
+         if (percentiles == null && statistics.percentiles().isEmpty()) {
+            return;
+         } else if (percentiles == null) {
+            percentiles = families.latencyPercentiles.labels(job, stage);
+         }
+
+         percentiles.observe(statistics);
+      }
+
+      public void reset() {
+         countCurrent.set(0);
+         latency.set(0);
+
+         if (percentiles != null) {
+            percentiles.reset();
+         }
+      }
+
+   }
+
+   /**
+    * A summary family of latencies. In contrast to Prometheus' {@link Summary}, the quantiles are not calculated from
+    * observations but taken from the histograms of the latency monitors, thus they cover the last measurement
+    * interval; `_count` and `_sum` accumulate the counts and latencies of all intervals.
+    */
+   @AllArgsConstructor(access = AccessLevel.PRIVATE)
+   private static class LatencySummaries extends Collector implements Collector.Describable {
+
+      private static final List<String> LABELS = List.of("job", "checkpoint");
+
+      private static final List<String> QUANTILE_LABELS = List.of("job", "checkpoint", "quantile");
+
+      private static final List<String> QUANTILES = List.of("0.5", "0.9", "0.99", "0.999", "1");
+
+      private final String name;
+
+      private final String help;
+
+      private final ConcurrentMap<List<String>, LatencySummary> children;
+
+      public LatencySummary labels(String job, String checkpoint) {
+         return children.computeIfAbsent(List.of(job, checkpoint), l -> new LatencySummary());
+      }
+
+      @Override
+      public List<MetricFamilySamples> collect() {
+         var samples = children
+            .entrySet()
+            .stream()
+            .flatMap(child -> child.getValue().getSamples(name, child.getKey()).stream())
+            .collect(Collectors.toList());
+
+         return List.of(new MetricFamilySamples(name, Type.SUMMARY, help, samples));
+      }
+
+      @Override
+      public List<MetricFamilySamples> describe() {
+         return List.of(new MetricFamilySamples(name, Type.SUMMARY, help, Collections.emptyList()));
+      }
+
+   }
+
+   private static class LatencySummary {
+
+      /**
+       * The quantiles of the last interval in seconds, in the order of {@link LatencySummaries#QUANTILES}; NaN if the
+       * interval has no observations.
+       */
+      private final double[] quantiles = { Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN };
+
+      private long count;
+
+      private double sum;
+
+      public synchronized void observe(LatencyMonitor.Stats statistics) {
+         var percentiles = statistics.percentiles();
+
+         count += statistics.count();
+         sum += statistics.sumLatency() / 1e3;
+
+         if (percentiles.isEmpty()) {
+            reset();
+         } else {
+            quantiles[0] = percentiles.p50() / 1e9;
+            quantiles[1] = percentiles.p90() / 1e9;
+            quantiles[2] = percentiles.p99() / 1e9;
+            quantiles[3] = percentiles.p999() / 1e9;
+            quantiles[4] = percentiles.max() / 1e9;
+         }
+      }
+
+      /**
+       * Resets the quantiles, they are not exposed until the next observation.
+       */
+      public synchronized void reset() {
+         Arrays.fill(quantiles, Double.NaN);
+      }
+
+      private synchronized List<Collector.MetricFamilySamples.Sample> getSamples(String name, List<String> labels) {
+         var samples = Lists.<Collector.MetricFamilySamples.Sample>newArrayList();
+
+         for (var i = 0; i < quantiles.length && !Double.isNaN(quantiles[i]); i++) {
+            var values = Lists.newArrayList(labels);
+            values.add(LatencySummaries.QUANTILES.get(i));
+            samples.add(new Collector.MetricFamilySamples.Sample(name, LatencySummaries.QUANTILE_LABELS, values, quantiles[i]));
+         }
+
+         samples.add(new Collector.MetricFamilySamples.Sample(name + "_count", LatencySummaries.LABELS, labels, count));
+         samples.add(new Collector.MetricFamilySamples.Sample(name + "_sum", LatencySummaries.LABELS, labels, sum));
+
+         return samples;
+      }
+
    }
 
 }
@@ -0,0 +1,403 @@
+package alpakkeer.core.monitoring;
+
+import alpakkeer.core.monitoring.values.DataPoint;
+import alpakkeer.core.monitoring.values.TimeSeries;
+import com.google.common.collect.Lists;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reduces the data points of a time series within a time range to a maximum number of data points in a single pass.
+ * The range is divided into buckets of equal duration; data points must be added in order of their moments.
+ */
+public abstract class Downsampler {
+
+   /**
+    * Receives the data points of a downsampler as soon as they are selected.
+    */
+   @FunctionalInterface
+   public interface Output {
+
+      void emit(long epochMillis, double value);
+
+   }
+
+   protected final long from;
+
+   protected final long bucketMillis;
+
+   private final Output output;
+
+   private final List<DataPoint> result;
+
+   private Downsampler(long from, long bucketMillis, Output output, List<DataPoint> result) {
+      this.from = from;
+      this.bucketMillis = bucketMillis;
+      this.output = output;
+      this.result = result;
+   }
+
+   /**
+    * Creates a new downsampler which collects the selected data points, see {@link #getResult()}.
+    *
+    * @param method        The downsampling method
+    * @param from          The start of the queried range
+    * @param to            The end of the queried range
+    * @param maxDataPoints The maximum number of data points of the result, at least 3 for LTTB; no downsampling if
+    *                      not positive
+    * @param intervalMs    The minimum duration of a bucket in milliseconds
+    * @return The new downsampler
+    */
+   public static Downsampler apply(Downsampling method, Instant from, Instant to, int maxDataPoints, long intervalMs) {
+      var result = Lists.<DataPoint>newArrayList();
+      return apply(method, from, to, maxDataPoints, intervalMs, collect(result), result);
+   }
+
+   /**
+    * Creates a new downsampler which passes the selected data points to an output instead of collecting them; the
+    * result of the downsampler is empty.
+    *
+    * @param method        The downsampling method
+    * @param from          The start of the queried range
+    * @param to            The end of the queried range
+    * @param maxDataPoints The maximum number of data points of the result, at least 3 for LTTB; no downsampling if
+    *                      not positive
+    * @param intervalMs    The minimum duration of a bucket in milliseconds
+    * @param output        The output which receives the selected data points in order of their moments
+    * @return The new downsampler
+    */
+   public static Downsampler apply(
+      Downsampling method, Instant from, Instant to, int maxDataPoints, long intervalMs, Output output) {
+
+      return apply(method, from, to, maxDataPoints, intervalMs, output, List.of());
+   }
+
+   private static Downsampler apply(
+      Downsampling method, Instant from, Instant to, int maxDataPoints, long intervalMs,
+      Output output, List<DataPoint> result) {
+
+      if (maxDataPoints <= 0) {
+         return new PassThrough(output, result);
+      }
+
+      // both ends of the range are included, thus the last bucket must also cover the moment `to`
+      var range = Math.max(to.toEpochMilli() - from.toEpochMilli() + 1, 1);
+
+      if (method.equals(Downsampling.LTTB)) {
+         // the first and the last data point are kept in addition to one data point per bucket
+         var buckets = Math.max(maxDataPoints - 2, 1);
+         return new LargestTriangleThreeBuckets(
+            from.toEpochMilli(), Math.max(intervalMs, (range + buckets - 1) / buckets), output, result);
+      } else {
+         return new Aggregating(
+            method, from.toEpochMilli(), Math.max(intervalMs, (range + maxDataPoints - 1) / maxDataPoints), output, result);
+      }
+   }
+
+   /**
+    * @return A downsampler which keeps all data points
+    */
+   public static Downsampler none() {
+      var result = Lists.<DataPoint>newArrayList();
+      return new PassThrough(collect(result), result);
+   }
+
+   private static Output collect(List<DataPoint> result) {
+      return (epochMillis, value) -> result.add(DataPoint.apply(Instant.ofEpochMilli(epochMillis), value));
+   }
+
+   /**
+    * Adds the next data point.
+    *
+    * @param epochMillis The moment of the data point in milliseconds since the epoch
+    * @param value       The value of the data point
+    */
+   public abstract void add(long epochMillis, double value);
+
+   /**
+    * Adds a data point at the start or the end of the queried range which carries the value of a data point outside
+    * of the range. Edge points are kept like other data points, but they are not counted into sums and averages.
+    *
+    * @param epochMillis The moment of the data point in milliseconds since the epoch
+    * @param value       The value of the data point
+    */
+   public void addEdge(long epochMillis, double value) {
+      add(epochMillis, value);
+   }
+
+   /**
+    * Adds all data points of a time series.
+    *
+    * @param timeSeries The time series
+    * @return This downsampler
+    */
+   public Downsampler addAll(TimeSeries timeSeries) {
+      timeSeries.getData().forEach(dp -> add(dp.getMoment().toEpochMilli(), dp.getValue()));
+      return this;
+   }
+
+   /**
+    * Completes the downsampling.
+    *
+    * @return The downsampled time series; empty if the data points are passed to an output
+    */
+   public TimeSeries getResult() {
+      complete();
+      return TimeSeries.apply(result);
+   }
+
+   protected abstract void complete();
+
+   protected long getBucket(long epochMillis) {
+      return Math.floorDiv(epochMillis - from, bucketMillis);
+   }
+
+   protected void emit(long epochMillis, double value) {
+      output.emit(epochMillis, value);
+   }
+
+   private static final class PassThrough extends Downsampler {
+
+      private PassThrough(Output output, List<DataPoint> result) {
+         super(0, 1, output, result);
+      }
+
+      @Override
+      public void add(long epochMillis, double value) {
+         emit(epochMillis, value);
+      }
+
+      @Override
+      protected void complete() {
+
+      }
+
+   }
+
+   /**
+    * Emits one data point per bucket at the start of the bucket, its value aggregates the values of the bucket.
+    */
+   private static final class Aggregating extends Downsampler {
+
+      private final Downsampling method;
+
+      private long bucket;
+
+      private long count;
+
+      private double min;
+
+      private double max;
+
+      private double sum;
+
+      private Aggregating(Downsampling method, long from, long bucketMillis, Output output, List<DataPoint> result) {
+         super(from, bucketMillis, output, result);
+         this.method = method;
+         this.bucket = Long.MIN_VALUE;
+      }
+
+      @Override
+      public void add(long epochMillis, double value) {
+         var next = getBucket(epochMillis);
+
+         if (next != bucket) {
+            complete();
+            bucket = next;
+         }
+
+         min = count == 0 ? value : Math.min(min, value);
+         max = count == 0 ? value : Math.max(max, value);
+         sum += value;
+         count++;
+      }
+
+      @Override
+      public void addEdge(long epochMillis, double value) {
+         if (!method.equals(Downsampling.SUM) && !method.equals(Downsampling.AVG)) {
+            add(epochMillis, value);
+         }
+      }
+
+      @Override
+      protected void complete() {
+         if (count == 0) {
+            return;
+         }
+
+         double value;
+
+         switch (method) {
+            case MIN:
+               value = min;
+               break;
+            case MAX:
+               value = max;
+               break;
+            case AVG:
+               value = sum / count;
+               break;
+            default:
+               value = sum;
+         }
+
+         emit(from + bucket * bucketMillis, value);
+         count = 0;
+         sum = 0;
+      }
+
+   }
+
+   /**
+    * Selects the data point of each bucket which forms the largest triangle with the data point selected for the
+    * previous bucket and the average of the following bucket. Only the current and the following bucket are buffered.
+    * The first and the last data point are always kept.
+    */
+   private static final class LargestTriangleThreeBuckets extends Downsampler {
+
+      private Bucket current;
+
+      private Bucket next;
+
+      private boolean first;
+
+      private long selectedMillis;
+
+      private double selectedValue;
+
+      private LargestTriangleThreeBuckets(long from, long bucketMillis, Output output, List<DataPoint> result) {
+         super(from, bucketMillis, output, result);
+         this.current = new Bucket();
+         this.next = new Bucket();
+         this.first = true;
+      }
+
+      @Override
+      public void add(long epochMillis, double value) {
+         if (first) {
+            first = false;
+            select(epochMillis, value);
+            return;
+         }
+
+         var bucket = getBucket(epochMillis);
+
+         if (!next.isEmpty() && bucket != next.index) {
+            if (!current.isEmpty()) {
+               selectFromCurrent(next.averageMillis(), next.averageValue());
+            }
+
+            var empty = current;
+            current = next;
+            next = empty;
+            next.clear();
+         }
+
+         next.index = bucket;
+         next.add(epochMillis, value);
+      }
+
+      @Override
+      protected void complete() {
+         if (next.isEmpty()) {
+            return;
+         }
+
+         var lastMillis = next.millis[next.size - 1];
+         var lastValue = next.values[next.size - 1];
+
+         if (!current.isEmpty()) {
+            selectFromCurrent(next.averageMillis(), next.averageValue());
+         }
+
+         if (next.size > 1) {
+            current = next;
+            current.size--;
+            selectFromCurrent(lastMillis, lastValue);
+         }
+
+         select(lastMillis, lastValue);
+         current.clear();
+         next.clear();
+      }
+
+      private void selectFromCurrent(double nextMillis, double nextValue) {
+         var best = 0;
+         var maxArea = -1.0;
+
+         for (var i = 0; i < current.size; i++) {
+            var area = Math.abs(
+               (selectedMillis - nextMillis) * (current.values[i] - selectedValue) -
+                  (selectedMillis - current.millis[i]) * (nextValue - selectedValue));
+
+            if (area > maxArea) {
+               maxArea = area;
+               best = i;
+            }
+         }
+
+         select(current.millis[best], current.values[best]);
+      }
+
+      private void select(long epochMillis, double value) {
+         selectedMillis = epochMillis;
+         selectedValue = value;
+         emit(epochMillis, value);
+      }
+
+   }
+
+   private static final class Bucket {
+
+      private long index;
+
+      private long[] millis = new long[16];
+
+      private double[] values = new double[16];
+
+      private int size;
+
+      private void add(long epochMillis, double value) {
+         if (size == millis.length) {
+            millis = Arrays.copyOf(millis, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+         }
+
+         millis[size] = epochMillis;
+         values[size] = value;
+         size++;
+      }
+
+      private boolean isEmpty() {
+         return size == 0;
+      }
+
+      private void clear() {
+         size = 0;
+      }
+
+      private double averageMillis() {
+         var sum = 0.0;
+
+         for (var i = 0; i < size; i++) {
+            sum += millis[i];
+         }
+
+         return sum / size;
+      }
+
+      private double averageValue() {
+         var sum = 0.0;
+
+         for (var i = 0; i < size; i++) {
+            sum += values[i];
+         }
+
+         return sum / size;
+      }
+
+   }
+
+}
@@ -0,0 +1,47 @@
+package alpakkeer.core.monitoring;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The methods to reduce the data points of a time series to the number of data points requested by a client.
+ */
+public enum Downsampling {
+
+   /**
+    * Largest-Triangle-Three-Buckets; selects the visually most significant data point of each bucket, used for gauges.
+    */
+   LTTB("lttb"),
+
+   MIN("min"),
+
+   MAX("max"),
+
+   AVG("avg"),
+
+   /**
+    * The sum of the values of a bucket, used for counts within an interval.
+    */
+   SUM("sum");
+
+   @JsonValue
+   private final String name;
+
+   Downsampling(String name) {
+      this.name = name;
+   }
+
+   public String getName() {
+      return name;
+   }
+
+   public static Optional<Downsampling> fromName(String name) {
+      return Arrays
+         .stream(values())
+         .filter(d -> d.name.equalsIgnoreCase(name))
+         .findFirst();
+   }
+
+}
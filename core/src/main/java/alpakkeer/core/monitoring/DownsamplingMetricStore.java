@@ -0,0 +1,21 @@
+package alpakkeer.core.monitoring;
+
+import alpakkeer.core.monitoring.values.TimeSeries;
+
+import java.time.Instant;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A time-series metric which passes its data points to a {@link Downsampler} while reading them, thus the full list of
+ * data points within the queried range is never created.
+ */
+public interface DownsamplingMetricStore extends MetricStore<TimeSeries> {
+
+   /**
+    * @return The downsampling method which fits the metric, if the client doesn't request a specific method
+    */
+   Downsampling getDownsampling();
+
+   CompletionStage<TimeSeries> query(Instant from, Instant to, Downsampler downsampler);
+
+}
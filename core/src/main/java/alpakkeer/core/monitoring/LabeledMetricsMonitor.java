@@ -0,0 +1,27 @@
+package alpakkeer.core.monitoring;
+
+import alpakkeer.core.monitoring.values.TimeSeries;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A monitor whose time-series metrics carry labels, like Prometheus series, e.g. `name{label="value"}`.
+ */
+public interface LabeledMetricsMonitor extends MetricsMonitor {
+
+   /**
+    * The label which matches the name of a series without its labels.
+    */
+   String NAME_LABEL = "__name__";
+
+   /**
+    * Returns the time-series metrics which have all of the given labels; the name of a series is matched as label
+    * {@link #NAME_LABEL}.
+    *
+    * @param labels The label values by label name
+    * @return The matching metrics; all metrics if no label is given
+    */
+   List<MetricStore<TimeSeries>> getTimeSeriesMetrics(Map<String, String> labels);
+
+}
@@ -12,16 +12,28 @@ public final class MetricCollectors {
 
    }
 
-   public static MetricsCollector createInMemory(CronExpression interval, int maxSize) {
-      return InMemoryMetricsCollector.apply(interval, maxSize);
+   /**
+    * Creates a collector which stores the samples of the Prometheus collector registry in memory.
+    *
+    * @param interval    The interval in which samples are collected
+    * @param seriesLimit The maximum number of data points retained per series
+    * @param maxSeries   The maximum number of series; samples of further series are dropped
+    * @return The collector
+    */
+   public static MetricsCollector createInMemory(CronExpression interval, int seriesLimit, int maxSeries) {
+      return InMemoryMetricsCollector.apply(interval, seriesLimit, maxSeries);
+   }
+
+   public static MetricsCollector createInMemory(CronExpression interval, int seriesLimit) {
+      return createInMemory(interval, seriesLimit, 1_000);
    }
 
    public static MetricsCollector createInMemory(CronExpression interval) {
-      return createInMemory(interval, 500_000);
+      return createInMemory(interval, 2_880);
    }
 
    public static MetricsCollector createInMemory() {
-      return createInMemory(CronExpression.everySeconds(30), 500_000);
+      return createInMemory(CronExpression.everySeconds(30), 2_880);
    }
 
    public static MetricsCollector createLogging(CronExpression interval, Logger log) {
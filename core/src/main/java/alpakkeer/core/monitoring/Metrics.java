@@ -68,6 +68,46 @@ public final class Metrics {
       return createTimeSeriesMetricCS(name, description, (f, t) -> CompletableFuture.completedFuture(get.apply(f, t)));
    }
 
+   /**
+    * Creates a time-series metric which reads a {@link TimeSeriesBuffer}.
+    *
+    * @param name         The name of the metric
+    * @param description  The description of the metric
+    * @param buffer       The buffer which stores the data points
+    * @param downsampling The default downsampling method of the metric
+    * @return The metric
+    */
+   public static DownsamplingMetricStore createTimeSeriesMetric(
+      String name, String description, TimeSeriesBuffer buffer, Downsampling downsampling) {
+
+      return new DownsamplingMetricStore() {
+         @Override
+         public Downsampling getDownsampling() {
+            return downsampling;
+         }
+
+         @Override
+         public CompletionStage<TimeSeries> query(Instant from, Instant to, Downsampler downsampler) {
+            return CompletableFuture.completedFuture(buffer.query(from, to, downsampler));
+         }
+
+         @Override
+         public String getName() {
+            return name;
+         }
+
+         @Override
+         public String getDescription() {
+            return description;
+         }
+
+         @Override
+         public CompletionStage<TimeSeries> query(Instant from, Instant to) {
+            return CompletableFuture.completedFuture(buffer.query(from, to));
+         }
+      };
+   }
+
    public static MetricStore<TimeSeries> createTimeSeriesMetricFromDataPoints(
       String name, String description, Source<DataPoint, NotUsed> datapoints, ActorSystem system) {
 
@@ -0,0 +1,141 @@
+package alpakkeer.core.monitoring;
+
+import alpakkeer.core.monitoring.values.Marker;
+import alpakkeer.core.monitoring.values.TimeSeries;
+import com.google.common.collect.Maps;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * An index of all metrics which are exposed by an Alpakkeer instance, e.g. for Grafana. Monitors are registered once;
+ * the index is updated by the monitors when they create new metrics, thus reading the index is a lookup.
+ *
+ * Monitors which don't support listeners (see {@link MetricsMonitor#addTimeSeriesListener}) are asked for their
+ * metrics whenever the index is read. Metrics can be looked up by their labels if their monitor indexes labels (see
+ * {@link LabeledMetricsMonitor}); other metrics only match by their name.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class MetricsIndex {
+
+   private final ConcurrentHashMap<String, MetricStore<TimeSeries>> timeSeries;
+
+   private final ConcurrentHashMap<String, MetricStore<List<Marker>>> markers;
+
+   private final List<PolledMonitor> polled;
+
+   private final List<PolledMonitor> labeled;
+
+   public static MetricsIndex apply() {
+      return new MetricsIndex(
+         new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new CopyOnWriteArrayList<>(), new CopyOnWriteArrayList<>());
+   }
+
+   /**
+    * Adds the metrics of a monitor to the index.
+    *
+    * @param monitor The monitor
+    * @param naming  Returns the name of a metric within the index for the metric's name within the monitor
+    */
+   public void addMonitor(MetricsMonitor monitor, Function<String, String> naming) {
+      monitor
+         .getMarkerMetrics()
+         .forEach(m -> markers.put(getName(naming, m), m));
+
+      if (monitor.addTimeSeriesListener(m -> timeSeries.put(getName(naming, m), m))) {
+         monitor
+            .getTimeSeriesMetrics()
+            .forEach(m -> timeSeries.put(getName(naming, m), m));
+      } else {
+         polled.add(PolledMonitor.apply(monitor, naming));
+      }
+
+      if (monitor instanceof LabeledMetricsMonitor) {
+         labeled.add(PolledMonitor.apply(monitor, naming));
+      }
+   }
+
+   public void addMonitor(MetricsMonitor monitor) {
+      addMonitor(monitor, name -> name);
+   }
+
+   public void addTimeSeriesMetric(MetricStore<TimeSeries> metric) {
+      timeSeries.put(metric.getName(), metric);
+   }
+
+   /**
+    * @return The time-series metrics by their name
+    */
+   public Map<String, MetricStore<TimeSeries>> getTimeSeriesMetrics() {
+      if (polled.isEmpty()) {
+         return Collections.unmodifiableMap(timeSeries);
+      } else {
+         var result = Maps.newHashMap(timeSeries);
+         polled.forEach(p -> p.monitor.getTimeSeriesMetrics().forEach(m -> result.put(getName(p.naming, m), m)));
+         return result;
+      }
+   }
+
+   /**
+    * Returns the time-series metrics which have all of the given labels, see
+    * {@link LabeledMetricsMonitor#getTimeSeriesMetrics(Map)}. Metrics of other monitors match if only their name is
+    * given as label {@link LabeledMetricsMonitor#NAME_LABEL}.
+    *
+    * @param labels The label values by label name
+    * @return The matching time-series metrics by their name, sorted by name
+    */
+   public SortedMap<String, MetricStore<TimeSeries>> getTimeSeriesMetrics(Map<String, String> labels) {
+      var result = Maps.<String, MetricStore<TimeSeries>>newTreeMap();
+
+      if (labels.isEmpty()) {
+         result.putAll(getTimeSeriesMetrics());
+         return result;
+      }
+
+      labeled.forEach(l -> ((LabeledMetricsMonitor) l.monitor)
+         .getTimeSeriesMetrics(labels)
+         .forEach(m -> result.put(getName(l.naming, m), m)));
+
+      if (labels.size() == 1 && labels.containsKey(LabeledMetricsMonitor.NAME_LABEL)) {
+         var name = labels.get(LabeledMetricsMonitor.NAME_LABEL);
+         Optional.ofNullable(getTimeSeriesMetrics().get(name)).ifPresent(m -> result.put(name, m));
+      }
+
+      return result;
+   }
+
+   /**
+    * @return The marker metrics by their name
+    */
+   public Map<String, MetricStore<List<Marker>>> getMarkerMetrics() {
+      if (polled.isEmpty()) {
+         return Collections.unmodifiableMap(markers);
+      } else {
+         var result = Maps.newHashMap(markers);
+         polled.forEach(p -> p.monitor.getMarkerMetrics().forEach(m -> result.put(getName(p.naming, m), m)));
+         return result;
+      }
+   }
+
+   private static String getName(Function<String, String> naming, MetricStore<?> metric) {
+      return naming.apply(metric.getName());
+   }
+
+   @AllArgsConstructor(staticName = "apply")
+   private static class PolledMonitor {
+
+      private final MetricsMonitor monitor;
+
+      private final Function<String, String> naming;
+
+   }
+
+}
@@ -4,6 +4,7 @@ import alpakkeer.core.monitoring.values.Marker;
 import alpakkeer.core.monitoring.values.TimeSeries;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface MetricsMonitor {
 
@@ -11,4 +12,16 @@ public interface MetricsMonitor {
 
    List<MetricStore<TimeSeries>> getTimeSeriesMetrics();
 
+   /**
+    * Registers a listener which is called whenever the monitor creates a new time-series metric, e.g. when it receives
+    * the first statistics of a checkpoint. Monitors which do not support listeners are asked for their metrics on
+    * each request.
+    *
+    * @param listener The listener
+    * @return True if the monitor notifies the listener about new metrics
+    */
+   default boolean addTimeSeriesListener(Consumer<MetricStore<TimeSeries>> listener) {
+      return false;
+   }
+
 }
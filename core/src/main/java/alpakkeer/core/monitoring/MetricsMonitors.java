@@ -6,6 +6,7 @@ import com.google.common.collect.Lists;
 import lombok.AllArgsConstructor;
 
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @AllArgsConstructor(staticName = "apply")
@@ -38,4 +39,15 @@ public final class MetricsMonitors implements MetricsMonitor {
          .collect(Collectors.toList());
    }
 
+   /**
+    * Registers the listener at all monitors; returns true only if all monitors support listeners.
+    */
+   @Override
+   public boolean addTimeSeriesListener(Consumer<MetricStore<TimeSeries>> listener) {
+      return monitors
+         .stream()
+         .map(m -> m.addTimeSeriesListener(listener))
+         .reduce(true, (a, b) -> a && b);
+   }
+
 }
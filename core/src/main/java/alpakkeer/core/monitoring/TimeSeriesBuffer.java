@@ -0,0 +1,191 @@
+package alpakkeer.core.monitoring;
+
+import alpakkeer.core.monitoring.values.TimeSeries;
+
+import java.time.Instant;
+
+/**
+ * A bounded time series of data points, stored column-wise in a ring buffer of primitive timestamps and values. The
+ * buffer grows on demand up to its maximum capacity; afterwards the oldest data points are overwritten.
+ *
+ * Data points are kept sorted by their moment, thus range queries only scan the data points within the range.
+ * Data points are usually appended in order; a data point older than the newest one is inserted at its position.
+ */
+public final class TimeSeriesBuffer {
+
+   private static final int INITIAL_CAPACITY = 64;
+
+   private final int maxCapacity;
+
+   private long[] moments;
+
+   private double[] values;
+
+   private int start;
+
+   private int size;
+
+   private TimeSeriesBuffer(int maxCapacity, int capacity) {
+      this.maxCapacity = maxCapacity;
+      this.moments = new long[capacity];
+      this.values = new double[capacity];
+      this.start = 0;
+      this.size = 0;
+   }
+
+   /**
+    * Creates a new, empty buffer.
+    *
+    * @param maxCapacity The maximum number of data points retained by the buffer
+    * @return The new buffer
+    */
+   public static TimeSeriesBuffer apply(int maxCapacity) {
+      if (maxCapacity < 1) {
+         throw new IllegalArgumentException("The maximum capacity of a time series buffer must be positive");
+      }
+
+      return new TimeSeriesBuffer(maxCapacity, Math.min(INITIAL_CAPACITY, maxCapacity));
+   }
+
+   public void append(Instant moment, double value) {
+      append(moment.toEpochMilli(), value);
+   }
+
+   /**
+    * Appends a data point; evicts the oldest data point if the buffer is full.
+    *
+    * @param epochMillis The moment of the data point in milliseconds since the epoch
+    * @param value       The value of the data point
+    */
+   public synchronized void append(long epochMillis, double value) {
+      if (size == moments.length) {
+         if (size < maxCapacity) {
+            grow();
+         } else {
+            start = index(1);
+            size--;
+         }
+      }
+
+      var position = size;
+
+      if (size > 0 && moments[index(size - 1)] > epochMillis) {
+         position = upperBound(epochMillis);
+
+         for (var i = size; i > position; i--) {
+            moments[index(i)] = moments[index(i - 1)];
+            values[index(i)] = values[index(i - 1)];
+         }
+      }
+
+      moments[index(position)] = epochMillis;
+      values[index(position)] = value;
+      size++;
+   }
+
+   /**
+    * Returns the data points within a time range, ordered by their moment. Like a step function, the value before the
+    * range is returned at the start of the range and the value after the range at its end, unless a data point exists
+    * exactly at the start or the end of the range.
+    *
+    * @param from The start of the range, inclusive
+    * @param to   The end of the range, inclusive
+    * @return The data points
+    */
+   public TimeSeries query(Instant from, Instant to) {
+      return query(from, to, Downsampler.none());
+   }
+
+   /**
+    * Like {@link #query(Instant, Instant)}, but passes the data points to a downsampler instead of collecting them. The
+    * values before and after the range are passed as edge points, see {@link Downsampler#addEdge(long, double)}.
+    *
+    * @param from        The start of the range, inclusive
+    * @param to          The end of the range, inclusive
+    * @param downsampler The downsampler
+    * @return The downsampled data points
+    */
+   public synchronized TimeSeries query(Instant from, Instant to, Downsampler downsampler) {
+      var lower = lowerBound(from.toEpochMilli());
+      var upper = upperBound(to.toEpochMilli());
+
+      if (lower > 0 && (lower == size || moments[index(lower)] > from.toEpochMilli())) {
+         downsampler.addEdge(from.toEpochMilli(), values[index(lower - 1)]);
+      }
+
+      for (var i = lower; i < upper; i++) {
+         downsampler.add(moments[index(i)], values[index(i)]);
+      }
+
+      if (upper < size && (upper == 0 || moments[index(upper - 1)] < to.toEpochMilli())) {
+         downsampler.addEdge(to.toEpochMilli(), values[index(upper)]);
+      }
+
+      return downsampler.getResult();
+   }
+
+   public synchronized int size() {
+      return size;
+   }
+
+   /**
+    * @return The index of the first data point at or after the moment
+    */
+   private int lowerBound(long epochMillis) {
+      var low = 0;
+      var high = size;
+
+      while (low < high) {
+         var mid = (low + high) >>> 1;
+
+         if (moments[index(mid)] < epochMillis) {
+            low = mid + 1;
+         } else {
+            high = mid;
+         }
+      }
+
+      return low;
+   }
+
+   /**
+    * @return The index of the first data point after the moment
+    */
+   private int upperBound(long epochMillis) {
+      var low = 0;
+      var high = size;
+
+      while (low < high) {
+         var mid = (low + high) >>> 1;
+
+         if (moments[index(mid)] <= epochMillis) {
+            low = mid + 1;
+         } else {
+            high = mid;
+         }
+      }
+
+      return low;
+   }
+
+   private int index(int position) {
+      var index = start + position;
+      return index < moments.length ? index : index - moments.length;
+   }
+
+   private void grow() {
+      var capacity = (int) Math.min((long) moments.length * 2, maxCapacity);
+      var grownMoments = new long[capacity];
+      var grownValues = new double[capacity];
+
+      for (var i = 0; i < size; i++) {
+         grownMoments[i] = moments[index(i)];
+         grownValues[i] = values[index(i)];
+      }
+
+      moments = grownMoments;
+      values = grownValues;
+      start = 0;
+   }
+
+}
@@ -1,53 +1,78 @@
 package alpakkeer.core.monitoring.collectors;
 
-import akka.actor.ActorSystem;
 import alpakkeer.javadsl.AlpakkeerRuntime;
-import alpakkeer.core.monitoring.MetricStore;
-import alpakkeer.core.monitoring.Metrics;
-import alpakkeer.core.monitoring.MetricsCollector;
-import alpakkeer.core.monitoring.values.DataPoint;
+import alpakkeer.core.monitoring.*;
 import alpakkeer.core.monitoring.values.Marker;
-import alpakkeer.core.monitoring.values.PrometheusStats;
 import alpakkeer.core.monitoring.values.TimeSeries;
 import alpakkeer.core.scheduler.model.CronExpression;
 import alpakkeer.core.util.Operators;
-import com.google.common.collect.EvictingQueue;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
+import io.prometheus.client.Collector;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
+import lombok.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Instant;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-@AllArgsConstructor(staticName = "apply")
-public final class InMemoryMetricsCollector implements MetricsCollector {
+/**
+ * Collects the samples of the Prometheus collector registry in memory. Each series, i.e. each combination of a sample
+ * name and its labels, is stored in its own {@link TimeSeriesBuffer}, thus the retention of a series doesn't depend on
+ * the number of other series. Series are named like Prometheus series, e.g. `name{label="value"}`, and can be looked
+ * up by their labels.
+ *
+ * The number of series is limited; samples of new series are dropped once the limit is reached.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class InMemoryMetricsCollector implements MetricsCollector, LabeledMetricsMonitor {
 
    private final Logger LOG = LoggerFactory.getLogger("alpakkeer.metrics");
 
    private final CronExpression interval;
 
-   private final AtomicReference<EvictingQueue<PrometheusStats>> store;
+   private final int seriesLimit;
 
-   private final AtomicReference<Set<String>> metrics;
+   private final int maxSeries;
 
-   private ActorSystem system;
+   private final ConcurrentHashMap<String, Series> series;
 
-   public static InMemoryMetricsCollector apply(CronExpression interval, int maxSize) {
-      return apply(interval, new AtomicReference<>(EvictingQueue.create(maxSize)), new AtomicReference<>(Sets.newHashSet()), null);
+   /**
+    * The names of the series by label name and label value, including the label {@link #NAME_LABEL}.
+    */
+   private final ConcurrentHashMap<String, ConcurrentHashMap<String, Set<String>>> labels;
+
+   private final List<Consumer<MetricStore<TimeSeries>>> listeners;
+
+   /**
+    * Whether samples of new series have been dropped since the limit of series has been reached; used to log once.
+    */
+   private final AtomicBoolean dropping;
+
+   /**
+    * Creates a new collector.
+    *
+    * @param interval    The interval in which the samples are collected
+    * @param seriesLimit The maximum number of data points retained per series
+    * @param maxSeries   The maximum number of series
+    * @return The new collector
+    */
+   public static InMemoryMetricsCollector apply(CronExpression interval, int seriesLimit, int maxSeries) {
+      if (maxSeries < 1) {
+         throw new IllegalArgumentException("The maximum number of series must be positive");
+      }
+
+      return new InMemoryMetricsCollector(
+         interval, seriesLimit, maxSeries, new ConcurrentHashMap<>(), new ConcurrentHashMap<>(),
+         new CopyOnWriteArrayList<>(), new AtomicBoolean());
    }
 
    @Override
    public void run(AlpakkeerRuntime runtime) {
-      this.system = runtime.getSystem();
-
       var jobName = "alpakkeer-internal-collectors-in-memory";
 
       runtime
@@ -56,49 +81,27 @@ public final class InMemoryMetricsCollector implements MetricsCollector {
             jobName,
             interval,
             () -> Operators.suppressExceptions(() -> {
-               var newStats = Lists.newArrayList(
-                  runtime
-                     .getCollectorRegistry()
-                     .metricFamilySamples()
-                     .asIterator())
-                  .stream()
-                  .flatMap(family -> family.samples.stream())
-                  .map(sample -> {
-                     var moment = Optional.ofNullable(sample.timestampMs).map(Instant::ofEpochMilli).orElseGet(Instant::now);
-                     var labels = Map.<String, String>of();
-
-                     if (sample.labelNames.size() == sample.labelValues.size()) {
-                        labels = Maps.newHashMap();
-
-                        for (int i = 0; i < sample.labelNames.size(); i++) {
-                           labels.put(sample.labelNames.get(i), sample.labelValues.get(0));
-                        }
-
-                        labels = Map.copyOf(labels);
-                     }
-
-                     return PrometheusStats.apply(moment, sample.name, sample.value, labels);
-                  })
-                  .collect(Collectors.toList());
-
-               metrics.getAndUpdate(set -> {
-                  set.addAll(newStats.stream().map(PrometheusStats::getName).collect(Collectors.toList()));
-                  return set;
-               });
-
-               store.getAndUpdate(queue -> {
-                  queue.addAll(newStats);
-                  return queue;
-               });
+               var now = System.currentTimeMillis();
+               var families = runtime.getCollectorRegistry().metricFamilySamples();
+
+               while (families.hasMoreElements()) {
+                  var family = families.nextElement();
+
+                  for (var sample : family.samples) {
+                     var moment = Optional.ofNullable(sample.timestampMs).orElse(now);
+                     getSeries(family, sample).ifPresent(s -> s.getBuffer().append(moment, sample.value));
+                  }
+               }
             }))
          .thenCompose(i -> runtime.getScheduler().getJob(jobName))
          .whenComplete((maybeDetails, ex) -> {
             if (maybeDetails != null && maybeDetails.isPresent()) {
                var details = maybeDetails.get();
                LOG.info(
-                  "Initialized in-memory metrics collector with `{}` and max queue size of `{}`, next collection will run at `{}`",
+                  "Initialized in-memory metrics collector with `{}`, max series size of `{}` and max series count of `{}`, next collection will run at `{}`",
                   details.getCronExpression(),
-                  store.get().remainingCapacity() + store.get().size(),
+                  seriesLimit,
+                  maxSeries,
                   details.getNextExecution());
             } else if (ex != null) {
                LOG.error("An exception occurred initializing the in-memory metrics collector", ex);
@@ -115,19 +118,126 @@ public final class InMemoryMetricsCollector implements MetricsCollector {
 
    @Override
    public List<MetricStore<TimeSeries>> getTimeSeriesMetrics() {
-      if (system == null) {
-         return List.of();
-      } else {
-         return this.metrics.get()
-            .stream()
-            .map(name -> Metrics.createTimeSeriesMetricFromDataPoints(name, name, () -> store
-               .get()
-               .stream()
-               .filter(s -> s.getName().equals(name))
-               .map(s -> DataPoint.apply(s.getMoment(), s.getValue()))
-               .collect(Collectors.toList()), system))
-            .collect(Collectors.toList());
+      return series
+         .values()
+         .stream()
+         .map(Series::getMetric)
+         .collect(Collectors.toList());
+   }
+
+   @Override
+   public List<MetricStore<TimeSeries>> getTimeSeriesMetrics(Map<String, String> labels) {
+      if (labels.isEmpty()) {
+         return getTimeSeriesMetrics();
+      }
+
+      var matches = labels
+         .entrySet()
+         .stream()
+         .map(label -> Optional
+            .ofNullable(this.labels.get(label.getKey()))
+            .map(values -> values.get(label.getValue()))
+            .<Set<String>>map(Set::copyOf)
+            .orElse(Set.of()))
+         .sorted(Comparator.comparingInt(Set::size))
+         .collect(Collectors.toList());
+
+      return matches
+         .get(0)
+         .stream()
+         .filter(name -> matches.stream().allMatch(names -> names.contains(name)))
+         .map(series::get)
+         .filter(Objects::nonNull)
+         .map(Series::getMetric)
+         .collect(Collectors.toList());
+   }
+
+   @Override
+   public boolean addTimeSeriesListener(Consumer<MetricStore<TimeSeries>> listener) {
+      listeners.add(listener);
+      return true;
+   }
+
+   /**
+    * @return The series of the sample; empty if the series doesn't exist yet and the limit of series is reached
+    */
+   private Optional<Series> getSeries(Collector.MetricFamilySamples family, Collector.MetricFamilySamples.Sample sample) {
+      var name = getSeriesName(sample);
+      var existing = series.get(name);
+
+      if (existing != null) {
+         return Optional.of(existing);
+      }
+
+      if (series.size() >= maxSeries) {
+         if (!dropping.getAndSet(true)) {
+            LOG.warn("The in-memory metrics collector reached its limit of `{}` series, samples of new series are dropped", maxSeries);
+         }
+
+         return Optional.empty();
+      }
+
+      var created = Series.apply(name, family.help, seriesLimit);
+      var previous = series.putIfAbsent(name, created);
+
+      if (previous != null) {
+         return Optional.of(previous);
+      }
+
+      index(NAME_LABEL, sample.name, name);
+
+      // label names and label values may differ in size for custom collectors
+      for (var i = 0; i < Math.min(sample.labelNames.size(), sample.labelValues.size()); i++) {
+         index(sample.labelNames.get(i), sample.labelValues.get(i), name);
+      }
+
+      listeners.forEach(listener -> listener.accept(created.getMetric()));
+      return Optional.of(created);
+   }
+
+   private void index(String labelName, String labelValue, String name) {
+      labels
+         .computeIfAbsent(labelName, n -> new ConcurrentHashMap<>())
+         .computeIfAbsent(labelValue, v -> ConcurrentHashMap.newKeySet())
+         .add(name);
+   }
+
+   /**
+    * @return The name of the series, e.g. `name{label="value"}`; labels are sorted by their name
+    */
+   private static String getSeriesName(Collector.MetricFamilySamples.Sample sample) {
+      var size = Math.min(sample.labelNames.size(), sample.labelValues.size());
+
+      if (size == 0) {
+         return sample.name;
       }
+
+      var sorted = new TreeMap<String, String>();
+
+      for (var i = 0; i < size; i++) {
+         sorted.put(sample.labelNames.get(i), sample.labelValues.get(i));
+      }
+
+      return sorted
+         .entrySet()
+         .stream()
+         .map(label -> String.format("%s=\"%s\"", label.getKey(), label.getValue()))
+         .collect(Collectors.joining(",", sample.name + "{", "}"));
+   }
+
+   @Value
+   @AllArgsConstructor(access = AccessLevel.PRIVATE)
+   private static class Series {
+
+      TimeSeriesBuffer buffer;
+
+      MetricStore<TimeSeries> metric;
+
+      public static Series apply(String name, String description, int limit) {
+         var buffer = TimeSeriesBuffer.apply(limit);
+         return new Series(buffer, Metrics.createTimeSeriesMetric(name, description, buffer, Downsampling.LTTB));
+      }
+
    }
 
 }
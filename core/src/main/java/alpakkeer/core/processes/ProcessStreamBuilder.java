@@ -1,10 +1,15 @@
 package alpakkeer.core.processes;
 
+import akka.NotUsed;
+import akka.japi.function.Function;
+import akka.stream.javadsl.Source;
 import alpakkeer.javadsl.AlpakkeerRuntime;
 import alpakkeer.core.processes.monitor.ProcessMonitor;
+import alpakkeer.core.stream.Record;
 import alpakkeer.core.stream.StreamBuilder;
 import alpakkeer.core.stream.StreamBuilders;
 import alpakkeer.core.stream.StreamMonitoringAdapter;
+import alpakkeer.core.stream.context.CommittableRecordContext;
 import alpakkeer.core.stream.messaging.StreamMessagingAdapter;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
@@ -37,6 +42,34 @@ public class ProcessStreamBuilder implements StreamBuilder {
       return executionId;
    }
 
+   /**
+    * Consumes a topic with one pipeline per partition. The records of a partition are processed in order by
+    * `perPartition`, while the partitions run concurrently, each within its own actor. The throughput of each
+    * partition is reported as checkpoint `<topic>-partition-<partition>`.
+    *
+    * @param topic The name of the topic
+    * @param recordType The type of the record; will be used for de-serialization
+    * @param consumerGroup The consumer group id to identify different consumers on the topic
+    * @param parallelism The maximum number of partitions which are processed concurrently; as partition sources do
+    *                    not complete, the source fails if more partitions are assigned to the consumer
+    * @param perPartition Creates the pipeline for a single partition
+    * @param <T> The type of the record
+    * @param <R> The type of the pipelines' results
+    * @return An Akka Streams source which merges the results of all partitions
+    */
+   public <T, R> Source<R, NotUsed> partitionedRecordsSource(
+      String topic, Class<T> recordType, String consumerGroup, int parallelism,
+      Function<Source<Record<T, CommittableRecordContext>, NotUsed>, Source<R, NotUsed>> perPartition) {
+
+      return messaging()
+         .partitionedRecordsSource(topic, recordType, consumerGroup, parallelism)
+         .flatMapMerge(parallelism, partition -> perPartition
+            .apply(partition
+               .second()
+               .via(monitoring().createPartitionCheckpointMonitor(topic, partition.first())))
+            .async());
+   }
+
    @Override
    public Logger getLogger() {
       return sb.getLogger();
@@ -5,10 +5,12 @@ import alpakkeer.core.jobs.Job;
 import alpakkeer.core.jobs.JobDefinition;
 import alpakkeer.core.jobs.Jobs;
 import alpakkeer.core.monitoring.MetricStore;
+import alpakkeer.core.monitoring.MetricsIndex;
 import alpakkeer.core.monitoring.values.TimeSeries;
 import alpakkeer.core.processes.Process;
 import alpakkeer.core.processes.ProcessDefinition;
 import alpakkeer.core.processes.Processes;
+import alpakkeer.core.util.Strings;
 import com.google.common.collect.Maps;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -33,6 +35,8 @@ public final class Resources {
 
    private final Map<String, MetricStore<TimeSeries>> tsMetrics;
 
+   private final MetricsIndex metrics;
+
    /**
     * Creates a new instance.
     *
@@ -40,7 +44,10 @@ public final class Resources {
     * @return A new resources instance.
     */
    public static Resources apply(AlpakkeerRuntime runtime) {
-      return new Resources(runtime, Maps.newHashMap(), Maps.newHashMap(), Maps.newHashMap());
+      var metrics = MetricsIndex.apply();
+      runtime.getMetricsCollectors().forEach(metrics::addMonitor);
+
+      return new Resources(runtime, Maps.newHashMap(), Maps.newHashMap(), Maps.newHashMap(), metrics);
    }
 
    /**
@@ -58,6 +65,12 @@ public final class Resources {
          var job = Jobs.apply(runtime.getSystem(), runtime.getScheduler(), runtime.getContextStore(), jobDefinition);
          job.getDefinition().extendApi(runtime.getApp(), job);
          jobs.put(jobDefinition.getName(), job);
+
+         var jobName = Strings.convert(jobDefinition.getName()).toSnakeCase();
+         metrics.addMonitor(
+            job.getDefinition().getMonitors().getMetricsMonitors(),
+            name -> String.format("%s__%s", jobName, Strings.convert(name).toSnakeCase()));
+
          return job;
       }
    }
@@ -69,6 +82,7 @@ public final class Resources {
     */
    public void addTimeSeriesMetric(MetricStore<TimeSeries> metric) {
       tsMetrics.put(metric.getName(), metric);
+      metrics.addTimeSeriesMetric(metric);
    }
 
    /**
@@ -148,6 +162,15 @@ public final class Resources {
       return List.copyOf(tsMetrics.values());
    }
 
+   /**
+    * Returns the index of all metrics of the registered jobs, metrics collectors and custom metrics.
+    *
+    * @return The metrics index
+    */
+   public MetricsIndex getMetrics() {
+      return metrics;
+   }
+
    /**
     * Returns a list of registered processes.
     *
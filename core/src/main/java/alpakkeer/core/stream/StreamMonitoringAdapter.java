@@ -1,6 +1,7 @@
 package alpakkeer.core.stream;
 
 import akka.NotUsed;
+import akka.japi.function.Function;
 import akka.stream.javadsl.Flow;
 import akka.stream.javadsl.Sink;
 import lombok.AllArgsConstructor;
@@ -10,6 +11,8 @@ import java.time.Duration;
 @AllArgsConstructor(staticName = "apply")
 public final class StreamMonitoringAdapter {
 
+   private static final Duration DEFAULT_DROP_TIMEOUT = Duration.ofSeconds(10);
+
    private final StreamMonitor monitor;
 
    private final String executionId;
@@ -43,12 +46,60 @@ public final class StreamMonitoringAdapter {
       return createCheckpointMonitor(name, Duration.ofSeconds(30));
    }
 
+   public <T> Flow<T, T, NotUsed> createPartitionCheckpointMonitor(String name, String partition, Duration statsInterval) {
+      return createCheckpointMonitor(String.format("%s-partition-%s", name, partition), statsInterval);
+   }
+
+   public <T> Flow<T, T, NotUsed> createPartitionCheckpointMonitor(String name, String partition) {
+      return createPartitionCheckpointMonitor(name, partition, Duration.ofSeconds(30));
+   }
+
+   /**
+    * Creates a latency monitor which also records the latency percentiles of each interval, if `histogram` is set.
+    */
+   public <In, Out, Mat> Flow<In, Out, Mat> createLatencyMonitor(String name, Flow<In, Out, Mat> flow, Duration statsInterval, boolean histogram) {
+      return LatencyMonitors.create(flow, createLatencyStatsSink(name, statsInterval), histogram, (m, n) -> m);
+   }
+
    public <In, Out, Mat> Flow<In, Out, Mat> createLatencyMonitor(String name, Flow<In, Out, Mat> flow, Duration statsInterval) {
-      return LatencyMonitors.create(flow, createLatencyStatsSink(name, statsInterval), (m, n) -> m);
+      return createLatencyMonitor(name, flow, statsInterval, false);
    }
 
    public <In, Out, Mat> Flow<In, Out, Mat> createLatencyMonitor(String name, Flow<In, Out, Mat> flow) {
       return createLatencyMonitor(name, flow, Duration.ofSeconds(30));
    }
 
+   /**
+    * Creates a latency monitor which correlates the elements leaving the flow with the elements entering the flow by
+    * a key; thus the flow may filter, reorder or expand elements. Elements which do not leave the flow within
+    * `dropTimeout` (10 seconds by default) are reported as dropped. Matched elements are retained until all elements
+    * which entered the flow before them are matched or dropped, thus the drop timeout limits the memory of the monitor.
+    */
+   public <In, Out, K, Mat> Flow<In, Out, Mat> createLatencyMonitor(
+      String name, Flow<In, Out, Mat> flow, Function<In, K> inKey, Function<Out, K> outKey,
+      Duration statsInterval, Duration dropTimeout, boolean histogram) {
+
+      return LatencyMonitors.create(
+         flow, inKey, outKey, createLatencyStatsSink(name, statsInterval), dropTimeout, histogram, (m, n) -> m);
+   }
+
+   public <In, Out, K, Mat> Flow<In, Out, Mat> createLatencyMonitor(
+      String name, Flow<In, Out, Mat> flow, Function<In, K> inKey, Function<Out, K> outKey,
+      Duration statsInterval, Duration dropTimeout) {
+
+      return createLatencyMonitor(name, flow, inKey, outKey, statsInterval, dropTimeout, false);
+   }
+
+   public <In, Out, K, Mat> Flow<In, Out, Mat> createLatencyMonitor(
+      String name, Flow<In, Out, Mat> flow, Function<In, K> inKey, Function<Out, K> outKey, Duration statsInterval) {
+
+      return createLatencyMonitor(name, flow, inKey, outKey, statsInterval, DEFAULT_DROP_TIMEOUT);
+   }
+
+   public <In, Out, K, Mat> Flow<In, Out, Mat> createLatencyMonitor(
+      String name, Flow<In, Out, Mat> flow, Function<In, K> inKey, Function<Out, K> outKey) {
+
+      return createLatencyMonitor(name, flow, inKey, outKey, Duration.ofSeconds(30));
+   }
+
 }
@@ -0,0 +1,114 @@
+package alpakkeer.core.stream.codec;
+
+import alpakkeer.core.stream.Record;
+import alpakkeer.core.stream.context.NoRecordContext;
+import alpakkeer.core.stream.context.RecordContext;
+import alpakkeer.core.util.Operators;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Base class for codecs which stream records through a Jackson generator/ parser. Readers and writers are cached
+ * per value type, thus binding a value does not require any reflection after the first record of a type.
+ */
+abstract class JacksonRecordCodec implements RecordCodec {
+
+   private final ObjectMapper om;
+
+   private final JsonFactory factory;
+
+   private final RecordTypeRegistry types;
+
+   private final ConcurrentHashMap<Class<?>, ObjectReader> readers;
+
+   private final ConcurrentHashMap<Class<?>, ObjectWriter> writers;
+
+   protected JacksonRecordCodec(ObjectMapper om, JsonFactory factory, RecordTypeRegistry types) {
+      this.om = om;
+      this.factory = factory;
+      this.types = types;
+      this.readers = new ConcurrentHashMap<>();
+      this.writers = new ConcurrentHashMap<>();
+   }
+
+   protected abstract void writeRecord(JsonGenerator gen, Record<?, ?> record) throws IOException;
+
+   protected abstract Record<Object, NoRecordContext> readRecord(JsonParser p) throws IOException;
+
+   @Override
+   public <V, C extends RecordContext> byte[] encode(Record<V, C> record) {
+      return Operators.suppressExceptions(() -> {
+         try (var bytes = new ByteArrayBuilder(); var gen = factory.createGenerator(bytes)) {
+            writeRecord(gen, record);
+            gen.flush();
+            return bytes.toByteArray();
+         }
+      });
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public <V> Record<V, NoRecordContext> decode(byte[] bytes) {
+      return Operators.suppressExceptions(() -> {
+         try (var p = factory.createParser(bytes)) {
+            p.nextToken();
+            return (Record<V, NoRecordContext>) (Record<?, NoRecordContext>) readRecord(p);
+         }
+      });
+   }
+
+   @Override
+   public byte[] encodeValue(Object value) {
+      return Operators.suppressExceptions(() -> {
+         try (var bytes = new ByteArrayBuilder(); var gen = factory.createGenerator(bytes)) {
+            writeValue(gen, value);
+            gen.flush();
+            return bytes.toByteArray();
+         }
+      });
+   }
+
+   @Override
+   public <V> V decodeValue(byte[] bytes, Class<V> type) {
+      return Operators.suppressExceptions(() -> {
+         try (var p = factory.createParser(bytes)) {
+            p.nextToken();
+            return readValue(p, type);
+         }
+      });
+   }
+
+   @Override
+   public RecordTypeRegistry getTypes() {
+      return types;
+   }
+
+   protected void writeValue(JsonGenerator gen, Object value) throws IOException {
+      if (value == null) {
+         gen.writeNull();
+      } else {
+         writers
+            .computeIfAbsent(value.getClass(), type -> om.writerFor(type).without(SerializationFeature.INDENT_OUTPUT))
+            .writeValue(gen, value);
+      }
+   }
+
+   /**
+    * Binds the value starting at the parser's current token. Afterwards the parser points to the last token of the value.
+    */
+   protected <V> V readValue(JsonParser p, Class<V> type) throws IOException {
+      return readers
+         .computeIfAbsent(type, om::readerFor)
+         .readValue(p);
+   }
+
+}
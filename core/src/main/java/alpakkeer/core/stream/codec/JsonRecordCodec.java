@@ -0,0 +1,108 @@
+package alpakkeer.core.stream.codec;
+
+import alpakkeer.core.stream.Record;
+import alpakkeer.core.stream.context.NoRecordContext;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+
+/**
+ * Encodes records as JSON objects with the fields `key`, `type` and `value`. The format is compatible with
+ * the Jackson serializers of {@link Record}, but records are read with a streaming parser instead of a tree.
+ */
+public final class JsonRecordCodec extends JacksonRecordCodec {
+
+   private static final String KEY = "key";
+
+   private static final String TYPE = "type";
+
+   private static final String VALUE = "value";
+
+   private JsonRecordCodec(ObjectMapper om, RecordTypeRegistry types) {
+      super(om, om.getFactory(), types);
+   }
+
+   public static JsonRecordCodec apply(ObjectMapper om, RecordTypeRegistry types) {
+      return new JsonRecordCodec(om, types);
+   }
+
+   public static JsonRecordCodec apply(ObjectMapper om) {
+      return apply(om, RecordTypeRegistry.apply());
+   }
+
+   @Override
+   protected void writeRecord(JsonGenerator gen, Record<?, ?> record) throws IOException {
+      gen.writeStartObject();
+      gen.writeStringField(KEY, record.getKey());
+      gen.writeStringField(TYPE, record.getValueType().getName());
+      gen.writeFieldName(VALUE);
+      writeValue(gen, record.getValue());
+      gen.writeEndObject();
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   protected Record<Object, NoRecordContext> readRecord(JsonParser p) throws IOException {
+      if (p.currentToken() != JsonToken.START_OBJECT) {
+         throw new IOException(String.format("Expected start of record object, but found `%s`", p.currentToken()));
+      }
+
+      String key = null;
+      Class<?> type = null;
+      Object value = null;
+      TokenBuffer buffered = null;
+
+      while (p.nextToken() == JsonToken.FIELD_NAME) {
+         var field = p.getCurrentName();
+         p.nextToken();
+
+         switch (field) {
+            case KEY:
+               key = p.getValueAsString();
+               break;
+            case TYPE:
+               type = getTypes().getType(p.getText());
+               break;
+            case VALUE:
+               if (type != null) {
+                  value = readValue(p, type);
+               } else {
+                  // value precedes type information, it can only be bound after the type is known
+                  buffered = new TokenBuffer(p);
+                  buffered.copyCurrentStructure(p);
+               }
+               break;
+            default:
+               p.skipChildren();
+         }
+      }
+
+      if (type == null) {
+         throw new IOException("Record does not contain type information");
+      }
+
+      if (buffered != null) {
+         try (var bp = buffered.asParser()) {
+            bp.nextToken();
+            value = readValue(bp, type);
+         }
+      }
+
+      return Record.apply(value, key, NoRecordContext.INSTANCE, (Class<Object>) type, NoRecordContext.class);
+   }
+
+   @Override
+   public String getFileExtension() {
+      return "json";
+   }
+
+   @Override
+   public boolean isBinary() {
+      return false;
+   }
+
+}
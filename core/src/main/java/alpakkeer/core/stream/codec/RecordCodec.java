@@ -0,0 +1,70 @@
+package alpakkeer.core.stream.codec;
+
+import alpakkeer.core.stream.Record;
+import alpakkeer.core.stream.context.NoRecordContext;
+import alpakkeer.core.stream.context.RecordContext;
+
+/**
+ * A codec is used by messaging adapters and context stores to transform records into their wire-format and back.
+ */
+public interface RecordCodec {
+
+   /**
+    * Serializes a record including its key and value type information. The record's context is not serialized.
+    *
+    * @param record The record to serialize
+    * @param <V> The type of the record's value
+    * @param <C> The type of the record's context
+    * @return The serialized record
+    */
+   <V, C extends RecordContext> byte[] encode(Record<V, C> record);
+
+   /**
+    * De-serializes a record which has been serialized with {@link #encode(Record)}.
+    *
+    * @param bytes The serialized record
+    * @param <V> The type of the record's value
+    * @return The de-serialized record, without context
+    */
+   <V> Record<V, NoRecordContext> decode(byte[] bytes);
+
+   /**
+    * Serializes a plain value without any type information.
+    *
+    * @param value The value to serialize
+    * @return The serialized value
+    */
+   byte[] encodeValue(Object value);
+
+   /**
+    * De-serializes a plain value which has been serialized with {@link #encodeValue(Object)}.
+    *
+    * @param bytes The serialized value
+    * @param type The expected type of the value
+    * @param <V> The type of the value
+    * @return The de-serialized value
+    */
+   <V> V decodeValue(byte[] bytes, Class<V> type);
+
+   /**
+    * The registry used by the codec to resolve value types.
+    *
+    * @return The type registry
+    */
+   RecordTypeRegistry getTypes();
+
+   /**
+    * The file extension which should be used when encoded records are stored in files.
+    *
+    * @return The file extension, without leading dot
+    */
+   String getFileExtension();
+
+   /**
+    * Indicates whether the codec produces binary output; if false, output is UTF-8 encoded text.
+    *
+    * @return True if the codec's output is binary
+    */
+   boolean isBinary();
+
+}
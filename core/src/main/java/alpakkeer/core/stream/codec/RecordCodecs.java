@@ -0,0 +1,40 @@
+package alpakkeer.core.stream.codec;
+
+import alpakkeer.config.RecordCodecConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public final class RecordCodecs {
+
+   private RecordCodecs() {
+
+   }
+
+   public static RecordCodec json(ObjectMapper om) {
+      return JsonRecordCodec.apply(om);
+   }
+
+   public static RecordCodec smile(ObjectMapper om, RecordTypeRegistry types) {
+      return SmileRecordCodec.apply(om, types);
+   }
+
+   public static RecordCodec createFromConfiguration(RecordCodecConfiguration configuration, ObjectMapper om) {
+      var types = RecordTypeRegistry.apply();
+      var type = configuration.getType().toLowerCase();
+
+      configuration
+         .getTypes()
+         .forEach(t -> types.register(t.getId(), t.getClassName()));
+
+      switch (type) {
+         case "json":
+            return JsonRecordCodec.apply(om, types);
+         case "smile":
+         case "binary":
+            return SmileRecordCodec.apply(om, types);
+         default:
+            throw new RuntimeException(String.format(
+               "'%s' is an invalid record codec type; valid types are: 'json', 'smile'", type));
+      }
+   }
+
+}
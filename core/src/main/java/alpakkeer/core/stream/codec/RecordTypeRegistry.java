@@ -0,0 +1,69 @@
+package alpakkeer.core.stream.codec;
+
+import alpakkeer.core.util.Operators;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves value types of records. Types can be registered with a small integer id which is used by binary codecs
+ * instead of the fully-qualified class name. Lookups by class name are cached to avoid `Class.forName` per record.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RecordTypeRegistry {
+
+   private final ConcurrentHashMap<Integer, Class<?>> typesById;
+
+   private final ConcurrentHashMap<Class<?>, Integer> idsByType;
+
+   private final ConcurrentHashMap<String, Class<?>> typesByName;
+
+   public static RecordTypeRegistry apply() {
+      return new RecordTypeRegistry(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+   }
+
+   public synchronized RecordTypeRegistry register(int id, Class<?> type) {
+      var existing = typesById.get(id);
+
+      Operators.require(
+         existing == null || existing.equals(type),
+         "Type id `%d` is already registered for `%s`", id, existing != null ? existing.getName() : "");
+
+      Operators.require(
+         !idsByType.containsKey(type) || idsByType.get(type) == id,
+         "Type `%s` is already registered with id `%d`", type.getName(), idsByType.get(type));
+
+      typesById.put(id, type);
+      idsByType.put(type, id);
+      typesByName.put(type.getName(), type);
+
+      return this;
+   }
+
+   public RecordTypeRegistry register(int id, String className) {
+      return register(id, getType(className));
+   }
+
+   public Optional<Integer> getId(Class<?> type) {
+      return Optional.ofNullable(idsByType.get(type));
+   }
+
+   public Class<?> getType(int id) {
+      var type = typesById.get(id);
+
+      if (type == null) {
+         throw new IllegalArgumentException(String.format("No record type registered with id `%d`", id));
+      }
+
+      return type;
+   }
+
+   public Class<?> getType(String className) {
+      return typesByName.computeIfAbsent(className, name -> Operators.suppressExceptions(
+         () -> Class.forName(name),
+         String.format("Unable to resolve record type `%s`", name)));
+   }
+
+}
@@ -0,0 +1,86 @@
+package alpakkeer.core.stream.codec;
+
+import alpakkeer.core.stream.Record;
+import alpakkeer.core.stream.context.NoRecordContext;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.IOException;
+
+/**
+ * Encodes records as compact binary Smile arrays `[type, key, value]`. If the value type is registered in the
+ * {@link RecordTypeRegistry} the type is written as its small integer id, otherwise the class name is written.
+ */
+public final class SmileRecordCodec extends JacksonRecordCodec {
+
+   private SmileRecordCodec(ObjectMapper om, RecordTypeRegistry types) {
+      super(om, new SmileFactory(), types);
+   }
+
+   public static SmileRecordCodec apply(ObjectMapper om, RecordTypeRegistry types) {
+      return new SmileRecordCodec(om, types);
+   }
+
+   public static SmileRecordCodec apply(ObjectMapper om) {
+      return apply(om, RecordTypeRegistry.apply());
+   }
+
+   @Override
+   protected void writeRecord(JsonGenerator gen, Record<?, ?> record) throws IOException {
+      var typeId = getTypes().getId(record.getValueType());
+
+      gen.writeStartArray();
+
+      if (typeId.isPresent()) {
+         gen.writeNumber(typeId.get());
+      } else {
+         gen.writeString(record.getValueType().getName());
+      }
+
+      gen.writeString(record.getKey());
+      writeValue(gen, record.getValue());
+      gen.writeEndArray();
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   protected Record<Object, NoRecordContext> readRecord(JsonParser p) throws IOException {
+      if (p.currentToken() != JsonToken.START_ARRAY) {
+         throw new IOException(String.format("Expected start of record array, but found `%s`", p.currentToken()));
+      }
+
+      Class<?> type;
+
+      if (p.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+         type = getTypes().getType(p.getIntValue());
+      } else {
+         type = getTypes().getType(p.getText());
+      }
+
+      p.nextToken();
+      var key = p.getValueAsString();
+
+      p.nextToken();
+      var value = readValue(p, type);
+
+      if (p.nextToken() != JsonToken.END_ARRAY) {
+         throw new IOException(String.format("Expected end of record array, but found `%s`", p.currentToken()));
+      }
+
+      return Record.apply(value, key, NoRecordContext.INSTANCE, (Class<Object>) type, NoRecordContext.class);
+   }
+
+   @Override
+   public String getFileExtension() {
+      return "smile";
+   }
+
+   @Override
+   public boolean isBinary() {
+      return true;
+   }
+
+}
@@ -1,11 +1,15 @@
 package alpakkeer.core.stream.context;
 
 import akka.Done;
+import alpakkeer.core.stream.Record;
+import alpakkeer.core.util.Operators;
 import lombok.AllArgsConstructor;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public final class CommittableRecordContexts {
 
@@ -29,6 +33,23 @@ public final class CommittableRecordContexts {
       return SimpleCommittableRecordContext.apply(commit);
    }
 
+   /**
+    * Commits all committable contexts of the given records.
+    *
+    * @param records The records
+    * @return CompletionStage which completes when all contexts are committed
+    */
+   public static CompletionStage<Done> commitAll(List<? extends Record<?, ?>> records) {
+      var commits = records
+         .stream()
+         .map(Record::getContext)
+         .filter(context -> context instanceof CommittableRecordContext)
+         .map(context -> ((CommittableRecordContext) context).commit())
+         .collect(Collectors.toList());
+
+      return Operators.allOf(commits).thenApply(done -> Done.getInstance());
+   }
+
    public static CommittableRecordContext createFromRunnable(Runnable run) {
       return SimpleCommittableRecordContext.apply(() -> {
          run.run();
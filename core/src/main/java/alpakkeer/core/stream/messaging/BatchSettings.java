@@ -0,0 +1,25 @@
+package alpakkeer.core.stream.messaging;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Settings for batched publishing of records, see {@link StreamMessagingAdapter#recordsSink(String, BatchSettings)}.
+ */
+@Value
+@AllArgsConstructor(staticName = "apply")
+public class BatchSettings {
+
+   /**
+    * The maximum number of records within a batch.
+    */
+   int maxSize;
+
+   /**
+    * The maximum time a record waits for its batch to be completed.
+    */
+   Duration maxLinger;
+
+}
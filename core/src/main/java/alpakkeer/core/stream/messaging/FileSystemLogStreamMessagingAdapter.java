@@ -0,0 +1,171 @@
+package alpakkeer.core.stream.messaging;
+
+import akka.Done;
+import akka.NotUsed;
+import akka.actor.ActorSystem;
+import akka.japi.Pair;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Keep;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import alpakkeer.config.FileSystemLogConfiguration;
+import alpakkeer.config.FileSystemStreamMessagingConfiguration;
+import alpakkeer.core.stream.Record;
+import alpakkeer.core.stream.codec.RecordCodec;
+import alpakkeer.core.stream.context.CommittableRecordContext;
+import alpakkeer.core.stream.context.CommittableRecordContexts;
+import alpakkeer.core.stream.context.RecordContext;
+import alpakkeer.core.util.Operators;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A messaging adapter which stores each topic as a {@link SegmentedLog} within the working directory. In contrast
+ * to {@link FileSystemStreamMessagingAdapter} records are not deleted when they are committed; each consumer group
+ * reads the topic from its own committed offset.
+ *
+ * Puts complete when the record has been flushed to disk. Sources are signalled when records are appended by this
+ * adapter, thus the log must not be shared with other processes. Appends to a topic are executed in the order of the
+ * put calls, also if multiple puts are in flight.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class FileSystemLogStreamMessagingAdapter implements StreamMessagingAdapter {
+
+   private static final Logger LOG = LoggerFactory.getLogger(FileSystemLogStreamMessagingAdapter.class);
+
+   private static final int POLL_BATCH_SIZE = 256;
+
+   private final Path workingDirectory;
+
+   private final RecordCodec codec;
+
+   private final FileSystemLogConfiguration configuration;
+
+   private final ConcurrentHashMap<String, SegmentedLog> topics;
+
+   /**
+    * The latest pending append of each topic; the next append of a topic is chained to it.
+    */
+   private final ConcurrentHashMap<String, CompletableFuture<CompletionStage<Done>>> appends;
+
+   /**
+    * Executor for blocking file operations.
+    */
+   private final Executor executor;
+
+   public static FileSystemLogStreamMessagingAdapter apply(
+      ActorSystem system, RecordCodec codec, FileSystemStreamMessagingConfiguration config) {
+
+      var dispatcher = system.dispatchers().lookup(config.getDispatcher());
+      var adapter = new FileSystemLogStreamMessagingAdapter(
+         Path.of(config.getDirectory()), codec, config.getLog(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(),
+         dispatcher);
+
+      // flushes block while segments are written to disk, thus they run on the blocking dispatcher as well
+      system
+         .scheduler()
+         .scheduleWithFixedDelay(
+            config.getLog().getFlushInterval(), config.getLog().getFlushInterval(),
+            adapter::flush, dispatcher);
+
+      system.registerOnTermination(adapter::flush);
+
+      return adapter;
+   }
+
+   private SegmentedLog getLog(String topic) {
+      return topics.computeIfAbsent(topic, t -> SegmentedLog.apply(workingDirectory.resolve(t), configuration));
+   }
+
+   private void flush() {
+      topics.values().forEach(log -> Operators.ignoreExceptions(log::flush, LOG));
+   }
+
+   /**
+    * Appends the entries on the executor after the previous append of the topic has finished.
+    *
+    * @param topic  The topic
+    * @param append Appends the entries to the topic's log and returns a future which completes when they are flushed
+    * @return A future which completes when the entries are flushed
+    */
+   private CompletionStage<Done> append$internal(String topic, Function<SegmentedLog, CompletionStage<Done>> append) {
+      return appends
+         .compute(topic, (t, previous) -> (previous != null ? previous : CompletableFuture.<CompletionStage<Done>>completedFuture(null))
+            .handleAsync((result, ex) -> append.apply(getLog(topic)), executor))
+         .thenCompose(flushed -> flushed);
+   }
+
+   private CompletionStage<Done> putDocument$internal(String topic, Record<?, ?> record) {
+      return append$internal(topic, log -> log.append(codec.encode(record)))
+         .thenCompose(done -> CommittableRecordContexts.commitAll(List.of(record)));
+   }
+
+   private <R> Record<R, CommittableRecordContext> getDocument$internal(SegmentedLog.ConsumerGroup group, Pair<byte[], Long> entry) {
+      var context = CommittableRecordContexts.createFromRunnable(() -> group.commit(entry.second()));
+      return codec.<R>decode(entry.first()).withContext(context);
+   }
+
+   @Override
+   public <R, C extends RecordContext> CompletionStage<Done> putRecord(String topic, Record<R, C> record) {
+      return putDocument$internal(topic, record);
+   }
+
+   /**
+    * Appends all records to the log and flushes the log once for the whole batch.
+    */
+   @Override
+   public <R, C extends RecordContext> CompletionStage<Done> putRecords(String topic, List<Record<R, C>> records) {
+      return append$internal(topic, log -> {
+            var flushed = log.appendAll(records.stream().map(codec::encode).collect(Collectors.toList()));
+
+            log.flush();
+            return flushed;
+         })
+         .thenCompose(done -> CommittableRecordContexts.commitAll(records));
+   }
+
+   @Override
+   public <R, C extends RecordContext> Sink<Record<R, C>, CompletionStage<Done>> recordsSink(String topic) {
+      return this.<R, C>recordsFlow(topic).toMat(Sink.ignore(), Keep.right());
+   }
+
+   @Override
+   public <R, C extends RecordContext> Flow<Record<R, C>, Record<R, C>, NotUsed> recordsFlow(String topic) {
+      return recordsFlow(topic, configuration.getFlushRecords(), true);
+   }
+
+   @Override
+   public <T> CompletionStage<Optional<Record<T, CommittableRecordContext>>> getNextRecord(String topic, Class<T> recordType, String consumerGroup) {
+      var group = getLog(topic).getConsumerGroup(consumerGroup);
+
+      return CompletableFuture.completedFuture(group
+         .poll(1)
+         .stream()
+         .findFirst()
+         .map(entry -> getDocument$internal(group, entry)));
+   }
+
+   @Override
+   public <T> Source<Record<T, CommittableRecordContext>, NotUsed> recordsSource(String topic, Class<T> recordType, String consumerGroup) {
+      var group = getLog(topic).getConsumerGroup(consumerGroup);
+
+      return Source
+         .repeat(NotUsed.getInstance())
+         .mapAsync(1, n -> group.awaitEntries())
+         .mapConcat(done -> group.poll(POLL_BATCH_SIZE))
+         .map(entry -> getDocument$internal(group, entry));
+   }
+
+}
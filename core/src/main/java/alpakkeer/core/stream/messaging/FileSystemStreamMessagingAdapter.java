@@ -2,6 +2,7 @@ package alpakkeer.core.stream.messaging;
 
 import akka.Done;
 import akka.NotUsed;
+import akka.actor.ActorSystem;
 import akka.japi.Pair;
 import akka.stream.alpakka.file.DirectoryChange;
 import akka.stream.alpakka.file.javadsl.Directory;
@@ -12,9 +13,10 @@ import akka.stream.javadsl.Sink;
 import akka.stream.javadsl.Source;
 import alpakkeer.config.FileSystemStreamMessagingConfiguration;
 import alpakkeer.core.stream.Record;
+import alpakkeer.core.stream.codec.RecordCodec;
+import alpakkeer.core.stream.codec.RecordCodecs;
 import alpakkeer.core.stream.context.CommittableRecordContext;
 import alpakkeer.core.stream.context.CommittableRecordContexts;
-import alpakkeer.core.stream.context.NoRecordContext;
 import alpakkeer.core.stream.context.RecordContext;
 import alpakkeer.core.util.Operators;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -22,14 +24,14 @@ import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 
 @AllArgsConstructor(staticName = "apply")
 public final class FileSystemStreamMessagingAdapter implements StreamMessagingAdapter {
@@ -38,10 +40,23 @@ public final class FileSystemStreamMessagingAdapter implements StreamMessagingAd
 
    private final Path workingDirectory;
 
-   private final ObjectMapper om;
+   private final RecordCodec codec;
 
-   public static FileSystemStreamMessagingAdapter apply(ObjectMapper om, FileSystemStreamMessagingConfiguration config) {
-      return apply(Path.of(config.getDirectory()), om);
+   /**
+    * Executor for blocking file operations.
+    */
+   private final Executor executor;
+
+   public static FileSystemStreamMessagingAdapter apply(
+      ActorSystem system, RecordCodec codec, FileSystemStreamMessagingConfiguration config) {
+
+      return apply(Path.of(config.getDirectory()), codec, system.dispatchers().lookup(config.getDispatcher()));
+   }
+
+   public static FileSystemStreamMessagingAdapter apply(
+      ActorSystem system, ObjectMapper om, FileSystemStreamMessagingConfiguration config) {
+
+      return apply(system, RecordCodecs.json(om), config);
    }
 
    private Path getDirectory(String topic) {
@@ -50,31 +65,25 @@ public final class FileSystemStreamMessagingAdapter implements StreamMessagingAd
       return dir;
    }
 
-   private CompletionStage<Done> putDocument$internal(String topic, Record<?, ?> record) {
-      return Operators.suppressExceptions(() -> {
-         var filename = record.getKey() + ".json";
-
-         try (OutputStream os = Files.newOutputStream(getDirectory(topic).resolve(filename))) {
-            om.writeValue(os, record);
-         }
-
-         if (record.getContext() instanceof CommittableRecordContext) {
-            return ((CommittableRecordContext) record.getContext()).commit();
-         } else {
-            return CompletableFuture.completedFuture(Done.getInstance());
-         }
+   private void write$internal(Path directory, Record<?, ?> record) {
+      Operators.suppressExceptions(() -> {
+         var filename = record.getKey() + "." + codec.getFileExtension();
+         Files.write(directory.resolve(filename), codec.encode(record));
       });
    }
 
-   @SuppressWarnings("unchecked")
+   private CompletionStage<Done> putDocument$internal(String topic, Record<?, ?> record) {
+      return CompletableFuture
+         .runAsync(() -> write$internal(getDirectory(topic), record), executor)
+         .thenCompose(done -> CommittableRecordContexts.commitAll(List.of(record)));
+   }
+
    private <R> Record<R, CommittableRecordContext> getDocument$internal(Path path) {
       return Operators.suppressExceptions(() -> {
-         try (InputStream is = Files.newInputStream(path)) {
-            var context = CommittableRecordContexts.createFromRunnable(() -> Operators.ignoreExceptions(() -> Files.delete(path), LOG));
-            var record = (Record<R, NoRecordContext>) om.readValue(is, Record.class);
+         var context = CommittableRecordContexts.createFromRunnable(() -> Operators.ignoreExceptions(() -> Files.delete(path), LOG));
+         var record = codec.<R>decode(Files.readAllBytes(path));
 
-            return record.withContext(context);
-         }
+         return record.withContext(context);
       });
    }
 
@@ -83,21 +92,27 @@ public final class FileSystemStreamMessagingAdapter implements StreamMessagingAd
       return putDocument$internal(topic, record);
    }
 
+   /**
+    * Writes all record files of the batch before the contexts of the records are committed together.
+    */
+   @Override
+   public <R, C extends RecordContext> CompletionStage<Done> putRecords(String topic, List<Record<R, C>> records) {
+      return CompletableFuture
+         .runAsync(() -> {
+            var directory = getDirectory(topic);
+            records.forEach(record -> write$internal(directory, record));
+         }, executor)
+         .thenCompose(done -> CommittableRecordContexts.commitAll(records));
+   }
+
    @Override
    public <R, C extends RecordContext> Sink<Record<R, C>, CompletionStage<Done>> recordsSink(String topic) {
-      return Flow
-         .<Record<R, C>>create()
-         .toMat(Sink.foreach(record -> putDocument$internal(topic, record)), Keep.right());
+      return this.<R, C>recordsFlow(topic).toMat(Sink.ignore(), Keep.right());
    }
 
    @Override
    public <R, C extends RecordContext> Flow<Record<R, C>, Record<R, C>, NotUsed> recordsFlow(String topic) {
-      return Flow
-         .<Record<R, C>>create()
-         .map(record -> {
-            putDocument$internal(topic, record);
-            return record;
-         });
+      return recordsFlow(topic, 1, true);
    }
 
    @Override
@@ -0,0 +1,313 @@
+package alpakkeer.core.stream.messaging;
+
+import akka.Done;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An in-memory log of entries, stored in a growing ring buffer. Each consumer group reads the log with its own
+ * cursor; entries are released when all known consumer groups have read them. A new consumer group starts to read at
+ * the oldest retained entry.
+ *
+ * The ring buffer grows up to a maximum capacity. When it is full, appends wait until all consumer groups have read
+ * enough entries. As long as no consumer group exists, the oldest entries are dropped instead. A consumer group which
+ * did not poll within the group timeout is removed when its entries are needed; if it polls again, it continues at
+ * the oldest retained entry.
+ *
+ * @param <E> The type of the entries
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+final class InMemoryLog<E> {
+
+   private static final int INITIAL_CAPACITY = 1024;
+
+   private static final Duration DEFAULT_GROUP_TIMEOUT = Duration.ofMinutes(1);
+
+   private final Map<String, Cursor> cursors;
+
+   /**
+    * The appends which wait for capacity, in the order they were called.
+    */
+   private final ArrayDeque<BlockedAppend<E>> blocked;
+
+   private final int maxCapacity;
+
+   private final Duration groupTimeout;
+
+   private Object[] entries;
+
+   private long head;
+
+   private long tail;
+
+   private CompletableFuture<Done> appended;
+
+   /**
+    * Whether a check for timed out consumer groups is scheduled for the blocked appends.
+    */
+   private boolean expiryScheduled;
+
+   /**
+    * Creates a new log.
+    *
+    * @param maxCapacity  The maximum number of entries, rounded up to the next power of two
+    * @param groupTimeout The time after which a consumer group which doesn't poll may be removed
+    * @param <E>          The type of the entries
+    * @return The new log
+    */
+   public static <E> InMemoryLog<E> apply(int maxCapacity, Duration groupTimeout) {
+      if (maxCapacity < 1) {
+         throw new IllegalArgumentException("The maximum capacity of the log must be at least 1");
+      }
+
+      var capacity = maxCapacity == 1 ? 1 : Integer.highestOneBit(maxCapacity - 1) << 1;
+
+      return new InMemoryLog<>(
+         Maps.newHashMap(), new ArrayDeque<>(), capacity, groupTimeout,
+         new Object[Math.min(INITIAL_CAPACITY, capacity)], 0, 0, new CompletableFuture<>(), false);
+   }
+
+   public static <E> InMemoryLog<E> apply(int maxCapacity) {
+      return apply(maxCapacity, DEFAULT_GROUP_TIMEOUT);
+   }
+
+   /**
+    * Appends an entry to the log and signals waiting consumers.
+    *
+    * @param entry The entry
+    * @return A future which completes when the entry is stored
+    */
+   public CompletionStage<Done> append(E entry) {
+      return appendAll(Collections.singletonList(entry));
+   }
+
+   /**
+    * Appends multiple entries to the log and signals waiting consumers once.
+    *
+    * @param entries The entries
+    * @return A future which completes when all entries are stored
+    */
+   public CompletionStage<Done> appendAll(List<? extends E> entries) {
+      var stored = new CompletableFuture<Done>();
+      List<CompletableFuture<Done>> completed;
+
+      synchronized (this) {
+         blocked.add(new BlockedAppend<>(entries, stored, 0));
+         completed = store();
+         scheduleExpiry();
+      }
+
+      completed.forEach(f -> f.complete(Done.getInstance()));
+      return stored;
+   }
+
+   /**
+    * Returns a future which completes as soon as entries are available for the consumer group.
+    *
+    * @param group The name of the consumer group
+    * @return The future
+    */
+   public synchronized CompletionStage<Done> awaitEntries(String group) {
+      if (getCursor(group).position < head) {
+         return CompletableFuture.completedFuture(Done.getInstance());
+      } else {
+         return appended;
+      }
+   }
+
+   /**
+    * Reads the next entries of a consumer group.
+    *
+    * @param group The name of the consumer group
+    * @param max   The maximum number of entries to read
+    * @return The entries, may be empty
+    */
+   @SuppressWarnings("unchecked")
+   public List<E> poll(String group, int max) {
+      List<E> result;
+      List<CompletableFuture<Done>> completed;
+
+      synchronized (this) {
+         var cursor = getCursor(group);
+         cursor.polled = System.nanoTime();
+
+         var count = (int) Math.min(max, head - cursor.position);
+         result = Lists.newArrayListWithCapacity(count);
+
+         for (var i = 0; i < count; i++) {
+            result.add((E) entries[index(cursor.position++)]);
+         }
+
+         completed = blocked.isEmpty() ? Collections.emptyList() : store();
+      }
+
+      completed.forEach(f -> f.complete(Done.getInstance()));
+      return result;
+   }
+
+   /**
+    * @return The number of entries which are retained
+    */
+   public synchronized int getSize() {
+      return (int) (head - tail);
+   }
+
+   private Cursor getCursor(String group) {
+      return cursors.computeIfAbsent(group, g -> new Cursor(tail, System.nanoTime()));
+   }
+
+   /**
+    * Schedules a check for timed out consumer groups while appends are blocked, thus blocked appends don't wait
+    * forever for a consumer group which stopped polling.
+    */
+   private void scheduleExpiry() {
+      if (blocked.isEmpty() || expiryScheduled) {
+         return;
+      }
+
+      expiryScheduled = true;
+
+      CompletableFuture.runAsync(() -> {
+         List<CompletableFuture<Done>> completed;
+
+         synchronized (this) {
+            expiryScheduled = false;
+            completed = store();
+            scheduleExpiry();
+         }
+
+         completed.forEach(f -> f.complete(Done.getInstance()));
+      }, CompletableFuture.delayedExecutor(groupTimeout.toMillis(), TimeUnit.MILLISECONDS));
+   }
+
+   /**
+    * Removes the consumer groups which did not poll within the group timeout.
+    *
+    * @return True if a consumer group was removed
+    */
+   private boolean expireGroups() {
+      var now = System.nanoTime();
+      return cursors.values().removeIf(cursor -> now - cursor.polled >= groupTimeout.toNanos());
+   }
+
+   private int index(long sequence) {
+      return (int) (sequence & (entries.length - 1));
+   }
+
+   /**
+    * Stores the entries of blocked appends as long as the log has capacity. The returned futures of completed appends
+    * and of waiting consumers must be completed after the lock is released.
+    */
+   private List<CompletableFuture<Done>> store() {
+      var completed = Lists.<CompletableFuture<Done>>newArrayList();
+      var stored = false;
+
+      while (!blocked.isEmpty()) {
+         var append = blocked.peek();
+
+         if (append.position == append.entries.size()) {
+            blocked.poll();
+            completed.add(append.stored);
+         } else if (hasCapacity()) {
+            entries[index(head)] = append.entries.get(append.position++);
+            head++;
+            stored = true;
+         } else {
+            break;
+         }
+      }
+
+      if (stored) {
+         completed.add(appended);
+         appended = new CompletableFuture<>();
+      }
+
+      return completed;
+   }
+
+   private boolean hasCapacity() {
+      if (head - tail < entries.length) {
+         return true;
+      }
+
+      release();
+
+      if (head - tail < entries.length) {
+         return true;
+      } else if (entries.length < maxCapacity) {
+         grow();
+         return true;
+      } else if (cursors.isEmpty()) {
+         // without consumer groups, the oldest entry is dropped
+         entries[index(tail)] = null;
+         tail++;
+         return true;
+      } else if (expireGroups()) {
+         return hasCapacity();
+      } else {
+         return false;
+      }
+   }
+
+   private void release() {
+      if (cursors.isEmpty()) {
+         return;
+      }
+
+      var released = cursors.values().stream().mapToLong(c -> c.position).min().orElse(tail);
+
+      for (var sequence = tail; sequence < released; sequence++) {
+         entries[index(sequence)] = null;
+      }
+
+      tail = released;
+   }
+
+   private void grow() {
+      var grown = new Object[entries.length * 2];
+
+      for (var sequence = tail; sequence < head; sequence++) {
+         grown[(int) (sequence & (grown.length - 1))] = entries[index(sequence)];
+      }
+
+      entries = grown;
+   }
+
+   @AllArgsConstructor
+   private static final class Cursor {
+
+      private long position;
+
+      /**
+       * The time of the last poll, see {@link System#nanoTime()}.
+       */
+      private long polled;
+
+   }
+
+   @AllArgsConstructor
+   private static final class BlockedAppend<E> {
+
+      private final List<? extends E> entries;
+
+      private final CompletableFuture<Done> stored;
+
+      /**
+       * The index of the next entry to store.
+       */
+      private int position;
+
+   }
+
+}
@@ -6,65 +6,92 @@ import akka.stream.javadsl.Flow;
 import akka.stream.javadsl.Keep;
 import akka.stream.javadsl.Sink;
 import akka.stream.javadsl.Source;
+import alpakkeer.config.InMemoryMessagingConfiguration;
 import alpakkeer.core.stream.Record;
 import alpakkeer.core.stream.context.CommittableRecordContext;
 import alpakkeer.core.stream.context.CommittableRecordContexts;
 import alpakkeer.core.stream.context.NoRecordContext;
 import alpakkeer.core.stream.context.RecordContext;
-import alpakkeer.core.util.Operators;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 
 import java.time.Duration;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
-
-@AllArgsConstructor(staticName = "apply")
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * A messaging adapter which keeps each topic as an {@link InMemoryLog} of records. Records are stored as objects
+ * without serialization; each consumer group reads a topic with its own cursor, a record is consumed by one consumer
+ * of a group when it is read. Puts complete when the record is stored, i.e. they wait while the topic is full. Topics
+ * without consumer groups drop their oldest records instead; consumer groups which stopped polling are removed after
+ * the group timeout.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 public final class InMemoryStreamMessagingAdapter implements StreamMessagingAdapter {
 
-   private final ObjectMapper om;
+   private static final int POLL_BATCH_SIZE = 256;
 
-   private final Map<String, List<String>> topics;
+   private static final int DEFAULT_MAX_CAPACITY = 1 << 20;
 
-   public static InMemoryStreamMessagingAdapter apply(ObjectMapper om) {
-      return apply(om, Maps.newHashMap());
+   private static final Duration DEFAULT_GROUP_TIMEOUT = Duration.ofMinutes(1);
+
+   private static final CommittableRecordContext CONTEXT = CommittableRecordContexts.createFromRunnable(() -> {});
+
+   private final ConcurrentHashMap<String, InMemoryLog<Record<?, NoRecordContext>>> topics;
+
+   private final int maxCapacity;
+
+   private final Duration groupTimeout;
+
+   /**
+    * Creates a new adapter.
+    *
+    * @param maxCapacity  The maximum number of records per topic
+    * @param groupTimeout The time after which a consumer group which doesn't poll may be removed
+    * @return The new adapter
+    */
+   public static InMemoryStreamMessagingAdapter apply(int maxCapacity, Duration groupTimeout) {
+      return new InMemoryStreamMessagingAdapter(new ConcurrentHashMap<>(), maxCapacity, groupTimeout);
    }
 
-   private synchronized CompletionStage<Done> putDocument$internal(String topic, Record<?, ?> record) {
-      return Operators.suppressExceptions(() -> {
-         var json = om.writeValueAsString(record);
+   public static InMemoryStreamMessagingAdapter apply(int maxCapacity) {
+      return apply(maxCapacity, DEFAULT_GROUP_TIMEOUT);
+   }
 
-         if (!topics.containsKey(topic)) {
-            topics.put(topic, Lists.newArrayList());
-         }
+   public static InMemoryStreamMessagingAdapter apply(InMemoryMessagingConfiguration configuration) {
+      return apply(configuration.getMaxCapacity(), configuration.getGroupTimeout());
+   }
 
-         topics.get(topic).add(json);
+   public static InMemoryStreamMessagingAdapter apply() {
+      return apply(DEFAULT_MAX_CAPACITY);
+   }
 
-         if (record.getContext() instanceof CommittableRecordContext) {
-            return ((CommittableRecordContext) record.getContext()).commit();
-         } else {
-            return CompletableFuture.completedFuture(Done.getInstance());
-         }
-      });
+   /**
+    * @deprecated Records are not serialized anymore, use {@link #apply()} instead.
+    */
+   @Deprecated
+   public static InMemoryStreamMessagingAdapter apply(ObjectMapper om) {
+      return apply();
+   }
+
+   private InMemoryLog<Record<?, NoRecordContext>> getLog(String topic) {
+      return topics.computeIfAbsent(topic, t -> InMemoryLog.apply(maxCapacity, groupTimeout));
+   }
+
+   private CompletionStage<Done> putDocument$internal(String topic, Record<?, ?> record) {
+      return getLog(topic)
+         .append(record.withContext(NoRecordContext.INSTANCE, NoRecordContext.class))
+         .thenCompose(done -> CommittableRecordContexts.commitAll(List.of(record)));
    }
 
    @SuppressWarnings("unchecked")
-   private synchronized <R> Optional<Record<R, CommittableRecordContext>> getDocument$internal(String topic) {
-      return Operators.suppressExceptions(() -> {
-            var context = CommittableRecordContexts.createFromRunnable(() -> {});
-
-            if (topics.containsKey(topic) && !topics.get(topic).isEmpty()) {
-               var record = (Record<R, NoRecordContext>) om.readValue(topics.get(topic).remove(0), Record.class);
-               return Optional.of(record.withContext(context));
-            } else {
-               return Optional.empty();
-            }
-      });
+   private <R> Record<R, CommittableRecordContext> getDocument$internal(Record<?, NoRecordContext> record) {
+      return ((Record<R, NoRecordContext>) record).withContext(CONTEXT, CommittableRecordContext.class);
    }
 
    @Override
@@ -72,40 +99,44 @@ public final class InMemoryStreamMessagingAdapter implements StreamMessagingAdap
       return putDocument$internal(topic, record);
    }
 
+   @Override
+   public <R, C extends RecordContext> CompletionStage<Done> putRecords(String topic, List<Record<R, C>> records) {
+      return getLog(topic)
+         .appendAll(records
+            .stream()
+            .map(record -> record.withContext(NoRecordContext.INSTANCE, NoRecordContext.class))
+            .collect(Collectors.toList()))
+         .thenCompose(done -> CommittableRecordContexts.commitAll(records));
+   }
+
    @Override
    public <R, C extends RecordContext> Sink<Record<R, C>, CompletionStage<Done>> recordsSink(String topic) {
-      return Flow
-         .<Record<R,C>>create()
-         .toMat(Sink.foreach(record -> putDocument$internal(topic, record)), Keep.right());
+      return this.<R, C>recordsFlow(topic).toMat(Sink.ignore(), Keep.right());
    }
 
    @Override
    public <R, C extends RecordContext> Flow<Record<R, C>, Record<R, C>, NotUsed> recordsFlow(String topic) {
-      return Flow
-         .<Record<R,C>>create()
-         .map(record -> {
-            putDocument$internal(topic, record);
-            return record;
-         });
+      return recordsFlow(topic, 1, true);
    }
 
    @Override
    public <T> CompletionStage<Optional<Record<T, CommittableRecordContext>>> getNextRecord(String topic, Class<T> recordType, String consumerGroup) {
-      // TODO: Implement consumer id
-      return CompletableFuture.completedFuture(getDocument$internal(topic));
+      return CompletableFuture.completedFuture(getLog(topic)
+         .poll(consumerGroup, 1)
+         .stream()
+         .findFirst()
+         .map(this::getDocument$internal));
    }
 
    @Override
    public <T> Source<Record<T, CommittableRecordContext>, NotUsed> recordsSource(String topic, Class<T> recordType, String consumerGroup) {
-      // TODO: Implement consumer id
+      var log = getLog(topic);
+
       return Source
-         .repeat("tick")
-         .map(s -> this.<T>getDocument$internal(topic))
-         .grouped(500)
-         .throttle(1, Duration.ofSeconds(1))
-         .mapConcat(l -> l)
-         .filter(Optional::isPresent)
-         .map(Optional::get);
+         .repeat(NotUsed.getInstance())
+         .mapAsync(1, n -> log.awaitEntries(consumerGroup))
+         .mapConcat(done -> log.poll(consumerGroup, POLL_BATCH_SIZE))
+         .map(this::getDocument$internal);
    }
 
 }
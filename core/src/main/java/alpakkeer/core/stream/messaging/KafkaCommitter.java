@@ -0,0 +1,102 @@
+package alpakkeer.core.stream.messaging;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import akka.kafka.CommitterSettings;
+import akka.kafka.ConsumerMessage;
+import akka.kafka.javadsl.Committer;
+import akka.stream.OverflowStrategy;
+import akka.stream.QueueOfferResult;
+import akka.stream.javadsl.Keep;
+import akka.stream.javadsl.Source;
+import akka.stream.javadsl.SourceQueueWithComplete;
+import alpakkeer.config.KafkaCommitterConfiguration;
+import alpakkeer.core.stream.context.CommittableRecordContext;
+import alpakkeer.core.stream.context.CommittableRecordContexts;
+import alpakkeer.core.util.Operators;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Collects committed offsets of records and commits them in batches to Kafka using Alpakka's committer sink.
+ *
+ * A backpressured source queue accepts only one pending offer, thus offers are chained: Each offer is passed to the
+ * queue after the previous one was accepted. Concurrent commits wait for buffer space instead of failing.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+final class KafkaCommitter {
+
+   private final SourceQueueWithComplete<ConsumerMessage.Committable> queue;
+
+   /**
+    * Completes when the committer sink has committed all offsets and stopped.
+    */
+   private final CompletionStage<Done> done;
+
+   /**
+    * The latest offer to the queue.
+    */
+   private CompletionStage<Done> offers;
+
+   public static KafkaCommitter apply(ActorSystem system, KafkaCommitterConfiguration configuration) {
+      var settings = CommitterSettings
+         .create(system)
+         .withMaxBatch(configuration.getMaxBatch())
+         .withMaxInterval(configuration.getMaxInterval())
+         .withParallelism(configuration.getParallelism());
+
+      var committer = Source
+         .<ConsumerMessage.Committable>queue(configuration.getBufferSize(), OverflowStrategy.backpressure())
+         .toMat(Committer.sink(settings), Keep.both())
+         .run(system);
+
+      return new KafkaCommitter(
+         committer.first(), committer.second(), CompletableFuture.completedFuture(Done.getInstance()));
+   }
+
+   /**
+    * Creates a record context which enqueues the offset for the next commit batch. The returned CompletionStage
+    * completes as soon as the offset is accepted by the committer.
+    *
+    * @param offset The offset to commit
+    * @return The record context
+    */
+   public CommittableRecordContext createContext(ConsumerMessage.Committable offset) {
+      return CommittableRecordContexts.create(() -> commit(offset));
+   }
+
+   public synchronized CompletionStage<Done> commit(ConsumerMessage.Committable offset) {
+      offers = offers
+         .handle((d, e) -> Done.getInstance())
+         .thenCompose(d -> queue.offer(offset))
+         .thenCompose(result -> {
+            if (result.equals(QueueOfferResult.enqueued())) {
+               return CompletableFuture.completedFuture(Done.getInstance());
+            } else {
+               return Operators.completeExceptionally(new IllegalStateException(String.format(
+                  "Unable to commit offset, the committer returned `%s`", result)));
+            }
+         });
+
+      return offers;
+   }
+
+   /**
+    * Commits pending offsets and stops the committer. Offsets which are passed to the committer afterwards are not
+    * committed anymore.
+    *
+    * @return A CompletionStage which completes when the pending offsets are committed
+    */
+   public synchronized CompletionStage<Done> complete() {
+      return offers
+         .handle((d, e) -> Done.getInstance())
+         .thenCompose(d -> {
+            queue.complete();
+            return done;
+         });
+   }
+
+}
@@ -0,0 +1,78 @@
+package alpakkeer.core.stream.messaging;
+
+import akka.actor.ActorSystem;
+import akka.japi.Pair;
+import akka.kafka.ProducerSettings;
+import alpakkeer.core.util.Operators;
+import com.typesafe.config.Config;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import org.apache.kafka.clients.producer.Producer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Holds one shared Kafka producer per producer configuration profile. Producers are created on first use and closed
+ * when the actor system terminates.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+final class KafkaProducerPool<K, V> {
+
+   private static final Logger LOG = LoggerFactory.getLogger(KafkaProducerPool.class);
+
+   private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(60);
+
+   private final ConcurrentHashMap<Config, Pair<ProducerSettings<K, V>, Producer<K, V>>> producers;
+
+   public static <K, V> KafkaProducerPool<K, V> apply(ActorSystem system) {
+      var pool = new KafkaProducerPool<K, V>(new ConcurrentHashMap<>());
+      system.registerOnTermination(pool::close);
+      return pool;
+   }
+
+   /**
+    * Returns producer settings which use the shared producer of the profile. Stages created from these settings do
+    * not close the producer when they stop.
+    *
+    * @param profile The configuration profile of the producer
+    * @param create  Creates the settings for the profile, if no producer exists yet
+    * @return Producer settings including the shared producer
+    */
+   public ProducerSettings<K, V> getSettings(Config profile, Supplier<ProducerSettings<K, V>> create) {
+      return getOrCreate(profile, create).first();
+   }
+
+   /**
+    * Returns the shared producer of the profile.
+    *
+    * @param profile The configuration profile of the producer
+    * @param create  Creates the settings for the profile, if no producer exists yet
+    * @return The shared producer
+    */
+   public Producer<K, V> getProducer(Config profile, Supplier<ProducerSettings<K, V>> create) {
+      return getOrCreate(profile, create).second();
+   }
+
+   private Pair<ProducerSettings<K, V>, Producer<K, V>> getOrCreate(Config profile, Supplier<ProducerSettings<K, V>> create) {
+      return producers.computeIfAbsent(profile, p -> {
+         var settings = create.get();
+         var producer = settings.createKafkaProducer();
+
+         return Pair.create(
+            settings
+               .withProducer(producer)
+               .withCloseProducerOnStop(false),
+            producer);
+      });
+   }
+
+   private void close() {
+      producers.values().forEach(p -> Operators.ignoreExceptions(() -> p.second().close(CLOSE_TIMEOUT), LOG));
+      producers.clear();
+   }
+
+}
@@ -0,0 +1,108 @@
+package alpakkeer.core.stream.messaging;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import akka.kafka.javadsl.Consumer;
+import akka.pattern.Patterns;
+import akka.stream.javadsl.Keep;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.SinkQueueWithCancel;
+import akka.stream.javadsl.Source;
+import alpakkeer.core.stream.Record;
+import alpakkeer.core.stream.context.CommittableRecordContext;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Keeps a long-running consumer for a topic and consumer group to serve single record requests. The consumer runs
+ * until the poller is shut down.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+final class KafkaRecordPoller {
+
+   private final ActorSystem system;
+
+   private final Consumer.Control control;
+
+   private final SinkQueueWithCancel<Record<Object, CommittableRecordContext>> queue;
+
+   /**
+    * The committer of the records' offsets; empty if the consumer uses Kafka's auto-commit.
+    */
+   private final Optional<KafkaCommitter> committer;
+
+   private final Duration timeout;
+
+   /**
+    * A pull request which did not complete within the timeout; its result is returned by the next request.
+    */
+   private CompletableFuture<Optional<Record<Object, CommittableRecordContext>>> pending;
+
+   /**
+    * Creates a new poller and starts its consumer.
+    *
+    * @param system    The actor system to run the consumer
+    * @param records   The records of the consumer
+    * @param committer The committer used by the record contexts, if any; it is completed when the poller is shut down
+    * @param timeout   The maximum time to wait for the next record
+    * @return The new poller
+    */
+   public static KafkaRecordPoller apply(
+      ActorSystem system, Source<Record<Object, CommittableRecordContext>, Consumer.Control> records,
+      Optional<KafkaCommitter> committer, Duration timeout) {
+
+      var consumer = records
+         .toMat(Sink.queue(), Keep.both())
+         .run(system);
+
+      return new KafkaRecordPoller(system, consumer.first(), consumer.second(), committer, timeout, null);
+   }
+
+   public synchronized CompletionStage<Optional<Record<Object, CommittableRecordContext>>> next() {
+      if (pending == null) {
+         pending = queue.pull().toCompletableFuture();
+      }
+
+      var current = pending;
+      var timedOut = Patterns.after(
+         timeout, system.scheduler(), system.dispatcher(),
+         () -> CompletableFuture.<Optional<Record<Object, CommittableRecordContext>>>completedFuture(null));
+
+      return current
+         .applyToEither(timedOut, result -> result)
+         .thenApply(result -> {
+            if (result == null) {
+               return Optional.empty();
+            } else {
+               synchronized (this) {
+                  if (pending == current) {
+                     pending = null;
+                  }
+               }
+
+               return result;
+            }
+         });
+   }
+
+   /**
+    * Stops fetching records, commits the pending offsets, if any, and shuts down the consumer. Offsets are committed
+    * through the consumer, thus it is shut down after the committer has completed.
+    *
+    * @return A CompletionStage which completes when the consumer is shut down
+    */
+   public CompletionStage<Done> shutdown() {
+      return control
+         .stop()
+         .handle((d, e) -> Done.getInstance())
+         .thenCompose(d -> committer.map(KafkaCommitter::complete).orElse(CompletableFuture.completedFuture(d)))
+         .handle((d, e) -> Done.getInstance())
+         .thenCompose(d -> control.shutdown());
+   }
+
+}
@@ -0,0 +1,78 @@
+package alpakkeer.core.stream.messaging;
+
+import alpakkeer.core.stream.Record;
+import alpakkeer.core.stream.codec.RecordCodec;
+import alpakkeer.core.stream.context.NoRecordContext;
+import lombok.AllArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Translates records from and to Kafka messages. Records are either written as a whole (`envelope`) or only the
+ * value is encoded while the value type is carried in a message header (`headers`); the record key is always
+ * used as the message key. Reading detects the format of each message.
+ */
+@AllArgsConstructor(staticName = "apply")
+final class KafkaRecordSerde {
+
+   static final String TYPE_HEADER = "alpakkeer-type";
+
+   private final RecordCodec codec;
+
+   private final boolean typeInHeaders;
+
+   public static KafkaRecordSerde apply(RecordCodec codec, String recordFormat) {
+      switch (recordFormat.toLowerCase()) {
+         case "envelope":
+            return apply(codec, false);
+         case "headers":
+            return apply(codec, true);
+         default:
+            throw new RuntimeException(String.format(
+               "'%s' is an invalid Kafka record format; valid formats are: 'envelope', 'headers'", recordFormat));
+      }
+   }
+
+   /**
+    * A serializer which encodes the record within the producer, directly from the record instance to the bytes
+    * sent to the broker.
+    */
+   public Serializer<Record<?, ?>> serializer() {
+      return new Serializer<>() {
+
+         @Override
+         public byte[] serialize(String topic, Record<?, ?> record) {
+            return codec.encode(record);
+         }
+
+         @Override
+         public byte[] serialize(String topic, Headers headers, Record<?, ?> record) {
+            if (typeInHeaders) {
+               headers.add(TYPE_HEADER, record.getValueType().getName().getBytes(StandardCharsets.UTF_8));
+               return codec.encodeValue(record.getValue());
+            } else {
+               return codec.encode(record);
+            }
+         }
+
+      };
+   }
+
+   @SuppressWarnings("unchecked")
+   public <T> Record<T, NoRecordContext> fromConsumerRecord(ConsumerRecord<String, byte[]> message) {
+      var header = message.headers().lastHeader(TYPE_HEADER);
+
+      if (header == null) {
+         return codec.decode(message.value());
+      } else {
+         var type = (Class<T>) codec.getTypes().getType(new String(header.value(), StandardCharsets.UTF_8));
+         var value = codec.decodeValue(message.value(), type);
+
+         return Record.apply(value, message.key(), NoRecordContext.INSTANCE, type, NoRecordContext.class);
+      }
+   }
+
+}
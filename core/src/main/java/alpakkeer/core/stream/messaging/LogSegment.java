@@ -0,0 +1,270 @@
+package alpakkeer.core.stream.messaging;
+
+import akka.japi.Pair;
+import alpakkeer.core.util.Operators;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * A memory-mapped segment file of a {@link SegmentedLog}. Each entry is stored as a 4-byte length and a 4-byte CRC32
+ * checksum followed by the entry's bytes; the unused remainder of the pre-allocated file is zeroed.
+ *
+ * Offsets are global byte positions within the log, the segment covers the offsets from its base offset up to the
+ * base offset plus its end position. Appends must be synchronized by the caller, reads are safe from any thread.
+ *
+ * Deleting a segment releases its mapping immediately instead of waiting for the buffer to be garbage collected,
+ * thus the disk space of deleted segments is freed; reads of a deleted segment return no entries.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+final class LogSegment {
+
+   private static final String SUFFIX = ".log";
+
+   private static final int LENGTH_SIZE = Integer.BYTES;
+
+   private static final int HEADER_SIZE = LENGTH_SIZE + Integer.BYTES;
+
+   private static final Logger LOG = LoggerFactory.getLogger(LogSegment.class);
+
+   private final Path file;
+
+   private final long baseOffset;
+
+   private final MappedByteBuffer buffer;
+
+   private volatile int end;
+
+   /**
+    * Guards the mapping against being released while it is read or forced.
+    */
+   private final ReadWriteLock lock;
+
+   private boolean deleted;
+
+   /**
+    * Creates a new, empty segment file.
+    *
+    * @param directory  The directory of the log
+    * @param baseOffset The offset of the first entry within the segment
+    * @param capacity   The size of the segment file in bytes
+    * @return The new segment
+    */
+   public static LogSegment create(Path directory, long baseOffset, int capacity) {
+      var file = directory.resolve(String.format("%020d%s", baseOffset, SUFFIX));
+
+      return Operators.suppressExceptions(() -> {
+         try (var channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new LogSegment(
+               file, baseOffset, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity), 0,
+               new ReentrantReadWriteLock(), false);
+         }
+      });
+   }
+
+   /**
+    * Opens an existing segment file and recovers its end position by scanning its entries. The segment is truncated
+    * at the first entry whose checksum does not match, e.g. an entry which was not completely written to disk.
+    *
+    * @param file The segment file
+    * @return The segment
+    */
+   public static LogSegment open(Path file) {
+      var baseOffset = Long.parseLong(file.getFileName().toString().replace(SUFFIX, ""));
+
+      return Operators.suppressExceptions(() -> {
+         try (var channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            var position = 0;
+
+            while (position + HEADER_SIZE <= buffer.capacity()) {
+               var length = buffer.getInt(position);
+
+               if (length <= 0 || (long) position + HEADER_SIZE + length > buffer.capacity()
+                  || buffer.getInt(position + LENGTH_SIZE) != checksum(buffer, position + HEADER_SIZE, length)) {
+
+                  break;
+               }
+
+               position += HEADER_SIZE + length;
+            }
+
+            if (position + LENGTH_SIZE <= buffer.capacity() && buffer.getInt(position) != 0) {
+               truncate(buffer, position);
+            }
+
+            return new LogSegment(file, baseOffset, buffer, position, new ReentrantReadWriteLock(), false);
+         }
+      });
+   }
+
+   public static boolean isSegment(Path file) {
+      return file.getFileName().toString().endsWith(SUFFIX);
+   }
+
+   /**
+    * Returns the size of a segment which is required to store an entry.
+    *
+    * @param length The length of the entry in bytes
+    * @return The required capacity
+    */
+   public static int getRequiredCapacity(int length) {
+      return HEADER_SIZE + length;
+   }
+
+   private static int checksum(MappedByteBuffer buffer, int position, int length) {
+      var source = buffer.duplicate();
+      source.position(position);
+      source.limit(position + length);
+
+      var crc = new CRC32();
+      crc.update(source);
+      return (int) crc.getValue();
+   }
+
+   /**
+    * Zeroes the segment from the position up to the last non-zero byte, thus the remainder of a corrupt entry cannot
+    * be mistaken for an entry after shorter entries have been appended at the position.
+    */
+   private static void truncate(MappedByteBuffer buffer, int position) {
+      var last = buffer.capacity() - 1;
+
+      while (last >= position && buffer.get(last) == 0) {
+         last--;
+      }
+
+      for (var i = position; i <= last; i++) {
+         buffer.put(i, (byte) 0);
+      }
+   }
+
+   public long getBaseOffset() {
+      return baseOffset;
+   }
+
+   public long getEndOffset() {
+      return baseOffset + end;
+   }
+
+   public boolean isEmpty() {
+      return end == 0;
+   }
+
+   public boolean canAppend(int length) {
+      return (long) end + HEADER_SIZE + length <= buffer.capacity();
+   }
+
+   /**
+    * Appends an entry to the segment. The entry's bytes and checksum are written before its length, the entry becomes
+    * visible to readers when the end position is updated.
+    *
+    * @param bytes The entry
+    * @return The offset after the entry
+    */
+   public long append(byte[] bytes) {
+      var position = end;
+      var target = buffer.duplicate();
+
+      var crc = new CRC32();
+      crc.update(bytes);
+
+      target.position(position + HEADER_SIZE);
+      target.put(bytes);
+      buffer.putInt(position + LENGTH_SIZE, (int) crc.getValue());
+      buffer.putInt(position, bytes.length);
+
+      end = position + HEADER_SIZE + bytes.length;
+      return getEndOffset();
+   }
+
+   /**
+    * Reads the entry which starts at the given offset.
+    *
+    * @param offset The offset of the entry
+    * @return The entry and the offset of the following entry; empty if the offset is not within the segment
+    */
+   public Optional<Pair<byte[], Long>> read(long offset) {
+      var position = (int) (offset - baseOffset);
+
+      if (offset < baseOffset || position >= end) {
+         return Optional.empty();
+      }
+
+      lock.readLock().lock();
+
+      try {
+         if (deleted) {
+            return Optional.empty();
+         }
+
+         var bytes = new byte[buffer.getInt(position)];
+         var source = buffer.duplicate();
+
+         source.position(position + HEADER_SIZE);
+         source.get(bytes);
+
+         return Optional.of(Pair.create(bytes, offset + HEADER_SIZE + bytes.length));
+      } finally {
+         lock.readLock().unlock();
+      }
+   }
+
+   public void force() {
+      lock.readLock().lock();
+
+      try {
+         if (!deleted) {
+            buffer.force();
+         }
+      } finally {
+         lock.readLock().unlock();
+      }
+   }
+
+   /**
+    * Releases the mapping of the segment and deletes its file.
+    */
+   public void delete() {
+      lock.writeLock().lock();
+
+      try {
+         if (!deleted) {
+            deleted = true;
+            unmap(buffer);
+         }
+      } finally {
+         lock.writeLock().unlock();
+      }
+
+      Operators.suppressExceptions(() -> Files.deleteIfExists(file));
+   }
+
+   /**
+    * Releases a mapping with the cleaner of the JDK, as Java has no public API to unmap a buffer. If the cleaner is
+    * not accessible, the mapping is released when the buffer is garbage collected.
+    */
+   private static void unmap(MappedByteBuffer buffer) {
+      try {
+         var field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+         field.setAccessible(true);
+
+         var unsafe = field.get(null);
+         unsafe.getClass().getMethod("invokeCleaner", ByteBuffer.class).invoke(unsafe, buffer);
+      } catch (Exception e) {
+         LOG.warn("Unable to unmap deleted log segment, the mapping is released by the garbage collector", e);
+      }
+   }
+
+}
@@ -3,6 +3,9 @@ package alpakkeer.core.stream.messaging;
 import akka.Done;
 import akka.NotUsed;
 import akka.actor.ActorSystem;
+import akka.actor.CoordinatedShutdown;
+import akka.japi.Pair;
+import akka.kafka.ConsumerMessage;
 import akka.kafka.ConsumerSettings;
 import akka.kafka.ProducerMessage;
 import akka.kafka.ProducerSettings;
@@ -15,40 +18,114 @@ import akka.stream.javadsl.Sink;
 import akka.stream.javadsl.Source;
 import alpakkeer.config.KafkaMessagingAdapterConfiguration;
 import alpakkeer.core.stream.Record;
+import alpakkeer.core.stream.codec.RecordCodec;
+import alpakkeer.core.stream.codec.RecordCodecs;
 import alpakkeer.core.stream.context.CommittableRecordContext;
 import alpakkeer.core.stream.context.CommittableRecordContexts;
-import alpakkeer.core.stream.context.NoRecordContext;
 import alpakkeer.core.stream.context.RecordContext;
+import alpakkeer.core.util.Operators;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-@AllArgsConstructor(staticName = "apply")
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 public final class PlainKafkaStreamMessagingAdapter implements StreamMessagingAdapter {
 
    private static final Logger LOG = LoggerFactory.getLogger(PlainKafkaStreamMessagingAdapter.class);
 
    private final ActorSystem system;
 
-   private final ObjectMapper om;
+   private final KafkaRecordSerde serde;
 
    private final KafkaMessagingAdapterConfiguration configuration;
 
+   private final ConcurrentHashMap<String, KafkaRecordPoller> pollers;
+
+   /**
+    * The controls of the running committable sources; the values complete when the consumers are shut down.
+    */
+   private final ConcurrentHashMap<Consumer.Control, CompletableFuture<Done>> consumers;
+
+   private final KafkaProducerPool<String, Record<?, ?>> producers;
+
+   public static PlainKafkaStreamMessagingAdapter apply(
+      ActorSystem system, RecordCodec codec, KafkaMessagingAdapterConfiguration configuration) {
+
+      var serde = KafkaRecordSerde.apply(codec, configuration.getRecordFormat());
+
+      var adapter = new PlainKafkaStreamMessagingAdapter(
+         system, serde, configuration, new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), KafkaProducerPool.apply(system));
+
+      CoordinatedShutdown
+         .get(system)
+         .addTask(CoordinatedShutdown.PhaseServiceStop(), "alpakkeer-stop-kafka-consumers", adapter::shutdown);
+
+      return adapter;
+   }
+
+   public static PlainKafkaStreamMessagingAdapter apply(
+      ActorSystem system, ObjectMapper om, KafkaMessagingAdapterConfiguration configuration) {
+
+      return apply(system, RecordCodecs.json(om), configuration);
+   }
+
+   private CompletionStage<Done> send$internal(String topic, Record<?, ?> record) {
+      var result = new CompletableFuture<Done>();
+
+      try {
+         getProducer().send(new ProducerRecord<>(topic, record.getKey(), record), (metadata, exception) -> {
+            if (exception != null) {
+               result.completeExceptionally(exception);
+            } else {
+               result.complete(Done.getInstance());
+            }
+         });
+      } catch (Exception e) {
+         result.completeExceptionally(e);
+      }
+
+      return result;
+   }
+
+   /**
+    * Sends the record with the shared producer, without materializing a stream.
+    */
    @Override
    public <R, C extends RecordContext> CompletionStage<Done> putRecord(String topic, Record<R, C> record) {
-      return Source
-         .single(record)
-         .toMat(recordsSink(topic), Keep.right())
-         .run(system);
+      return send$internal(topic, record).thenCompose(done -> CommittableRecordContexts.commitAll(List.of(record)));
+   }
+
+   /**
+    * Sends all records with the shared producer, which batches them into produce requests, and commits the contexts
+    * when all records are acknowledged.
+    */
+   @Override
+   public <R, C extends RecordContext> CompletionStage<Done> putRecords(String topic, List<Record<R, C>> records) {
+      var sends = records
+         .stream()
+         .map(record -> send$internal(topic, record))
+         .collect(Collectors.toList());
+
+      return Operators
+         .allOf(sends)
+         .thenCompose(done -> CommittableRecordContexts.commitAll(records));
    }
 
    @Override
@@ -58,15 +135,13 @@ public final class PlainKafkaStreamMessagingAdapter implements StreamMessagingAd
 
    @Override
    public <R, C extends RecordContext> Flow<Record<R, C>, Record<R, C>, NotUsed> recordsFlow(String topic) {
-      var settings = ProducerSettings
-         .create(configuration.getProducer(), new StringSerializer(), new StringSerializer())
-         .withBootstrapServers(configuration.getBootstrapServer());
+      var settings = producers.getSettings(configuration.getProducer(), this::createProducerSettings);
 
       return Flow
          .<Record<R, C>>create()
          .map(record -> ProducerMessage
             .single(
-               new ProducerRecord<>(topic, record.getKey(), om.writeValueAsString(record)),
+               new ProducerRecord<String, Record<?, ?>>(topic, record.getKey(), record),
                record))
          .via(Producer.flexiFlow(settings))
          .map(ProducerMessage.Results::passThrough)
@@ -79,25 +154,220 @@ public final class PlainKafkaStreamMessagingAdapter implements StreamMessagingAd
          });
    }
 
+   /**
+    * Serves the records from a long-running consumer per topic and consumer group. Like for all sources of the adapter,
+    * offsets are committed by the records' contexts if the committer is enabled; otherwise Kafka's auto-commit is used.
+    */
    @Override
+   @SuppressWarnings("unchecked")
    public <T> CompletionStage<Optional<Record<T, CommittableRecordContext>>> getNextRecord(String topic, Class<T> recordType, String consumerGroup) {
-      LOG.warn("putNextRecord is not implemented for PlainKafkaStreamMessagingAdapter");
-      return CompletableFuture.completedFuture(Optional.empty());
+      var poller = pollers.computeIfAbsent(String.format("%s/%s", topic, consumerGroup), key -> {
+         if (configuration.getCommitter().isEnabled()) {
+            var committer = KafkaCommitter.apply(system, configuration.getCommitter());
+
+            var records = Consumer
+               .committableSource(getConsumerSettings(consumerGroup, true), Subscriptions.topics(topic))
+               .map(message -> this.fromCommittableMessage(message, committer));
+
+            return KafkaRecordPoller.apply(system, records, Optional.of(committer), configuration.getNextRecordTimeout());
+         } else {
+            var records = Consumer
+               .plainSource(getConsumerSettings(consumerGroup, false), Subscriptions.topics(topic))
+               .map(this::fromConsumerRecord);
+
+            return KafkaRecordPoller.apply(system, records, Optional.empty(), configuration.getNextRecordTimeout());
+         }
+      });
+
+      return poller
+         .next()
+         .thenApply(record -> record.map(r -> (Record<T, CommittableRecordContext>) (Record<?, ?>) r));
    }
 
    @Override
-   @SuppressWarnings("unchecked")
    public <T> Source<Record<T, CommittableRecordContext>, NotUsed> recordsSource(String topic, Class<T> recordType, String consumerGroup) {
-      var settings = ConsumerSettings.create(configuration.getConsumer(), new StringDeserializer(), new StringDeserializer())
+      if (configuration.getCommitter().isEnabled()) {
+         return committableRecordsSource(topic, consumerGroup);
+      } else {
+         return Consumer
+            .plainSource(getConsumerSettings(consumerGroup, false), Subscriptions.topics(topic))
+            .mapMaterializedValue(c -> NotUsed.getInstance())
+            .map(this::<T>fromConsumerRecord);
+      }
+   }
+
+   /**
+    * Emits a sub-source for each partition which is assigned to the consumer; the sub-sources are committable if the
+    * committer is enabled, otherwise Kafka's auto-commit is used. The partition id is the Kafka partition number. As
+    * the partitions are defined by the topic, `parallelism` is the maximum number of partitions which may be assigned
+    * at once; the source fails if more partitions are assigned, as consumers of the source usually merge at most
+    * `parallelism` partition sources and would never pull the remaining ones.
+    */
+   @Override
+   public <T> Source<Pair<String, Source<Record<T, CommittableRecordContext>, NotUsed>>, NotUsed> partitionedRecordsSource(
+      String topic, Class<T> recordType, String consumerGroup, int parallelism) {
+
+      if (!configuration.getCommitter().isEnabled()) {
+         var assigned = new AtomicInteger();
+
+         return Consumer
+            .plainPartitionedSource(getConsumerSettings(consumerGroup, false), Subscriptions.topics(topic))
+            .mapMaterializedValue(c -> NotUsed.getInstance())
+            .map(partition -> {
+               checkAssigned(assigned, topic, parallelism);
+
+               var records = partition
+                  .second()
+                  .map(this::<T>fromConsumerRecord)
+                  .watchTermination((m, done) -> {
+                     done.whenComplete((d, e) -> assigned.decrementAndGet());
+                     return m;
+                  });
+
+               return Pair.create(String.valueOf(partition.first().partition()), records);
+            });
+      }
+
+      return Source
+         .single(NotUsed.getInstance())
+         .flatMapConcat(n -> {
+            var committer = KafkaCommitter.apply(system, configuration.getCommitter());
+            var assigned = new AtomicInteger();
+
+            return Consumer
+               .committablePartitionedSource(getConsumerSettings(consumerGroup, true), Subscriptions.topics(topic))
+               .map(partition -> {
+                  checkAssigned(assigned, topic, parallelism);
+
+                  var records = partition
+                     .second()
+                     .map(message -> this.<T>fromCommittableMessage(message, committer))
+                     .watchTermination((m, done) -> {
+                        // the sub-source of a revoked partition completes
+                        done.whenComplete((d, e) -> assigned.decrementAndGet());
+                        return m;
+                     });
+
+                  return Pair.create(String.valueOf(partition.first().partition()), records);
+               })
+               .watchTermination((control, done) -> watchConsumer(control, done, committer));
+         });
+   }
+
+   private static void checkAssigned(AtomicInteger assigned, String topic, int parallelism) {
+      if (assigned.incrementAndGet() > parallelism) {
+         throw new IllegalStateException(String.format(
+            "More than %d partitions of topic `%s` are assigned to the consumer, " +
+               "parallelism must not be lower than the number of partitions", parallelism, topic));
+      }
+   }
+
+   /**
+    * Creates a source whose record contexts commit the record's offset. Offsets are committed in batches by a
+    * committer which lives as long as the source.
+    */
+   private <T> Source<Record<T, CommittableRecordContext>, NotUsed> committableRecordsSource(String topic, String consumerGroup) {
+      return Source
+         .single(NotUsed.getInstance())
+         .flatMapConcat(n -> {
+            var committer = KafkaCommitter.apply(system, configuration.getCommitter());
+
+            return Consumer
+               .committableSource(getConsumerSettings(consumerGroup, true), Subscriptions.topics(topic))
+               .map(message -> this.<T>fromCommittableMessage(message, committer))
+               .watchTermination((control, done) -> watchConsumer(control, done, committer));
+         });
+   }
+
+   /**
+    * Completes the committer of a committable source when the source terminates. The consumer is shut down after
+    * the pending offsets are committed, as offsets are committed through the consumer.
+    */
+   private NotUsed watchConsumer(Consumer.Control control, CompletionStage<Done> done, KafkaCommitter committer) {
+      var stopped = new CompletableFuture<Done>();
+      consumers.put(control, stopped);
+
+      done
+         .handle((d, e) -> Done.getInstance())
+         .thenCompose(d -> committer.complete())
+         .handle((d, e) -> Done.getInstance())
+         .thenCompose(d -> control.shutdown())
+         .whenComplete((d, e) -> {
+            if (e != null) {
+               LOG.warn("An exception occurred while shutting down Kafka consumer", e);
+            }
+
+            consumers.remove(control);
+            stopped.complete(Done.getInstance());
+         });
+
+      return NotUsed.getInstance();
+   }
+
+   /**
+    * Drains all consumers of the adapter: The consumers stop fetching records, their pending offsets are committed
+    * and they are shut down afterwards.
+    */
+   private CompletionStage<Done> shutdown() {
+      var sources = consumers
+         .entrySet()
+         .stream()
+         .map(entry -> entry
+            .getKey()
+            .stop()
+            .handle((d, e) -> Done.getInstance())
+            .thenCompose(d -> entry.getValue()));
+
+      var polled = pollers
+         .values()
+         .stream()
+         .map(KafkaRecordPoller::shutdown);
+
+      return Operators
+         .allOf(Stream.concat(sources, polled).collect(Collectors.toList()))
+         .thenApply(done -> Done.getInstance());
+   }
+
+   /**
+    * Creates a record of a consumer which uses Kafka's auto-commit, thus committing its context has no effect.
+    */
+   private <T> Record<T, CommittableRecordContext> fromConsumerRecord(ConsumerRecord<String, byte[]> record) {
+      return serde
+         .<T>fromConsumerRecord(record)
+         .withContext(CommittableRecordContexts.createFromRunnable(() -> {
+         }));
+   }
+
+   private <T> Record<T, CommittableRecordContext> fromCommittableMessage(
+      ConsumerMessage.CommittableMessage<String, byte[]> message, KafkaCommitter committer) {
+
+      return serde
+         .<T>fromConsumerRecord(message.record())
+         .withContext(committer.createContext(message.committableOffset()));
+   }
+
+   private org.apache.kafka.clients.producer.Producer<String, Record<?, ?>> getProducer() {
+      return producers.getProducer(configuration.getProducer(), this::createProducerSettings);
+   }
+
+   private ProducerSettings<String, Record<?, ?>> createProducerSettings() {
+      return ProducerSettings
+         .create(configuration.getProducer(), new StringSerializer(), serde.serializer())
+         .withBootstrapServers(configuration.getBootstrapServer());
+   }
+
+   private ConsumerSettings<String, byte[]> getConsumerSettings(String consumerGroup, boolean committable) {
+      var settings = ConsumerSettings
+         .create(configuration.getConsumer(), new StringDeserializer(), new ByteArrayDeserializer())
          .withBootstrapServers(configuration.getBootstrapServer())
          .withGroupId(consumerGroup)
          .withProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
 
-      return Consumer
-         .plainSource(settings, Subscriptions.topics(topic))
-         .mapMaterializedValue(c -> NotUsed.getInstance())
-         .map(record -> (Record<T, NoRecordContext>) om.readValue(record.value(), Record.class))
-         .map(record -> record.withContext(CommittableRecordContexts.createFromRunnable(() -> {
-         })));
+      if (committable) {
+         return settings.withProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+      } else {
+         return settings;
+      }
    }
+
 }
@@ -0,0 +1,382 @@
+package alpakkeer.core.stream.messaging;
+
+import akka.Done;
+import akka.japi.Pair;
+import alpakkeer.config.FileSystemLogConfiguration;
+import alpakkeer.core.util.Operators;
+import com.google.common.collect.Lists;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * An append-only log of byte entries, stored in rolling {@link LogSegment}s within a directory. Each consumer group
+ * reads the log from its own offset which is stored in the `offsets` sub-directory.
+ *
+ * Appended entries are visible to readers immediately; the futures returned by {@link #append(byte[])} complete when
+ * the entry has been flushed to disk. Flushes happen after a configured number of appended entries or when
+ * {@link #flush()} is called, e.g. by a scheduler.
+ *
+ * After each flush, segments which only contain entries below the stored offsets of all consumer groups are deleted.
+ * As long as no consumer group exists, all segments are kept.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+final class SegmentedLog {
+
+   private static final String OFFSETS_DIRECTORY = "offsets";
+
+   private static final String TMP_SUFFIX = ".tmp";
+
+   private final Path directory;
+
+   private final FileSystemLogConfiguration configuration;
+
+   private final ConcurrentSkipListMap<Long, LogSegment> segments;
+
+   private final ConcurrentHashMap<String, ConsumerGroup> groups;
+
+   private final List<LogSegment> unflushedSegments;
+
+   private List<CompletableFuture<Done>> unflushed;
+
+   private int unflushedEntries;
+
+   private CompletableFuture<Done> appended;
+
+   private LogSegment active;
+
+   /**
+    * Opens the log within the directory or creates a new log if the directory contains no segments.
+    *
+    * @param directory     The directory of the log
+    * @param configuration The log's configuration
+    * @return The log
+    */
+   public static SegmentedLog apply(Path directory, FileSystemLogConfiguration configuration) {
+      Operators.suppressExceptions(() -> Files.createDirectories(directory.resolve(OFFSETS_DIRECTORY)));
+
+      var segments = new ConcurrentSkipListMap<Long, LogSegment>();
+
+      list(directory, LogSegment::isSegment)
+         .stream()
+         .map(LogSegment::open)
+         .forEach(segment -> segments.put(segment.getBaseOffset(), segment));
+
+      if (segments.isEmpty()) {
+         segments.put(0L, LogSegment.create(directory, 0, getSegmentSize(configuration, 0)));
+      }
+
+      var log = new SegmentedLog(
+         directory, configuration, segments, new ConcurrentHashMap<>(), Lists.newArrayList(),
+         Lists.newArrayList(), 0, new CompletableFuture<>(), segments.lastEntry().getValue());
+
+      // stored groups must be known before segments are deleted, even if they are not consumed yet
+      list(directory.resolve(OFFSETS_DIRECTORY), file -> !file.getFileName().toString().endsWith(TMP_SUFFIX))
+         .forEach(file -> log.getConsumerGroup(file.getFileName().toString()));
+
+      return log;
+   }
+
+   private static List<Path> list(Path directory, Predicate<Path> filter) {
+      return Operators.suppressExceptions(() -> {
+         try (var files = Files.list(directory)) {
+            return files.filter(filter).sorted().collect(Collectors.toList());
+         }
+      });
+   }
+
+   private static int getSegmentSize(FileSystemLogConfiguration configuration, int length) {
+      return (int) Math.max(configuration.getSegmentSize(), LogSegment.getRequiredCapacity(length));
+   }
+
+   /**
+    * Appends an entry to the log.
+    *
+    * @param bytes The entry
+    * @return A future which completes when the entry has been flushed to disk
+    */
+   public CompletionStage<Done> append(byte[] bytes) {
+      return appendAll(Collections.singletonList(bytes));
+   }
+
+   /**
+    * Appends multiple entries to the log.
+    *
+    * @param entries The entries
+    * @return A future which completes when all entries have been flushed to disk
+    */
+   public CompletionStage<Done> appendAll(List<byte[]> entries) {
+      var flushed = new CompletableFuture<Done>();
+      CompletableFuture<Done> signal;
+      boolean flush;
+
+      synchronized (this) {
+         for (var bytes : entries) {
+            if (!active.canAppend(bytes.length)) {
+               roll(bytes.length);
+            }
+
+            active.append(bytes);
+
+            if (!unflushedSegments.contains(active)) {
+               unflushedSegments.add(active);
+            }
+         }
+
+         unflushed.add(flushed);
+         unflushedEntries += entries.size();
+         flush = unflushedEntries >= configuration.getFlushRecords();
+
+         signal = appended;
+         appended = new CompletableFuture<>();
+      }
+
+      signal.complete(Done.getInstance());
+
+      if (flush) {
+         flush();
+      }
+
+      return flushed;
+   }
+
+   /**
+    * Returns a future which completes as soon as the log contains entries at or beyond the given offset.
+    *
+    * @param offset The offset
+    * @return The future
+    */
+   public synchronized CompletionStage<Done> awaitEntries(long offset) {
+      if (active.getEndOffset() > offset) {
+         return CompletableFuture.completedFuture(Done.getInstance());
+      } else {
+         return appended;
+      }
+   }
+
+   /**
+    * Flushes appended entries and committed offsets to disk and deletes the segments which are consumed by all
+    * consumer groups.
+    */
+   public void flush() {
+      List<LogSegment> segments;
+      List<CompletableFuture<Done>> flushed;
+
+      synchronized (this) {
+         segments = Lists.newArrayList(unflushedSegments);
+         flushed = unflushed;
+
+         unflushedSegments.clear();
+         unflushed = Lists.newArrayList();
+         unflushedEntries = 0;
+      }
+
+      try {
+         segments.forEach(LogSegment::force);
+         groups.values().forEach(ConsumerGroup::persist);
+         flushed.forEach(f -> f.complete(Done.getInstance()));
+      } catch (Exception e) {
+         flushed.forEach(f -> f.completeExceptionally(e));
+      }
+
+      deleteConsumedSegments();
+   }
+
+   /**
+    * @return The offset of the first entry which is still stored
+    */
+   public long getStartOffset() {
+      return segments.firstKey();
+   }
+
+   /**
+    * Deletes the segments whose entries are below the stored offsets of all consumer groups. The active segment is
+    * never deleted.
+    */
+   private void deleteConsumedSegments() {
+      var consumed = groups.values().stream().mapToLong(ConsumerGroup::getPersisted).min();
+
+      if (consumed.isEmpty()) {
+         return;
+      }
+
+      synchronized (this) {
+         while (segments.size() > 1) {
+            var segment = segments.firstEntry().getValue();
+
+            if (segment == active || segment.getEndOffset() > consumed.getAsLong()) {
+               break;
+            }
+
+            segments.remove(segment.getBaseOffset());
+            unflushedSegments.remove(segment);
+            segment.delete();
+         }
+      }
+   }
+
+   /**
+    * Returns the consumer group with the given name. A new group starts to read at the beginning of the log.
+    *
+    * @param name The name of the consumer group
+    * @return The consumer group
+    */
+   public ConsumerGroup getConsumerGroup(String name) {
+      return groups.computeIfAbsent(name, n -> ConsumerGroup.apply(this, directory.resolve(OFFSETS_DIRECTORY).resolve(n)));
+   }
+
+   private Optional<Pair<byte[], Long>> read(long offset) {
+      var entry = segments.floorEntry(offset);
+
+      if (entry == null) {
+         return Optional.empty();
+      }
+
+      var result = entry.getValue().read(offset);
+      var next = segments.higherEntry(offset);
+
+      if (result.isEmpty() && next != null) {
+         // a segment which was truncated during recovery ends before the next segment starts
+         return next.getValue().read(next.getKey());
+      } else {
+         return result;
+      }
+   }
+
+   private void roll(int length) {
+      var baseOffset = active.getEndOffset();
+
+      if (active.isEmpty()) {
+         segments.remove(active.getBaseOffset());
+         unflushedSegments.remove(active);
+         active.delete();
+      }
+
+      active = LogSegment.create(directory, baseOffset, getSegmentSize(configuration, length));
+      segments.put(baseOffset, active);
+   }
+
+   /**
+    * The read position and the committed offset of a consumer group. Records which are read are not available to
+    * other consumers of the same group; committed offsets are stored when the log is flushed.
+    */
+   @AllArgsConstructor(access = AccessLevel.PRIVATE)
+   static final class ConsumerGroup {
+
+      private final SegmentedLog log;
+
+      private final Path file;
+
+      private long position;
+
+      private long committed;
+
+      /**
+       * The committed offset which is stored on disk.
+       */
+      private long persisted;
+
+      private boolean dirty;
+
+      private static ConsumerGroup apply(SegmentedLog log, Path file) {
+         var exists = Files.exists(file);
+         var offset = exists
+            ? Operators.suppressExceptions(() -> ByteBuffer.wrap(Files.readAllBytes(file)).getLong())
+            : log.getStartOffset();
+
+         // a new group is persisted with the next flush, thus segments are retained for it from now on
+         return new ConsumerGroup(log, file, offset, offset, offset, !exists);
+      }
+
+      /**
+       * Returns a future which completes as soon as entries are available for the group.
+       *
+       * @return The future
+       */
+      public CompletionStage<Done> awaitEntries() {
+         return log.awaitEntries(getPosition());
+      }
+
+      /**
+       * Reads the next entries of the group.
+       *
+       * @param max The maximum number of entries to read
+       * @return The entries and the offsets after each entry, which can be passed to {@link #commit(long)}
+       */
+      public synchronized List<Pair<byte[], Long>> poll(int max) {
+         var result = Lists.<Pair<byte[], Long>>newArrayList();
+
+         // entries of a new group might have been deleted before the group was registered
+         position = Math.max(position, log.getStartOffset());
+
+         while (result.size() < max) {
+            var entry = log.read(position);
+
+            if (entry.isEmpty()) {
+               break;
+            }
+
+            position = entry.get().second();
+            result.add(entry.get());
+         }
+
+         return result;
+      }
+
+      /**
+       * Marks all entries before the given offset as processed.
+       *
+       * @param offset The offset after the last processed entry
+       */
+      public synchronized void commit(long offset) {
+         if (offset > committed) {
+            committed = offset;
+            dirty = true;
+         }
+      }
+
+      private synchronized long getPosition() {
+         return position;
+      }
+
+      private synchronized long getPersisted() {
+         return persisted;
+      }
+
+      private synchronized void persist() {
+         if (dirty) {
+            Operators.suppressExceptions(() -> {
+               var tmp = file.resolveSibling(file.getFileName() + TMP_SUFFIX);
+
+               // the offset must be on disk before the move, otherwise a crash might leave an empty or stale offsets file
+               try (var channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                  channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, committed));
+                  channel.force(true);
+               }
+
+               Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            });
+
+            persisted = committed;
+            dirty = false;
+         }
+      }
+
+   }
+
+}
@@ -3,6 +3,7 @@ package alpakkeer.core.stream.messaging;
 import akka.Done;
 import akka.NotUsed;
 import akka.japi.Function;
+import akka.japi.Pair;
 import akka.stream.javadsl.Flow;
 import akka.stream.javadsl.Keep;
 import akka.stream.javadsl.Sink;
@@ -11,10 +12,14 @@ import alpakkeer.core.stream.Record;
 import alpakkeer.core.stream.context.CommittableRecordContext;
 import alpakkeer.core.stream.context.NoRecordContext;
 import alpakkeer.core.stream.context.RecordContext;
+import alpakkeer.core.util.Operators;
 
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
 
 public interface StreamMessagingAdapter {
 
@@ -29,6 +34,25 @@ public interface StreamMessagingAdapter {
     */
    <R, C extends RecordContext> CompletionStage<Done> putRecord(String topic, Record<R, C> record);
 
+   /**
+    * Puts multiple records into a messaging topic. Adapters should write the records within a single operation and
+    * commit their contexts together once the records are written.
+    *
+    * @param topic The name of the topic
+    * @param records The records to put into the topic
+    * @param <R> The type of the records
+    * @param <C> The record context
+    * @return CompletionStage which completes when all records are put and their contexts are committed
+    */
+   default <R, C extends RecordContext> CompletionStage<Done> putRecords(String topic, List<Record<R, C>> records) {
+      var puts = records
+         .stream()
+         .map(record -> putRecord(topic, record))
+         .collect(Collectors.toList());
+
+      return Operators.allOf(puts).thenApply(done -> Done.getInstance());
+   }
+
    /**
     * Put a single item into a messaging topic.
     *
@@ -51,6 +75,19 @@ public interface StreamMessagingAdapter {
     */
    <R, C extends RecordContext> Sink<Record<R, C>, CompletionStage<Done>> recordsSink(String topic);
 
+   /**
+    * A sink which publishes records in batches to a messaging topic, see {@link #recordsFlow(String, BatchSettings)}.
+    *
+    * @param topic The name of the topic
+    * @param settings The batch settings
+    * @param <R> The type of the record
+    * @param <C> The context type of the record
+    * @return An Akka Streams sink
+    */
+   default <R, C extends RecordContext> Sink<Record<R, C>, CompletionStage<Done>> recordsSink(String topic, BatchSettings settings) {
+      return this.<R, C>recordsFlow(topic, settings).toMat(Sink.ignore(), Keep.right());
+   }
+
 
    /**
     * A sink which publishes items to a messaging topic. The key of the message is generated with a random
@@ -92,6 +129,60 @@ public interface StreamMessagingAdapter {
     */
    <R, C extends RecordContext> Flow<Record<R, C>, Record<R, C>, NotUsed> recordsFlow(String topic);
 
+   /**
+    * A flow which publishes records with {@link #putRecord(String, Record)}, with up to `parallelism` pending puts.
+    *
+    * @param topic The name of the topic
+    * @param parallelism The maximum number of pending puts
+    * @param ordered Whether records are emitted in the order of the input; otherwise they are emitted when they are put
+    * @param <R> The type of the record
+    * @param <C> The context type of the record
+    * @return An Akka Streams flow
+    */
+   default <R, C extends RecordContext> Flow<Record<R, C>, Record<R, C>, NotUsed> recordsFlow(String topic, int parallelism, boolean ordered) {
+      akka.japi.function.Function<Record<R, C>, CompletionStage<Record<R, C>>> put = record -> putRecord(topic, record).thenApply(done -> record);
+
+      if (ordered) {
+         return Flow.<Record<R, C>>create().mapAsync(parallelism, put);
+      } else {
+         return Flow.<Record<R, C>>create().mapAsyncUnordered(parallelism, put);
+      }
+   }
+
+   /**
+    * A sink which publishes records with up to `parallelism` pending puts, see
+    * {@link #recordsFlow(String, int, boolean)}.
+    *
+    * @param topic The name of the topic
+    * @param parallelism The maximum number of pending puts
+    * @param ordered Whether the puts must complete in the order of the input
+    * @param <R> The type of the record
+    * @param <C> The context type of the record
+    * @return An Akka Streams sink
+    */
+   default <R, C extends RecordContext> Sink<Record<R, C>, CompletionStage<Done>> recordsSink(String topic, int parallelism, boolean ordered) {
+      return this.<R, C>recordsFlow(topic, parallelism, ordered).toMat(Sink.ignore(), Keep.right());
+   }
+
+   /**
+    * A flow which publishes records in batches to a messaging topic. A batch is written when it contains the maximum
+    * number of records or when the linger time has passed; the records of a batch are emitted after the batch has
+    * been written and their contexts have been committed.
+    *
+    * @param topic The name of the topic
+    * @param settings The batch settings
+    * @param <R> The type of the record
+    * @param <C> The context type of the record
+    * @return An Akka Streams flow
+    */
+   default <R, C extends RecordContext> Flow<Record<R, C>, Record<R, C>, NotUsed> recordsFlow(String topic, BatchSettings settings) {
+      return Flow
+         .<Record<R, C>>create()
+         .groupedWithin(settings.getMaxSize(), settings.getMaxLinger())
+         .mapAsync(1, records -> putRecords(topic, records).thenApply(done -> records))
+         .mapConcat(records -> records);
+   }
+
    /**
     * A flow which publishes items to a messaging topic. The key of the message is generated with a random
     * key-generator.
@@ -169,4 +260,50 @@ public interface StreamMessagingAdapter {
       return recordsSource(topic, recordType, "default");
    }
 
+   /**
+    * Creates an Akka Streams source which emits a sub-source for each partition of a topic. Records within a
+    * partition are emitted in order, thus each sub-source can be processed by its own ordered pipeline.
+    *
+    * The default implementation partitions the records by the hash of their keys; adapters with native partitions
+    * should emit their partitions instead.
+    *
+    * @param topic The name of the topic
+    * @param recordType The type of the record; will be used for de-serialization
+    * @param consumerGroup The consumer group id to identify different consumers on the topic
+    * @param parallelism The number of partitions, if the adapter has no native partitions; otherwise the maximum number
+    *                    of partitions which may be assigned at once, the source fails if more partitions are assigned
+    * @param <T> The type of the record
+    * @return An Akka Streams source of pairs of partition ids and partition sources
+    */
+   default <T> Source<Pair<String, Source<Record<T, CommittableRecordContext>, NotUsed>>, NotUsed> partitionedRecordsSource(
+      String topic, Class<T> recordType, String consumerGroup, int parallelism) {
+
+      return recordsSource(topic, recordType, consumerGroup)
+         .groupBy(parallelism, record -> Math.floorMod(Objects.hashCode(record.getKey()), parallelism))
+         .prefixAndTail(1)
+         .map(pair -> {
+            var head = pair.first();
+            var partition = String.valueOf(Math.floorMod(Objects.hashCode(head.get(0).getKey()), parallelism));
+
+            return Pair.create(partition, Source.from(head).concat(pair.second()));
+         })
+         .mergeSubstreams();
+   }
+
+   /**
+    * Creates an Akka Streams source which emits a sub-source for each partition of a topic with the `default`
+    * consumer id.
+    *
+    * @param topic The name of the topic
+    * @param recordType The type of the record; will be used for de-serialization
+    * @param parallelism The number of partitions, if the adapter has no native partitions
+    * @param <T> The type of the record
+    * @return An Akka Streams source of pairs of partition ids and partition sources
+    */
+   default <T> Source<Pair<String, Source<Record<T, CommittableRecordContext>, NotUsed>>, NotUsed> partitionedRecordsSource(
+      String topic, Class<T> recordType, int parallelism) {
+
+      return partitionedRecordsSource(topic, recordType, "default", parallelism);
+   }
+
 }
@@ -10,22 +10,38 @@ public final class StreamMessagingAdapters {
 
    public static StreamMessagingAdapter createFromConfiguration(AlpakkeerBaseRuntime runtime) {
       var configuration = runtime.getConfiguration().getMessaging();
-      var om = runtime.getObjectMapper();
+      var codec = runtime.getRecordCodec();
       var system = runtime.getSystem();
       var type = configuration.getType().toLowerCase();
 
       switch (type) {
          case "fs":
          case "filesystem":
-            return FileSystemStreamMessagingAdapter.apply(om, configuration.getFs());
+            return createFileSystemAdapter(runtime);
          case "in-memory":
-            return InMemoryStreamMessagingAdapter.apply(om);
+            return InMemoryStreamMessagingAdapter.apply(configuration.getInMemory());
          case "kafka":
-            return PlainKafkaStreamMessagingAdapter.apply(system, om, configuration.getKafka());
+            return PlainKafkaStreamMessagingAdapter.apply(system, codec, configuration.getKafka());
          default:
             throw new RuntimeException(String.format(
                "'%s' is an invalid messaging type; valid types are: 'in-memory', 'fs', 'kafka'", type));
       }
    }
 
+   private static StreamMessagingAdapter createFileSystemAdapter(AlpakkeerBaseRuntime runtime) {
+      var configuration = runtime.getConfiguration().getMessaging().getFs();
+      var codec = runtime.getRecordCodec();
+      var mode = configuration.getMode().toLowerCase();
+
+      switch (mode) {
+         case "files":
+            return FileSystemStreamMessagingAdapter.apply(runtime.getSystem(), codec, configuration);
+         case "log":
+            return FileSystemLogStreamMessagingAdapter.apply(runtime.getSystem(), codec, configuration);
+         default:
+            throw new RuntimeException(String.format(
+               "'%s' is an invalid file system messaging mode; valid modes are: 'files', 'log'", mode));
+      }
+   }
+
 }
@@ -1,10 +1,10 @@
 package alpakkeer.core.util;
 
-import akka.Done;
 import akka.actor.ActorSystem;
 import akka.actor.typed.ActorRef;
 import akka.actor.typed.Behavior;
 import akka.actor.typed.RecipientRef;
+import akka.actor.typed.javadsl.AskPattern;
 import akka.actor.typed.javadsl.Adapter;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.japi.Function;
@@ -14,6 +14,7 @@ import lombok.AllArgsConstructor;
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeoutException;
 
 @AllArgsConstructor(staticName = "apply")
 public final class ActorPatterns {
@@ -28,16 +29,41 @@ public final class ActorPatterns {
         return ask(actorRef, message, DEFAULT_TIMEOUT);
     }
 
+    /**
+     * Sends a message to an actor and returns its reply. The reply is received by a temporary promise ref, thus no actor
+     * is created for the request.
+     *
+     * @param actorRef          The actor which receives the message
+     * @param message           Creates the message from the ref which receives the reply
+     * @param durationInSeconds The time after which the returned future fails with an {@link AskTimeoutException}
+     * @param <T>               The type of messages accepted by the actor
+     * @param <U>               The type of the reply
+     * @return The reply
+     */
     public <T, U> CompletionStage<U> ask(
         RecipientRef<T> actorRef, Function<ActorRef<U>, T> message, long durationInSeconds) {
 
-        return ask(actorRef, (a1, ignore) -> message.apply(a1), durationInSeconds);
+        final CompletableFuture<U> result = new CompletableFuture<>();
+
+        AskPattern
+            .<T, U>ask(actorRef, message::apply, Duration.ofSeconds(durationInSeconds), Adapter.toTyped(system.scheduler()))
+            .whenComplete((reply, ex) -> {
+                if (ex == null) {
+                    result.complete(reply);
+                } else if (ex instanceof TimeoutException || ex.getCause() instanceof TimeoutException) {
+                    result.completeExceptionally(AskTimeoutException.apply());
+                } else {
+                    result.completeExceptionally(ex);
+                }
+            });
+
+        return result;
     }
 
     public <T, U> CompletionStage<U> ask(
         RecipientRef<T> actorRef, Function<ActorRef<U>, T> message, Class<U> typeHint) {
 
-        return ask(actorRef, (a1, ignore) -> message.apply(a1));
+        return ask(actorRef, message);
     }
 
     public <T, U, E extends Throwable> CompletionStage<U> ask(
@@ -51,51 +77,52 @@ public final class ActorPatterns {
         return ask(actorRef, message);
     }
 
+    /**
+     * Sends a message to an actor which either replies with a result or with an error. Both replies are received by a
+     * single anonymous actor which stops after the first reply or after the timeout.
+     *
+     * @param actorRef          The actor which receives the message
+     * @param message           Creates the message from the refs which receive the result and the error
+     * @param durationInSeconds The time after which the returned future fails with an {@link AskTimeoutException}
+     * @param <T>               The type of messages accepted by the actor
+     * @param <U>               The type of the result
+     * @param <E>               The type of the error
+     * @return The result; an error is returned as {@link OperationCompletionException}
+     */
     public <T, U, E extends Throwable> CompletionStage<U> ask(
         RecipientRef<T> actorRef, Function2<ActorRef<U>, ActorRef<E>, T> message, long durationInSeconds) {
 
-        final String id = Operators.hash();
-
         final CompletableFuture<U> result = new CompletableFuture<>();
-        final CompletableFuture<E> error = new CompletableFuture<>();
-        final CompletableFuture<Done> timeout = new CompletableFuture<>();
-
-        final Behavior<U> resultBehavior = Behaviors.receive((ctx, msg) -> {
-            result.complete(msg);
-            return Behaviors.same();
-        });
-
-        final Behavior<E> resultError = Behaviors.receive((ctx, msg) -> {
-            error.complete(msg);
-            return Behaviors.same();
-        });
 
-        final ActorRef<U> resultActor = Adapter.spawn(system, resultBehavior, String.format("%s-result", id));
-        final ActorRef<E> errorActor = Adapter.spawn(system, resultError, String.format("%s-error", id));
+        final Behavior<Object> behavior = Behaviors.setup(ctx -> Behaviors.withTimers(timers -> {
+            final ActorRef<U> replyTo = ctx.getSelf().narrow();
+            final ActorRef<E> errorTo = ctx.messageAdapter(Throwable.class, AskError::new).narrow();
 
-        final T msg = Operators.suppressExceptions(() -> message.apply(resultActor, errorActor));
-
-        actorRef.tell(msg);
-
-        system.scheduler().scheduleOnce(
-            Duration.ofSeconds(durationInSeconds),
-            () -> timeout.complete(Done.getInstance()),
-            system.dispatcher());
+            try {
+                actorRef.tell(message.apply(replyTo, errorTo));
+            } catch (Exception ex) {
+                result.completeExceptionally(ex);
+                return Behaviors.stopped();
+            }
 
-        error
-            .thenAccept(e -> {
-                if (!result.isDone() && !result.isCancelled()) {
-                    result.completeExceptionally(OperationCompletionException.apply(e));
-                }
-            });
+            timers.startSingleTimer(AskTimeout.INSTANCE, AskTimeout.INSTANCE, Duration.ofSeconds(durationInSeconds));
 
-        timeout
-            .thenAccept(e -> {
-                if (!result.isDone() && !result.isCancelled()) {
+            return Behaviors.receiveMessage(reply -> {
+                if (reply instanceof AskError) {
+                    result.completeExceptionally(OperationCompletionException.apply(((AskError) reply).cause));
+                } else if (reply == AskTimeout.INSTANCE) {
                     result.completeExceptionally(AskTimeoutException.apply());
+                } else {
+                    @SuppressWarnings("unchecked")
+                    final U value = (U) reply;
+                    result.complete(value);
                 }
+
+                return Behaviors.stopped();
             });
+        }));
 
+        Adapter.spawnAnonymous(system, behavior);
         return result;
     }
 
@@ -125,4 +152,15 @@ public final class ActorPatterns {
         return result;
     }
 
+    private enum AskTimeout {
+        INSTANCE
+    }
+
+    @AllArgsConstructor
+    private static class AskError {
+
+        private final Throwable cause;
+
+    }
+
 }
@@ -0,0 +1,132 @@
+package alpakkeer.core.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A FIFO queue of primitive longs for exactly one producer thread and one consumer thread. Values are stored in a
+ * power-of-two ring buffer without boxing or allocations.
+ *
+ * The buffer grows when the producer runs into a full buffer, thus its capacity settles at the maximum number of
+ * values in flight between producer and consumer. Growing is the only operation which takes a lock; the consumer
+ * reads optimistically and only retries under the lock if a resize happened concurrently.
+ */
+public final class SpscLongRingBuffer {
+
+   private final StampedLock resize;
+
+   /**
+    * The index of the next value to poll, only written by the consumer.
+    */
+   private final AtomicLong head;
+
+   /**
+    * The index of the next value to offer, only written by the producer.
+    */
+   private final AtomicLong tail;
+
+   private volatile long[] values;
+
+   private SpscLongRingBuffer(int capacity) {
+      this.resize = new StampedLock();
+      this.head = new AtomicLong();
+      this.tail = new AtomicLong();
+      this.values = new long[capacity];
+   }
+
+   /**
+    * Creates a new buffer.
+    *
+    * @param initialCapacity The initial capacity, rounded up to the next power of two
+    * @return The new buffer
+    */
+   public static SpscLongRingBuffer apply(int initialCapacity) {
+      var capacity = Integer.highestOneBit(Math.max(initialCapacity, 2) - 1) << 1;
+      return new SpscLongRingBuffer(capacity);
+   }
+
+   /**
+    * Appends a value; must only be called by the producer.
+    *
+    * @param value The value
+    */
+   public void offer(long value) {
+      var index = tail.get();
+      var buffer = values;
+
+      if (index - head.get() == buffer.length) {
+         buffer = grow(index);
+      }
+
+      buffer[(int) index & (buffer.length - 1)] = value;
+      tail.lazySet(index + 1);
+   }
+
+   /**
+    * Removes the oldest value; must only be called by the consumer.
+    *
+    * @param ifEmpty The value to return if the buffer is empty
+    * @return The oldest value or {@code ifEmpty}
+    */
+   public long poll(long ifEmpty) {
+      var index = head.get();
+
+      if (index == tail.get()) {
+         return ifEmpty;
+      }
+
+      var stamp = resize.tryOptimisticRead();
+      var value = read(index);
+
+      if (!resize.validate(stamp)) {
+         stamp = resize.readLock();
+
+         try {
+            value = read(index);
+         } finally {
+            resize.unlockRead(stamp);
+         }
+      }
+
+      head.lazySet(index + 1);
+      return value;
+   }
+
+   /**
+    * @return The number of values in the buffer
+    */
+   public int size() {
+      return (int) (tail.get() - head.get());
+   }
+
+   /**
+    * @return The current capacity of the buffer
+    */
+   public int capacity() {
+      return values.length;
+   }
+
+   private long read(long index) {
+      var buffer = values;
+      return buffer[(int) index & (buffer.length - 1)];
+   }
+
+   private long[] grow(long tail) {
+      var stamp = resize.writeLock();
+
+      try {
+         var buffer = values;
+         var grown = new long[buffer.length * 2];
+
+         for (var index = head.get(); index < tail; index++) {
+            grown[(int) index & (grown.length - 1)] = buffer[(int) index & (buffer.length - 1)];
+         }
+
+         values = grown;
+         return grown;
+      } finally {
+         resize.unlockWrite(stamp);
+      }
+   }
+
+}
@@ -5,6 +5,7 @@ import alpakkeer.config.AlpakkeerConfiguration;
 import alpakkeer.core.jobs.context.ContextStore;
 import alpakkeer.core.monitoring.MetricsCollector;
 import alpakkeer.core.scheduler.CronScheduler;
+import alpakkeer.core.stream.codec.RecordCodec;
 import alpakkeer.core.stream.messaging.StreamMessagingAdapter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.javalin.Javalin;
@@ -26,4 +27,6 @@ public final class AlpakkeerBaseRuntime {
 
    ObjectMapper objectMapper;
 
+   RecordCodec recordCodec;
+
 }
@@ -9,6 +9,8 @@ import alpakkeer.core.jobs.context.ContextStores;
 import alpakkeer.core.monitoring.MetricsCollector;
 import alpakkeer.core.scheduler.CronScheduler;
 import alpakkeer.core.scheduler.CronSchedulers;
+import alpakkeer.core.stream.codec.RecordCodec;
+import alpakkeer.core.stream.codec.RecordCodecs;
 import alpakkeer.core.stream.messaging.StreamMessagingAdapter;
 import alpakkeer.core.stream.messaging.StreamMessagingAdapters;
 import alpakkeer.core.util.ObjectMapperFactory;
@@ -32,6 +34,8 @@ public final class AlpakkeerRuntimeBuilder {
 
    ObjectMapper objectMapper;
 
+   Function<ObjectMapper, RecordCodec> recordCodec;
+
    CollectorRegistry collectorRegistry;
 
    Function<AlpakkeerBaseRuntime, ContextStore> contextStore;
@@ -43,7 +47,7 @@ public final class AlpakkeerRuntimeBuilder {
    Function<AlpakkeerBaseRuntime, StreamMessagingAdapter> streamMessagingAdapter;
 
    public static AlpakkeerRuntimeBuilder apply() {
-      return apply(null, null, null, null, null, Lists.newArrayList(), null, null);
+      return apply(null, null, null, null, null, null, Lists.newArrayList(), null, null);
    }
 
    public AlpakkeerRuntimeBuilder addMetricsCollector(MetricsCollector collector) {
@@ -66,6 +70,16 @@ public final class AlpakkeerRuntimeBuilder {
       return this;
    }
 
+   public AlpakkeerRuntimeBuilder withRecordCodec(RecordCodec recordCodec) {
+      this.recordCodec = om -> recordCodec;
+      return this;
+   }
+
+   public AlpakkeerRuntimeBuilder withRecordCodec(Function<ObjectMapper, RecordCodec> recordCodecFactory) {
+      this.recordCodec = recordCodecFactory;
+      return this;
+   }
+
    public AlpakkeerRuntimeBuilder withCollectorRegistry(CollectorRegistry collectorRegistry) {
       this.collectorRegistry = collectorRegistry;
       return this;
@@ -107,7 +121,12 @@ public final class AlpakkeerRuntimeBuilder {
          })
          .start(config.getApi().getHostname(), config.getApi().getPort()));
 
-      var baseRuntime = AlpakkeerBaseRuntime.apply(javalin, config, system, objectMapper);
+      var recordCodec = Operators.suppressExceptions(() -> Optional
+         .ofNullable(this.recordCodec)
+         .orElseGet(() -> om -> RecordCodecs.createFromConfiguration(config.getCodec(), om))
+         .apply(objectMapper));
+
+      var baseRuntime = AlpakkeerBaseRuntime.apply(javalin, config, system, objectMapper, recordCodec);
 
       var streamMessaging = Operators.suppressExceptions(() -> Optional
          .ofNullable(this.streamMessagingAdapter)
@@ -124,6 +143,7 @@ public final class AlpakkeerRuntimeBuilder {
          config,
          system,
          objectMapper,
+         recordCodec,
          Optional.ofNullable(collectorRegistry).orElse(CollectorRegistry.defaultRegistry),
          contextStore,
          List.copyOf(metricsCollectors),
@@ -0,0 +1,5 @@
+--
+-- Prepared statement to delete all versions before the n-th latest snapshot of a context
+--
+DELETE FROM {{ schema }}.{{ table }} WHERE job = ? AND version < (
+    SELECT version FROM {{ schema }}.{{ table }} WHERE job = ? AND snapshot ORDER BY version DESC LIMIT 1 OFFSET ?)
\ No newline at end of file
@@ -0,0 +1,5 @@
+--
+-- Prepared statement to insert a version of a context; the value is either a snapshot or a JSON patch
+--
+INSERT INTO {{ schema }}.{{ table }} (job, version, inserted, type, snapshot, value)
+VALUES (?, ?, ?, ?, ?, ? FORMAT JSON)
\ No newline at end of file
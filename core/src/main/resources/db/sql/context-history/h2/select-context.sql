@@ -0,0 +1,7 @@
+--
+-- Prepared statement to select the versions required to restore a version of a context: The latest snapshot
+-- at or before the version and all patches after the snapshot.
+--
+SELECT version, type, snapshot, value FROM {{ schema }}.{{ table }} WHERE job = ? AND version <= ? AND version >= (
+    SELECT MAX(version) FROM {{ schema }}.{{ table }} WHERE job = ? AND version <= ? AND snapshot)
+ORDER BY version
\ No newline at end of file
@@ -0,0 +1,4 @@
+--
+-- Prepared statement to select the available versions of a context
+--
+SELECT version FROM {{ schema }}.{{ table }} WHERE job = ? ORDER BY version
\ No newline at end of file
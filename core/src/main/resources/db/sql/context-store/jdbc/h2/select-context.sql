@@ -0,0 +1,4 @@
+--
+-- Prepared statement to select a context value by its name
+--
+SELECT type, value FROM {{ schema }}.{{ table }} WHERE job = ?
\ No newline at end of file
@@ -0,0 +1,6 @@
+--
+-- Prepared statement to insert or update entry in the context table
+--
+MERGE INTO {{ schema }}.{{ table }} (job, inserted, type, value)
+KEY (job)
+VALUES (?, ?, ?, ? FORMAT JSON)
\ No newline at end of file
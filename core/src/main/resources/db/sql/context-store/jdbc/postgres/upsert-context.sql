@@ -0,0 +1,7 @@
+--
+-- Prepared statement to insert or update entry in the context table
+--
+INSERT INTO {{ schema }}.{{ table }} (job, inserted, type, value)
+VALUES (?, ?, ?, CAST(? AS JSONB))
+ON CONFLICT (job)
+DO UPDATE SET inserted = EXCLUDED.inserted, type = EXCLUDED.type, value = EXCLUDED.value
\ No newline at end of file
@@ -0,0 +1,12 @@
+--
+-- Context History Table
+--
+CREATE TABLE alpakkeer.alpakkeer__context_history (
+    job VARCHAR(128) NOT NULL,
+    version BIGINT NOT NULL,
+    inserted TIMESTAMP NOT NULL,
+    type VARCHAR(256) NOT NULL,
+    snapshot BOOLEAN NOT NULL,
+    value JSONB NOT NULL,
+    PRIMARY KEY (job, version)
+);
\ No newline at end of file
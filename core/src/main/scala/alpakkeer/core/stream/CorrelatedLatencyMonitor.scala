@@ -0,0 +1,246 @@
+package alpakkeer.core.stream
+
+import java.time.Instant
+import java.util.concurrent.{ConcurrentHashMap, ConcurrentLinkedQueue}
+
+import scala.concurrent.duration._
+import akka.stream._
+import akka.stream.scaladsl._
+import akka.stream.stage._
+import org.HdrHistogram.Histogram
+import LatencyMonitor.{HistogramPrecision, Percentiles, Stats}
+import CorrelatedLatencyMonitor._
+
+/**
+ * A graph stage measuring the latency of a given linear segment (`Flow`) of a graph, like [[LatencyMonitor]]. Instead
+ * of relying on the order of the elements, each element entering the flow is registered with its start time under a
+ * correlation key; elements leaving the flow are matched by their key. Thus the measured flow may
+ *   - emit elements in a different order than it consumes them (e.g. `mapAsyncUnordered`);
+ *   - drop elements (e.g. `filter`); an element is counted as dropped if no element with its key left the flow
+ * within `dropTimeout` or until the flow completed;
+ *   - emit multiple elements for one element (e.g. `mapConcat`) if the emitted elements carry the key of their
+ * origin; a key is matched until it is evicted, i.e. at least until the next eviction run after its first match.
+ *
+ * Elements are evicted in the order they entered the flow, thus a matched element is kept as long as an element which
+ * entered the flow before it is neither matched nor timed out.
+ *
+ * The keys of the elements in flight must be unique. Elements leaving the flow with an unknown key are passed through
+ * without being measured.
+ *
+ * @tparam B the type of the elements leaving the measured flow
+ * @tparam K the type of the correlation keys
+ */
+final class CorrelatedLatencyMonitor[B, K](
+  ctx: CorrelationContext[K],
+  outKey: B => K,
+  dropTimeout: FiniteDuration,
+  histogram: Boolean) extends GraphStage[FanOutShape2[B, B, Stats]] {
+
+  private val in: Inlet[B] = Inlet[B]("CorrelatedLatencyMonitor.in")
+  private val out: Outlet[B] = Outlet[B]("CorrelatedLatencyMonitor.out")
+  private val statsOut: Outlet[Stats] = Outlet[Stats]("CorrelatedLatencyMonitor.statsOut")
+
+  override val shape: FanOutShape2[B, B, Stats] = new FanOutShape2[B, B, Stats](in, out, statsOut)
+
+  def createLogic(inheritedAttributes: Attributes): GraphStageLogic = new TimerGraphStageLogic(shape) {
+
+    private var lastStatsPull = System.nanoTime()
+    private var count = 0L
+    private var sumLatencyNanos = 0L
+    private var dropped = 0L
+    private val latencies = if (histogram) new Histogram(HistogramPrecision) else null
+
+    override def preStart(): Unit = scheduleWithFixedDelay(EvictionTimer, EvictionInterval, EvictionInterval)
+
+    override protected def onTimer(timerKey: Any): Unit = dropped += ctx.evict(dropTimeout.toNanos)
+
+    def nextStats(): Stats = {
+      val startTime = lastStatsPull
+      val endTime = System.nanoTime()
+      val percentiles = if (histogram) Percentiles(latencies) else Percentiles.Empty
+      val stats = Stats(
+        Instant.now(), (endTime - startTime) / 1000000, count, sumLatencyNanos / 1000000, percentiles, dropped)
+
+      lastStatsPull = endTime
+      count = 0L
+      sumLatencyNanos = 0L
+      dropped = 0L
+      if (histogram) latencies.reset()
+      stats
+    }
+
+    setHandler(in, new InHandler {
+      def onPush(): Unit = {
+        val element = grab(in)
+        val latency = ctx.stop(outKey(element))
+
+        if (latency >= 0) {
+          count += 1
+          sumLatencyNanos += latency
+          if (histogram) latencies.recordValue(latency)
+        }
+
+        push(out, element)
+      }
+
+      /**
+       * All remaining elements are dropped; they are reported with a final stats bucket.
+       */
+      override def onUpstreamFinish(): Unit = {
+        dropped += ctx.evict(0)
+        complete(out)
+
+        if (isClosed(statsOut)) completeStage()
+        else emit(statsOut, nextStats(), () => completeStage())
+      }
+    })
+
+    setHandler(out, new OutHandler {
+      def onPull(): Unit = pull(in)
+    })
+
+    setHandler(statsOut, new OutHandler {
+      def onPull(): Unit = push(statsOut, nextStats())
+
+      override def onDownstreamFinish(cause: Throwable): Unit = {}
+    })
+  }
+}
+
+object CorrelatedLatencyMonitor {
+
+  /**
+   * The interval in which matched and dropped elements are removed from the correlation context.
+   */
+  val EvictionInterval: FiniteDuration = 100.millis
+
+  private val EvictionTimer = "EvictionTimer"
+
+  /**
+   * The start times of the elements within the measured flow, by correlation key. Elements are started by the start
+   * stage and matched and evicted by the monitor stage, which may run on different threads.
+   */
+  private[stream] final class CorrelationContext[K] {
+
+    private val timers = new ConcurrentHashMap[K, Timer]
+
+    /**
+     * The started timers in the order of their start times, thus eviction only needs to inspect the oldest ones.
+     */
+    private val started = new ConcurrentLinkedQueue[Timer]
+
+    def start(key: K): Unit = {
+      val timer = new Timer(key, System.nanoTime())
+      timers.put(key, timer)
+      started.add(timer)
+    }
+
+    /**
+     * @return the latency of the element with the given key, in nanoseconds; -1 if the key is unknown
+     */
+    def stop(key: K): Long = {
+      val timer = timers.get(key)
+
+      if (timer == null) {
+        -1
+      } else {
+        timer.matched = true
+        math.max(System.nanoTime() - timer.startNanos, 0L)
+      }
+    }
+
+    /**
+     * Removes the oldest elements as long as they were matched or started more than `timeoutNanos` ago.
+     *
+     * @return the number of removed elements which were not matched
+     */
+    def evict(timeoutNanos: Long): Long = {
+      val now = System.nanoTime()
+      var dropped = 0L
+      var timer = started.peek()
+
+      while (timer != null && (timer.matched || now - timer.startNanos >= timeoutNanos)) {
+        started.poll()
+
+        // the key may have been started again by a later element, thus only its own timer is removed
+        if (timers.remove(timer.key, timer) && !timer.matched) dropped += 1
+        timer = started.peek()
+      }
+
+      dropped
+    }
+
+  }
+
+  private final class Timer(val key: Any, val startNanos: Long) {
+
+    /**
+     * Only accessed by the monitor stage.
+     */
+    var matched: Boolean = false
+
+  }
+
+  /**
+   * Creates a `CorrelatedLatencyMonitor` stage.
+   *
+   * @param flow        the `Flow` to be measured
+   * @param inKey       extracts the correlation key of an element entering `flow`
+   * @param outKey      extracts the correlation key of an element leaving `flow`
+   * @param dropTimeout the time after which an element which didn't leave `flow` is counted as dropped
+   * @param histogram   whether latency percentiles are recorded
+   * @tparam A   the input type of `flow`
+   * @tparam B   the output type of `flow`
+   * @tparam K   the type of the correlation keys
+   * @tparam Mat the materialized value of `flow`
+   * @return a `CorrelatedLatencyMonitor` stage measuring `flow`.
+   */
+  def apply[A, B, K, Mat](
+    flow: Flow[A, B, Mat],
+    inKey: A => K,
+    outKey: B => K,
+    dropTimeout: FiniteDuration,
+    histogram: Boolean): Graph[FanOutShape2[A, B, Stats], Mat] = {
+
+    GraphDSL.create(flow) { implicit b =>
+      fl =>
+        import GraphDSL.Implicits._
+        val ctx = new CorrelationContext[K]
+        val ctxStart = b.add(Flow[A].map { a => ctx.start(inKey(a)); a })
+        val ctxEnd = b.add(new CorrelatedLatencyMonitor[B, K](ctx, outKey, dropTimeout, histogram))
+
+        ctxStart.out ~> fl ~> ctxEnd.in
+        new FanOutShape2(ctxStart.in, ctxEnd.out0, ctxEnd.out1)
+    }
+  }
+
+  /**
+   * Creates a `CorrelatedLatencyMonitor` stage with latency stats consumed by a given `Sink`.
+   *
+   * @param flow        the `Flow` to be measured
+   * @param inKey       extracts the correlation key of an element entering `flow`
+   * @param outKey      extracts the correlation key of an element leaving `flow`
+   * @param statsSink   the `Sink` that will consume latency statistics
+   * @param dropTimeout the time after which an element which didn't leave `flow` is counted as dropped
+   * @param histogram   whether latency percentiles are recorded
+   * @param combineMat  a function combining the materialized values of `flow` and `statsSink`
+   * @return a `Flow` that passes all elements through `flow` and emits latency stats to `statsSink`.
+   */
+  def apply[A, B, K, Mat, Mat2, Mat3](
+    flow: Flow[A, B, Mat],
+    inKey: A => K,
+    outKey: B => K,
+    statsSink: Sink[Stats, Mat2],
+    dropTimeout: FiniteDuration,
+    histogram: Boolean)(combineMat: (Mat, Mat2) => Mat3): Flow[A, B, Mat3] = {
+
+    Flow.fromGraph(GraphDSL.create(apply(flow, inKey, outKey, dropTimeout, histogram), statsSink)(combineMat) {
+      implicit b =>
+        (mon, sink) =>
+          import GraphDSL.Implicits._
+          mon.out1 ~> sink
+          FlowShape(mon.in, mon.out0)
+    })
+  }
+
+}
@@ -1,12 +1,13 @@
 package alpakkeer.core.stream
 
 import java.time.Instant
-import java.util.concurrent.ConcurrentLinkedQueue
 
 import scala.concurrent.duration.FiniteDuration
 import akka.stream._
 import akka.stream.scaladsl._
 import akka.stream.stage._
+import alpakkeer.core.util.SpscLongRingBuffer
+import org.HdrHistogram.Histogram
 import LatencyMonitor._
 
 /**
@@ -21,12 +22,17 @@ import LatencyMonitor._
  * just transforms them);
  *   - emits elements the in the same order it consumes them.
  *
+ * Flows which filter, reorder or expand elements can be measured with a [[CorrelatedLatencyMonitor]].
+ *
  * `statsOut` emits continuously as demanded by downstream; the connected `Sink` is responsible for throttling demand,
  * controlling that way the update frequency of the stats (or, equivalently, the size of the buckets they represent).
  *
+ * If `histogram` is enabled, the latencies of an interval are recorded in nanoseconds into a histogram which is reset
+ * after each emitted stats bucket; the stats then contain the latency percentiles of the interval.
+ *
  * @tparam A the type of the elements passing through this stage
  */
-final class LatencyMonitor[A](ctx: TimerContext) extends GraphStage[FanOutShape2[A, A, Stats]] {
+final class LatencyMonitor[A](ctx: TimerContext, histogram: Boolean) extends GraphStage[FanOutShape2[A, A, Stats]] {
 
   private val in: Inlet[A] = Inlet[A]("LatencyMonitor.in")
   private val out: Outlet[A] = Outlet[A]("LatencyMonitor.out")
@@ -38,21 +44,28 @@ final class LatencyMonitor[A](ctx: TimerContext) extends GraphStage[FanOutShape2
 
     private var lastStatsPull = System.nanoTime()
     private var count = 0L
-    private var sumLatency = 0L
+    private var sumLatencyNanos = 0L
+    private val latencies = if (histogram) new Histogram(HistogramPrecision) else null
 
     def pushStats(): Unit = {
       val startTime = lastStatsPull
       val endTime = System.nanoTime()
-      push(statsOut, Stats(Instant.now(), (endTime - startTime) / 1000000, count, sumLatency))
+      val percentiles = if (histogram) Percentiles(latencies) else Percentiles.Empty
+
+      push(statsOut, Stats(Instant.now(), (endTime - startTime) / 1000000, count, sumLatencyNanos / 1000000, percentiles, 0))
       lastStatsPull = endTime
       count = 0L
-      sumLatency = 0L
+      sumLatencyNanos = 0L
+      if (histogram) latencies.reset()
     }
 
     setHandler(in, new InHandler {
       def onPush(): Unit = {
+        val latency = ctx.stop()
+
         count += 1
-        sumLatency += ctx.stop()
+        sumLatencyNanos += latency
+        if (histogram) latencies.recordValue(math.max(latency, 0L))
         push(out, grab(in))
       }
     })
@@ -71,12 +84,64 @@ final class LatencyMonitor[A](ctx: TimerContext) extends GraphStage[FanOutShape2
 
 object LatencyMonitor {
 
+  /**
+   * The number of significant decimal digits of the recorded latencies.
+   */
+  private[stream] val HistogramPrecision = 2
+
+  /**
+   * The initial capacity of the start times buffer; it matches Akka's default input buffer size and grows up to the
+   * number of elements in flight within the measured flow.
+   */
+  private val InitialTimerCapacity = 16
+
+  /**
+   * Start times of the elements within the measured flow. The start stage is the only producer and the monitor stage
+   * the only consumer, thus a single-producer/single-consumer buffer of primitive longs is sufficient.
+   */
   private class TimerContext {
-    private val queue = new ConcurrentLinkedQueue[Long]
+    private val startTimes = SpscLongRingBuffer.apply(InitialTimerCapacity)
 
-    def start(): Unit = queue.add(System.nanoTime())
+    def start(): Unit = startTimes.offer(System.nanoTime())
+
+    /**
+     * @return the latency of the oldest started element, in nanoseconds; 0 if no element was started
+     */
+    def stop(): Long = {
+      val now = System.nanoTime()
+      now - startTimes.poll(now)
+    }
+  }
+
+  /**
+   * Latency percentiles of a measurement interval, in nanoseconds.
+   */
+  case class Percentiles(p50: Long, p90: Long, p99: Long, p999: Long, max: Long) {
+
+    def isEmpty: Boolean = this == Percentiles.Empty
+
+  }
+
+  object Percentiles {
+
+    /**
+     * Used when the latency monitor doesn't record a histogram.
+     */
+    val Empty: Percentiles = Percentiles(0, 0, 0, 0, 0)
+
+    def apply(histogram: Histogram): Percentiles = {
+      if (histogram.getTotalCount == 0) {
+        Empty
+      } else {
+        Percentiles(
+          histogram.getValueAtPercentile(50),
+          histogram.getValueAtPercentile(90),
+          histogram.getValueAtPercentile(99),
+          histogram.getValueAtPercentile(99.9),
+          histogram.getMaxValue)
+      }
+    }
 
-    def stop(): Long = (System.nanoTime() - queue.poll()) / 1000000
   }
 
   /**
@@ -85,8 +150,20 @@ object LatencyMonitor {
    * @param timeElapsed the time elapsed between the measurement start and its end, in milliseconds
    * @param count       the number of elements that passed through the flow
    * @param sumLatency  the sum of the latencies of all the elements that passed through the flow, in milliseconds
+   * @param percentiles the latency percentiles of the interval; empty if the monitor doesn't record a histogram
+   * @param dropped     the number of elements which entered the flow but didn't leave it; only detected by a
+   *                    [[CorrelatedLatencyMonitor]]
    */
-  case class Stats(moment: Instant, timeElapsed: Long, count: Long, sumLatency: Long) {
+  case class Stats(
+    moment: Instant, timeElapsed: Long, count: Long, sumLatency: Long, percentiles: Percentiles, dropped: Long) {
+
+    def this(moment: Instant, timeElapsed: Long, count: Long, sumLatency: Long, percentiles: Percentiles) = {
+      this(moment, timeElapsed, count, sumLatency, percentiles, 0)
+    }
+
+    def this(moment: Instant, timeElapsed: Long, count: Long, sumLatency: Long) = {
+      this(moment, timeElapsed, count, sumLatency, Percentiles.Empty, 0)
+    }
 
     /**
      * The average latency of the elements that passed through the flow, in milliseconds
@@ -100,7 +177,8 @@ object LatencyMonitor {
     }
 
     override def toString: String = {
-      s"Stats(timeElapsed: $timeElapsed, count: $count, sumLatency: $sumLatency, avgLatency: $avgLatency)"
+      s"Stats(timeElapsed: $timeElapsed, count: $count, sumLatency: $sumLatency, avgLatency: $avgLatency, " +
+        s"percentiles: $percentiles, dropped: $dropped)"
     }
 
   }
@@ -108,30 +186,38 @@ object LatencyMonitor {
   /**
    * Creates a `LatencyMonitor` stage.
    *
-   * @param flow the `Flow` to be measured
+   * @param flow      the `Flow` to be measured
+   * @param histogram whether latency percentiles are recorded
    * @tparam A   the input type of `flow`
    * @tparam B   the output type of `flow`
    * @tparam Mat the materialized value of `flow`
    * @return a `LatencyMonitor` stage measuring `flow`.
    */
-  def apply[A, B, Mat](flow: Flow[A, B, Mat]): Graph[FanOutShape2[A, B, Stats], Mat] = {
+  def apply[A, B, Mat](flow: Flow[A, B, Mat], histogram: Boolean): Graph[FanOutShape2[A, B, Stats], Mat] = {
     GraphDSL.create(flow) { implicit b =>
       fl =>
         import GraphDSL.Implicits._
         val ctx = new TimerContext
         val ctxStart = b.add(Flow[A].map { a => ctx.start(); a })
-        val ctxEnd = b.add(new LatencyMonitor[B](ctx))
+        val ctxEnd = b.add(new LatencyMonitor[B](ctx, histogram))
 
         ctxStart.out ~> fl ~> ctxEnd.in
         new FanOutShape2(ctxStart.in, ctxEnd.out0, ctxEnd.out1)
     }
   }
 
+  /**
+   * Creates a `LatencyMonitor` stage which doesn't record latency percentiles.
+   */
+  def apply[A, B, Mat](flow: Flow[A, B, Mat]): Graph[FanOutShape2[A, B, Stats], Mat] =
+    apply(flow, histogram = false)
+
   /**
    * Creates a `LatencyMonitor` stage with latency stats consumed by a given `Sink`.
    *
    * @param flow       the `Flow` to be measured
    * @param statsSink  the `Sink` that will consume latency statistics
+   * @param histogram  whether latency percentiles are recorded
    * @param combineMat a function combining the materialized values of `flow` and `statsSink`
    * @tparam A    the input type of `flow`
    * @tparam B    the output type of `flow`
@@ -142,9 +228,10 @@ object LatencyMonitor {
    */
   def apply[A, B, Mat, Mat2, Mat3](
     flow: Flow[A, B, Mat],
-    statsSink: Sink[Stats, Mat2])(combineMat: (Mat, Mat2) => Mat3): Flow[A, B, Mat3] = {
+    statsSink: Sink[Stats, Mat2],
+    histogram: Boolean)(combineMat: (Mat, Mat2) => Mat3): Flow[A, B, Mat3] = {
 
-    Flow.fromGraph(GraphDSL.create(apply(flow), statsSink)(combineMat) { implicit b =>
+    Flow.fromGraph(GraphDSL.create(apply(flow, histogram), statsSink)(combineMat) { implicit b =>
       (mon, sink) =>
         import GraphDSL.Implicits._
         mon.out1 ~> sink
@@ -152,6 +239,14 @@ object LatencyMonitor {
     })
   }
 
+  /**
+   * Creates a `LatencyMonitor` stage with latency stats consumed by a given `Sink`, without latency percentiles.
+   */
+  def apply[A, B, Mat, Mat2, Mat3](
+    flow: Flow[A, B, Mat],
+    statsSink: Sink[Stats, Mat2])(combineMat: (Mat, Mat2) => Mat3): Flow[A, B, Mat3] =
+    apply(flow, statsSink, histogram = false)(combineMat)
+
   /**
    * Creates a `LatencyMonitor` stage with latency stats handled periodically by a callback.
    *
@@ -164,7 +259,7 @@ object LatencyMonitor {
    * @return a `Flow` that passes all elements through `flow` and calls `onStats` frequently with latency stats.
    */
   def apply[A, B, Mat](flow: Flow[A, B, Mat], statsInterval: FiniteDuration, onStats: Stats => Unit): Flow[A, B, Mat] =
-    apply(flow, Flow.fromGraph(new Pulse[Stats](statsInterval)).to(Sink.foreach(onStats)))(Keep.left)
+    apply(flow, Flow.fromGraph(new Pulse[Stats](statsInterval)).to(Sink.foreach(onStats)), histogram = false)(Keep.left)
 
 }
 
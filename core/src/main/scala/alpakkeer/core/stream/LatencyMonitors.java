@@ -1,5 +1,6 @@
 package alpakkeer.core.stream;
 
+import akka.japi.function.Function;
 import akka.japi.function.Function2;
 import akka.japi.function.Procedure;
 import akka.stream.javadsl.Flow;
@@ -7,6 +8,8 @@ import akka.stream.javadsl.Keep;
 import akka.stream.javadsl.Sink;
 import alpakkeer.core.util.Operators;
 
+import scala.concurrent.duration.FiniteDuration;
+
 import java.time.Duration;
 
 public final class LatencyMonitors {
@@ -18,10 +21,44 @@ public final class LatencyMonitors {
    public static <A, B, Mat1, Mat2, Mat3> Flow<A, B, Mat3> create(
       Flow<A, B, Mat1> flow,
       Sink<LatencyMonitor.Stats, Mat2> statsSink,
+      boolean histogram,
       Function2<Mat1, Mat2, Mat3> combineMat) {
 
       return LatencyMonitor
-         .apply(flow.asScala(), statsSink.asScala(), (m1, m2) -> Operators.suppressExceptions(() -> combineMat.apply(m1, m2)))
+         .apply(flow.asScala(), statsSink.asScala(), histogram, (m1, m2) -> Operators.suppressExceptions(() -> combineMat.apply(m1, m2)))
+         .asJava();
+   }
+
+   public static <A, B, Mat1, Mat2, Mat3> Flow<A, B, Mat3> create(
+      Flow<A, B, Mat1> flow,
+      Sink<LatencyMonitor.Stats, Mat2> statsSink,
+      Function2<Mat1, Mat2, Mat3> combineMat) {
+
+      return create(flow, statsSink, false, combineMat);
+   }
+
+   /**
+    * Creates a {@link CorrelatedLatencyMonitor} which matches the elements leaving the flow with the elements entering
+    * the flow by a correlation key. The measured flow may filter, reorder or expand elements.
+    */
+   public static <A, B, K, Mat1, Mat2, Mat3> Flow<A, B, Mat3> create(
+      Flow<A, B, Mat1> flow,
+      Function<A, K> inKey,
+      Function<B, K> outKey,
+      Sink<LatencyMonitor.Stats, Mat2> statsSink,
+      Duration dropTimeout,
+      boolean histogram,
+      Function2<Mat1, Mat2, Mat3> combineMat) {
+
+      return CorrelatedLatencyMonitor
+         .apply(
+            flow.asScala(),
+            a -> Operators.suppressExceptions(() -> inKey.apply(a)),
+            b -> Operators.suppressExceptions(() -> outKey.apply(b)),
+            statsSink.asScala(),
+            FiniteDuration.fromNanos(dropTimeout.toNanos()),
+            histogram,
+            (m1, m2) -> Operators.suppressExceptions(() -> combineMat.apply(m1, m2)))
          .asJava();
    }
 
@@ -0,0 +1,151 @@
+package alpakkeer.core.jobs.context;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import akka.japi.Pair;
+import alpakkeer.config.CachingContextStoreConfiguration;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CachingContextStoreUTest {
+
+   private final ActorSystem system = ActorSystem.create("CachingContextStoreUTest");
+
+   private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+   /**
+    * A context store which records its writes; the writes complete when the test completes them.
+    */
+   private static class FakeContextStore implements ContextStore {
+
+      final List<Pair<Object, CompletableFuture<Done>>> writes = new CopyOnWriteArrayList<>();
+
+      @Override
+      public <C> CompletionStage<Done> saveContext(String name, C context) {
+         var written = new CompletableFuture<Done>();
+         writes.add(Pair.create(context, written));
+         return written;
+      }
+
+      @Override
+      public <C> CompletionStage<Optional<C>> readLatestContext(String name) {
+         return CompletableFuture.completedFuture(Optional.empty());
+      }
+
+   }
+
+   @After
+   public void tearDown() throws Exception {
+      executor.shutdownNow();
+      system.terminate();
+      system.getWhenTerminated().toCompletableFuture().get(10, TimeUnit.SECONDS);
+   }
+
+   private CachingContextStore create(ContextStore store, Duration flushInterval) {
+      return CachingContextStore.apply(
+         system, store, CachingContextStoreConfiguration.apply(true, 100, Duration.ofHours(1), flushInterval));
+   }
+
+   private static Optional<Object> read(ContextStore store) throws Exception {
+      return store.readLatestContext("job").toCompletableFuture().get();
+   }
+
+   @Test
+   public void testWriteBehind() throws Exception {
+      var store = new FakeContextStore();
+      var caching = create(store, Duration.ofHours(1));
+
+      caching.saveContext("job", 1);
+      assertEquals(Optional.of(1), read(caching));
+      assertEquals(0, store.writes.size());
+
+      var flushed = caching.flush().toCompletableFuture();
+      assertEquals(1, store.writes.size());
+      assertEquals(1, store.writes.get(0).first());
+
+      // a context which is saved while the previous one is written stays pending
+      caching.saveContext("job", 2);
+      store.writes.get(0).second().complete(Done.getInstance());
+      assertTrue(flushed.isDone());
+      assertEquals(Optional.of(2), read(caching));
+
+      caching.flush();
+      assertEquals(2, store.writes.size());
+      assertEquals(2, store.writes.get(1).first());
+      store.writes.get(1).second().complete(Done.getInstance());
+
+      // nothing is pending anymore
+      caching.flush();
+      assertEquals(2, store.writes.size());
+   }
+
+   @Test
+   public void testFailingStore() throws Exception {
+      var store = new FakeContextStore();
+      var caching = create(store, Duration.ofHours(1));
+
+      caching.saveContext("job", 1);
+      var flushed = caching.flush().toCompletableFuture();
+      store.writes.get(0).second().completeExceptionally(new RuntimeException("failed"));
+
+      // a context which failed to be written stays pending and is retried with the next flush
+      assertTrue(flushed.isDone());
+      assertFalse(flushed.isCompletedExceptionally());
+      assertEquals(Optional.of(1), read(caching));
+
+      caching.flush();
+      assertEquals(2, store.writes.size());
+      assertEquals(1, store.writes.get(1).first());
+      store.writes.get(1).second().complete(Done.getInstance());
+
+      caching.flush();
+      assertEquals(2, store.writes.size());
+   }
+
+   @Test
+   public void testSlowFailingStore() throws Exception {
+      var store = new FakeContextStore() {
+         @Override
+         public <C> CompletionStage<Done> saveContext(String name, C context) {
+            var written = super.<C>saveContext(name, context).toCompletableFuture();
+            executor.schedule(() -> written.completeExceptionally(new RuntimeException("failed")), 100, TimeUnit.MILLISECONDS);
+            return written;
+         }
+      };
+
+      var caching = create(store, Duration.ofMillis(10));
+
+      for (var i = 0; i < 100; i++) {
+         caching.saveContext("job", i);
+         Thread.sleep(5);
+      }
+
+      // scheduled flushes are skipped while a write is running, thus the final flush doesn't wait for queued flushes
+      // which would retry the failing write one after another
+      caching.shutdown().toCompletableFuture().get(1, TimeUnit.SECONDS);
+
+      var writes = store.writes.size();
+      assertTrue(writes < 10);
+      assertEquals(99, store.writes.get(writes - 1).first());
+
+      // no more flushes are scheduled
+      caching.saveContext("job", 100);
+      Thread.sleep(100);
+      assertEquals(writes, store.writes.size());
+   }
+
+}
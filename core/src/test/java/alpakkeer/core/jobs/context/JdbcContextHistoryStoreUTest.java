@@ -0,0 +1,117 @@
+package alpakkeer.core.jobs.context;
+
+import alpakkeer.config.ContextHistoryConfiguration;
+import alpakkeer.core.stream.codec.JsonRecordCodec;
+import alpakkeer.core.util.ObjectMapperFactory;
+import com.google.common.collect.Maps;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Value;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JdbcContextHistoryStoreUTest {
+
+   @Value
+   @NoArgsConstructor(force = true)
+   @AllArgsConstructor(staticName = "apply")
+   private static class Offsets {
+
+      Map<String, Long> offsets;
+
+      long watermark;
+
+   }
+
+   @Test
+   public void testVersions() throws Exception {
+      var dataSource = new JdbcDataSource();
+      dataSource.setURL("jdbc:h2:mem:context-history;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+
+      try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+         statement.execute("CREATE SCHEMA alpakkeer");
+         statement.execute("CREATE TABLE alpakkeer.alpakkeer__context_history (" +
+            "job VARCHAR(128) NOT NULL, version BIGINT NOT NULL, inserted TIMESTAMP NOT NULL, type VARCHAR(256) NOT NULL, " +
+            "snapshot BOOLEAN NOT NULL, value JSON NOT NULL, PRIMARY KEY (job, version))");
+      }
+
+      var config = ContextHistoryConfiguration.apply("alpakkeer__context_history", 5, 2);
+      var store = createStore(dataSource, config);
+      var offsets = Maps.<String, Long>newTreeMap();
+
+      for (var i = 0; i < 100; i++) {
+         offsets.put("partition-" + i, 0L);
+      }
+
+      for (long version = 1; version <= 12; version++) {
+         offsets.put("partition-" + version, version);
+         store.saveContext("job", Offsets.apply(Map.copyOf(offsets), version)).toCompletableFuture().get();
+      }
+
+      assertEquals(12L, read(store, "job").map(Offsets::getWatermark).orElse(0L).longValue());
+      assertEquals(Optional.of(Map.copyOf(offsets)), read(store, "job").map(Offsets::getOffsets));
+
+      // snapshots are stored with versions 1, 6 and 11; versions before the second latest snapshot are deleted
+      assertEquals(LongStream.rangeClosed(6, 12).boxed().collect(Collectors.toList()), versions(store, "job"));
+      assertEquals(Optional.empty(), store.<Offsets>readContext("job", 3).toCompletableFuture().get());
+
+      try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+         var result = statement.executeQuery(
+            "SELECT COUNT(*) FROM alpakkeer.alpakkeer__context_history WHERE snapshot");
+         result.next();
+         assertEquals(2, result.getInt(1));
+      }
+
+      // versions are restored from their snapshot and the following patches, also by a new instance without cache
+      var restored = createStore(dataSource, config);
+
+      for (long version = 6; version <= 12; version++) {
+         var context = restored.<Offsets>readContext("job", version).toCompletableFuture().get();
+         assertTrue(context.isPresent());
+         assertEquals(version, context.get().getWatermark());
+         assertEquals(Long.valueOf(version), context.get().getOffsets().get("partition-" + version));
+         assertEquals(Long.valueOf(0), context.get().getOffsets().get("partition-" + (version + 1)));
+      }
+
+      restored.saveContext("job", Offsets.apply(Map.of(), 13)).toCompletableFuture().get();
+      assertEquals(Optional.of(13L), read(createStore(dataSource, config), "job").map(Offsets::getWatermark));
+      assertEquals(Optional.empty(), read(restored, "other-job"));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testInvalidSnapshotInterval() {
+      createStore(new JdbcDataSource(), ContextHistoryConfiguration.apply("alpakkeer__context_history", 0, 2));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testInvalidRetainedSnapshots() {
+      createStore(new JdbcDataSource(), ContextHistoryConfiguration.apply("alpakkeer__context_history", 5, 0));
+   }
+
+   private static JdbcContextHistoryStore createStore(JdbcDataSource dataSource, ContextHistoryConfiguration config) {
+      var om = ObjectMapperFactory.apply().create();
+
+      return JdbcContextHistoryStore.apply(
+         dataSource, Executors.newSingleThreadExecutor(), om, JsonRecordCodec.apply(om), "alpakkeer", config, "h2");
+   }
+
+   private static Optional<Offsets> read(ContextStore store, String name) throws ExecutionException, InterruptedException {
+      return store.<Offsets>readLatestContext(name).toCompletableFuture().get();
+   }
+
+   private static List<Long> versions(ContextHistoryStore store, String name) throws ExecutionException, InterruptedException {
+      return store.getVersions(name).toCompletableFuture().get();
+   }
+
+}
@@ -0,0 +1,61 @@
+package alpakkeer.core.jobs.context;
+
+import alpakkeer.core.stream.codec.JsonRecordCodec;
+import alpakkeer.core.util.ObjectMapperFactory;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Value;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+public class JdbcContextStoreUTest {
+
+   @Value
+   @NoArgsConstructor(force = true)
+   @AllArgsConstructor(staticName = "apply")
+   private static class Checkpoint {
+
+      String name;
+
+      int offset;
+
+   }
+
+   @Test
+   public void testSaveAndRead() throws Exception {
+      var dataSource = new JdbcDataSource();
+      dataSource.setURL("jdbc:h2:mem:context-store;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+
+      try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+         statement.execute("CREATE SCHEMA alpakkeer");
+         statement.execute("CREATE TABLE alpakkeer.alpakkeer__context_store (" +
+            "job VARCHAR(128) PRIMARY KEY, inserted TIMESTAMP NOT NULL, type VARCHAR(256) NOT NULL, value JSON NOT NULL)");
+      }
+
+      var om = ObjectMapperFactory.apply().create();
+      var store = JdbcContextStore.apply(
+         dataSource, Executors.newSingleThreadExecutor(), JsonRecordCodec.apply(om),
+         "alpakkeer", "alpakkeer__context_store", "h2");
+
+      assertEquals(Optional.empty(), read(store, "job"));
+
+      store.saveContext("job", Checkpoint.apply("first", 1)).toCompletableFuture().get();
+      assertEquals(Optional.of(Checkpoint.apply("first", 1)), read(store, "job"));
+
+      // values are bound as parameters, not rendered into the statement
+      store.saveContext("job", Checkpoint.apply("it's '); DROP TABLE x; --", 2)).toCompletableFuture().get();
+      assertEquals(Optional.of(Checkpoint.apply("it's '); DROP TABLE x; --", 2)), read(store, "job"));
+      assertEquals(Optional.empty(), read(store, "other-job"));
+   }
+
+   private static Optional<Checkpoint> read(ContextStore store, String name) throws ExecutionException, InterruptedException {
+      return store.<Checkpoint>readLatestContext(name).toCompletableFuture().get();
+   }
+
+}
@@ -0,0 +1,162 @@
+package alpakkeer.core.monitoring;
+
+import alpakkeer.core.monitoring.values.DataPoint;
+import alpakkeer.core.monitoring.values.TimeSeries;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DownsamplerUTest {
+
+   private static List<Long> moments(TimeSeries timeSeries) {
+      return timeSeries
+         .getData()
+         .stream()
+         .map(dp -> dp.getMoment().toEpochMilli())
+         .collect(Collectors.toList());
+   }
+
+   private static List<Double> values(TimeSeries timeSeries) {
+      return timeSeries
+         .getData()
+         .stream()
+         .map(DataPoint::getValue)
+         .collect(Collectors.toList());
+   }
+
+   private static Downsampler downsampler(Downsampling method, long from, long to, int maxDataPoints) {
+      return Downsampler.apply(method, Instant.ofEpochMilli(from), Instant.ofEpochMilli(to), maxDataPoints, 1);
+   }
+
+   /**
+    * Downsamples the values 0 to 99 at the moments 0 to 99 into 10 buckets.
+    */
+   private static TimeSeries aggregate(Downsampling method) {
+      var downsampler = downsampler(method, 0, 99, 10);
+
+      for (var i = 0; i < 100; i++) {
+         downsampler.add(i, i);
+      }
+
+      return downsampler.getResult();
+   }
+
+   @Test
+   public void testAggregatingBuckets() {
+      var expectedMoments = List.of(0L, 10L, 20L, 30L, 40L, 50L, 60L, 70L, 80L, 90L);
+
+      var min = aggregate(Downsampling.MIN);
+      assertEquals(expectedMoments, moments(min));
+      assertEquals(List.of(0.0, 10.0, 20.0, 30.0, 40.0, 50.0, 60.0, 70.0, 80.0, 90.0), values(min));
+
+      var max = aggregate(Downsampling.MAX);
+      assertEquals(expectedMoments, moments(max));
+      assertEquals(List.of(9.0, 19.0, 29.0, 39.0, 49.0, 59.0, 69.0, 79.0, 89.0, 99.0), values(max));
+
+      var avg = aggregate(Downsampling.AVG);
+      assertEquals(expectedMoments, moments(avg));
+      assertEquals(List.of(4.5, 14.5, 24.5, 34.5, 44.5, 54.5, 64.5, 74.5, 84.5, 94.5), values(avg));
+
+      var sum = aggregate(Downsampling.SUM);
+      assertEquals(expectedMoments, moments(sum));
+      assertEquals(List.of(45.0, 145.0, 245.0, 345.0, 445.0, 545.0, 645.0, 745.0, 845.0, 945.0), values(sum));
+   }
+
+   @Test
+   public void testEmptyBuckets() {
+      var downsampler = downsampler(Downsampling.SUM, 0, 99, 10);
+      downsampler.add(5, 1);
+      downsampler.add(7, 2);
+      downsampler.add(55, 3);
+
+      var result = downsampler.getResult();
+      assertEquals(List.of(0L, 50L), moments(result));
+      assertEquals(List.of(3.0, 3.0), values(result));
+   }
+
+   @Test
+   public void testLargestTriangleThreeBuckets() {
+      var downsampler = downsampler(Downsampling.LTTB, 0, 99, 5);
+
+      for (var i = 0; i < 100; i++) {
+         if (i == 20) {
+            downsampler.add(i, -5);
+         } else if (i == 50) {
+            downsampler.add(i, 10);
+         } else if (i == 80) {
+            downsampler.add(i, 30);
+         } else {
+            downsampler.add(i, 0);
+         }
+      }
+
+      // the first and the last data point are kept, the outlier of each bucket is selected
+      var result = downsampler.getResult();
+      assertEquals(List.of(0L, 20L, 50L, 80L, 99L), moments(result));
+      assertEquals(List.of(0.0, -5.0, 10.0, 30.0, 0.0), values(result));
+   }
+
+   @Test
+   public void testMaxDataPoints() {
+      for (var method : Downsampling.values()) {
+         for (var maxDataPoints = 1; maxDataPoints <= 12; maxDataPoints++) {
+            var downsampler = downsampler(method, 0, 10, maxDataPoints);
+
+            // the range includes both ends, i.e. 11 data points
+            for (var i = 0; i <= 10; i++) {
+               downsampler.add(i, i);
+            }
+
+            // LTTB always keeps the first and the last data point and selects at least one data point in between
+            var size = downsampler.getResult().getData().size();
+            var expected = method.equals(Downsampling.LTTB) ? Math.max(maxDataPoints, 3) : maxDataPoints;
+            assertTrue(method + " with " + maxDataPoints + " data points", size <= expected);
+         }
+      }
+   }
+
+   @Test
+   public void testNoDownsampling() {
+      var downsampler = downsampler(Downsampling.AVG, 0, 100, 0);
+      downsampler.add(1, 1);
+      downsampler.addEdge(2, 2);
+      downsampler.add(3, 3);
+
+      assertEquals(List.of(1L, 2L, 3L), moments(downsampler.getResult()));
+   }
+
+   @Test
+   public void testEdges() {
+      var buffer = TimeSeriesBuffer.apply(16);
+
+      for (var i = 0; i < 10; i++) {
+         buffer.append(i * 10, 1);
+      }
+
+      var from = Instant.ofEpochMilli(5);
+      var to = Instant.ofEpochMilli(85);
+
+      // the values at 5 and 85 are taken from the data points at 0 and 90, they are not counted into sums and averages
+      var sum = buffer.query(from, to, Downsampler.apply(Downsampling.SUM, from, to, 1, 1));
+      assertEquals(List.of(5L), moments(sum));
+      assertEquals(List.of(8.0), values(sum));
+
+      var avg = buffer.query(from, to, Downsampler.apply(Downsampling.AVG, from, to, 1, 1));
+      assertEquals(List.of(1.0), values(avg));
+
+      // edges are counted for other methods
+      var max = buffer.query(from, to, Downsampler.apply(Downsampling.MAX, from, to, 1, 1));
+      assertEquals(List.of(5L), moments(max));
+      assertEquals(List.of(1.0), values(max));
+
+      var lttb = buffer.query(from, to, Downsampler.apply(Downsampling.LTTB, from, to, 3, 1));
+      assertEquals(5L, (long) moments(lttb).get(0));
+      assertEquals(85L, (long) moments(lttb).get(moments(lttb).size() - 1));
+   }
+
+}
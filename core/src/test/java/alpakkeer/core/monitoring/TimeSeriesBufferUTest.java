@@ -0,0 +1,120 @@
+package alpakkeer.core.monitoring;
+
+import alpakkeer.core.monitoring.values.DataPoint;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimeSeriesBufferUTest {
+
+   private static List<Long> moments(TimeSeriesBuffer buffer, long from, long to) {
+      return buffer
+         .query(Instant.ofEpochMilli(from), Instant.ofEpochMilli(to))
+         .getData()
+         .stream()
+         .map(dp -> dp.getMoment().toEpochMilli())
+         .collect(Collectors.toList());
+   }
+
+   private static List<Double> values(TimeSeriesBuffer buffer, long from, long to) {
+      return buffer
+         .query(Instant.ofEpochMilli(from), Instant.ofEpochMilli(to))
+         .getData()
+         .stream()
+         .map(DataPoint::getValue)
+         .collect(Collectors.toList());
+   }
+
+   private static List<Long> range(long from, long to) {
+      return LongStream.range(from, to).boxed().collect(Collectors.toList());
+   }
+
+   @Test
+   public void testWrapAround() {
+      var buffer = TimeSeriesBuffer.apply(4);
+
+      for (var i = 0; i < 10; i++) {
+         buffer.append(i, i);
+      }
+
+      assertEquals(4, buffer.size());
+      assertEquals(range(6, 10), moments(buffer, 0, 100));
+      assertEquals(List.of(6.0, 7.0, 8.0, 9.0), values(buffer, 0, 100));
+   }
+
+   @Test
+   public void testGrowToMaxCapacity() {
+      var buffer = TimeSeriesBuffer.apply(100);
+
+      for (var i = 0; i < 100; i++) {
+         buffer.append(i, i);
+      }
+
+      assertEquals(100, buffer.size());
+      assertEquals(range(0, 100), moments(buffer, 0, 1000));
+
+      // the buffer doesn't grow beyond its maximum capacity, the oldest data points are evicted
+      for (var i = 100; i < 250; i++) {
+         buffer.append(i, i);
+      }
+
+      assertEquals(100, buffer.size());
+      assertEquals(range(150, 250), moments(buffer, 0, 1000));
+   }
+
+   @Test
+   public void testOutOfOrderInserts() {
+      var buffer = TimeSeriesBuffer.apply(4);
+      buffer.append(10, 1);
+      buffer.append(30, 3);
+      buffer.append(20, 2);
+      buffer.append(5, 0);
+
+      assertEquals(List.of(5L, 10L, 20L, 30L), moments(buffer, 0, 100));
+      assertEquals(List.of(0.0, 1.0, 2.0, 3.0), values(buffer, 0, 100));
+
+      // the oldest data point is evicted before the late data point is inserted, also when the buffer wraps around
+      buffer.append(40, 4);
+      buffer.append(25, 2.5);
+      buffer.append(15, 1.5);
+
+      assertEquals(4, buffer.size());
+      assertEquals(List.of(15L, 25L, 30L, 40L), moments(buffer, 0, 100));
+      assertEquals(List.of(1.5, 2.5, 3.0, 4.0), values(buffer, 0, 100));
+   }
+
+   @Test
+   public void testRangeBoundaries() {
+      var buffer = TimeSeriesBuffer.apply(16);
+      buffer.append(10, 1);
+      buffer.append(20, 2);
+      buffer.append(30, 3);
+      buffer.append(40, 4);
+
+      // data points at the boundaries are included, no edge values are added
+      assertEquals(List.of(20L, 30L), moments(buffer, 20, 30));
+      assertEquals(List.of(2.0, 3.0), values(buffer, 20, 30));
+
+      // the values before and after the range are returned at its boundaries
+      assertEquals(List.of(15L, 20L, 30L, 35L), moments(buffer, 15, 35));
+      assertEquals(List.of(1.0, 2.0, 3.0, 4.0), values(buffer, 15, 35));
+
+      // a range without data points
+      assertEquals(List.of(22L, 28L), moments(buffer, 22, 28));
+      assertEquals(List.of(2.0, 3.0), values(buffer, 22, 28));
+
+      // ranges before and after all data points
+      assertEquals(List.of(5L), moments(buffer, 0, 5));
+      assertEquals(List.of(1.0), values(buffer, 0, 5));
+      assertEquals(List.of(50L), moments(buffer, 50, 60));
+      assertEquals(List.of(4.0), values(buffer, 50, 60));
+
+      assertEquals(List.of(), moments(TimeSeriesBuffer.apply(4), 0, 100));
+   }
+
+}
@@ -1,5 +1,8 @@
 package alpakkeer.core.stream;
 
+import alpakkeer.core.stream.codec.JsonRecordCodec;
+import alpakkeer.core.stream.codec.RecordTypeRegistry;
+import alpakkeer.core.stream.codec.SmileRecordCodec;
 import alpakkeer.core.util.ObjectMapperFactory;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -8,6 +11,11 @@ import lombok.NoArgsConstructor;
 import lombok.Value;
 import org.junit.Test;
 
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 public class RecordsUTest {
 
    @Value
@@ -34,4 +42,27 @@ public class RecordsUTest {
       assert(record.equals(recordRead));
    }
 
+   @Test
+   public void testJsonCodec() throws IOException {
+      var record = Record.apply(Bla.apply("foo", 123), "123");
+      var om = ObjectMapperFactory.apply().create(true);
+      var codec = JsonRecordCodec.apply(om);
+
+      assertEquals(record, codec.decode(codec.encode(record)));
+      assertEquals(record, om.convertValue(om.readTree(codec.encode(record)), Record.class));
+      assertEquals(record, codec.decode(om.writeValueAsBytes(record)));
+   }
+
+   @Test
+   public void testSmileCodec() {
+      var record = Record.apply(Bla.apply("foo", 123), "123");
+      var om = ObjectMapperFactory.apply().create(true);
+      var registered = SmileRecordCodec.apply(om, RecordTypeRegistry.apply().register(1, Bla.class));
+      var unregistered = SmileRecordCodec.apply(om);
+
+      assertEquals(record, registered.decode(registered.encode(record)));
+      assertEquals(record, unregistered.decode(unregistered.encode(record)));
+      assertTrue(registered.encode(record).length < unregistered.encode(record).length);
+   }
+
 }
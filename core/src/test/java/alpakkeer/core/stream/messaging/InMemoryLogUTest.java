@@ -0,0 +1,121 @@
+package alpakkeer.core.stream.messaging;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryLogUTest {
+
+   private static List<Integer> range(int from, int to) {
+      return IntStream.range(from, to).boxed().collect(Collectors.toList());
+   }
+
+   @Test
+   public void testCursors() {
+      var log = InMemoryLog.<Integer>apply(16);
+      log.appendAll(range(0, 5));
+
+      assertEquals(range(0, 3), log.poll("first", 3));
+      assertEquals(range(0, 1), log.poll("second", 1));
+      assertEquals(range(3, 5), log.poll("first", 10));
+      assertEquals(List.of(), log.poll("first", 10));
+      assertEquals(range(1, 5), log.poll("second", 10));
+   }
+
+   @Test
+   public void testRelease() {
+      var log = InMemoryLog.<Integer>apply(1 << 16);
+      log.appendAll(range(0, 1000));
+
+      // entries are kept as long as no consumer group exists
+      log.appendAll(range(1000, 1100));
+      assertEquals(1100, log.getSize());
+
+      assertEquals(range(0, 1000), log.poll("first", 1000));
+      assertEquals(range(0, 500), log.poll("second", 500));
+
+      // entries are released when the ring buffer is full, up to the slowest group
+      log.appendAll(range(1100, 2048));
+      log.append(2048);
+      assertEquals(2049 - 500, log.getSize());
+
+      // a new group starts at the oldest retained entry
+      assertEquals(range(500, 503), log.poll("third", 3));
+   }
+
+   @Test
+   public void testAwaitEntries() {
+      var log = InMemoryLog.<Integer>apply(16);
+      var awaited = log.awaitEntries("group").toCompletableFuture();
+
+      assertFalse(awaited.isDone());
+
+      log.append(1);
+      assertTrue(awaited.isDone());
+      assertTrue(log.awaitEntries("group").toCompletableFuture().isDone());
+
+      log.poll("group", 1);
+      assertFalse(log.awaitEntries("group").toCompletableFuture().isDone());
+   }
+
+   @Test
+   public void testMaxCapacity() {
+      var log = InMemoryLog.<Integer>apply(4);
+      log.poll("group", 1);
+
+      assertTrue(log.appendAll(range(0, 4)).toCompletableFuture().isDone());
+
+      var blocked = log.appendAll(range(4, 6)).toCompletableFuture();
+      var next = log.appendAll(range(6, 9)).toCompletableFuture();
+      assertFalse(blocked.isDone());
+
+      // appends are stored in order as soon as the group has read enough entries
+      assertEquals(range(0, 1), log.poll("group", 1));
+      assertFalse(blocked.isDone());
+
+      assertEquals(range(1, 3), log.poll("group", 2));
+      assertTrue(blocked.isDone());
+      assertFalse(next.isDone());
+
+      assertEquals(range(3, 7), log.poll("group", 10));
+      assertTrue(next.isDone());
+      assertEquals(range(7, 9), log.poll("group", 10));
+   }
+
+   @Test
+   public void testDropWithoutGroups() {
+      var log = InMemoryLog.<Integer>apply(4);
+
+      // without consumer groups, appends don't wait but drop the oldest entries
+      assertTrue(log.appendAll(range(0, 6)).toCompletableFuture().isDone());
+      assertEquals(4, log.getSize());
+      assertEquals(range(2, 6), log.poll("group", 10));
+   }
+
+   @Test
+   public void testGroupTimeout() throws Exception {
+      var log = InMemoryLog.<Integer>apply(4, Duration.ofMillis(50));
+      log.poll("stalled", 1);
+
+      assertTrue(log.appendAll(range(0, 4)).toCompletableFuture().isDone());
+
+      // the group which stopped polling is removed after the timeout, the blocked append is stored then
+      var blocked = log.appendAll(range(4, 6)).toCompletableFuture();
+      assertFalse(blocked.isDone());
+
+      blocked.get(5, TimeUnit.SECONDS);
+      assertEquals(4, log.getSize());
+
+      // if the group polls again, it continues at the oldest retained entry
+      assertEquals(range(2, 6), log.poll("stalled", 10));
+   }
+
+}
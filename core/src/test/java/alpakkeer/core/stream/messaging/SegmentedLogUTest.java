@@ -0,0 +1,173 @@
+package alpakkeer.core.stream.messaging;
+
+import akka.japi.Pair;
+import alpakkeer.config.FileSystemLogConfiguration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentedLogUTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   /**
+    * Each segment holds two entries of 10 bytes, each entry takes 18 bytes including length and checksum.
+    */
+   private static final FileSystemLogConfiguration CONFIG = FileSystemLogConfiguration.apply(40, 1000, Duration.ofSeconds(1));
+
+   private static byte[] entry(String value) {
+      return String.format("%-10s", value).getBytes(StandardCharsets.UTF_8);
+   }
+
+   private static List<String> values(List<Pair<byte[], Long>> entries) {
+      return entries
+         .stream()
+         .map(entry -> new String(entry.first(), StandardCharsets.UTF_8).trim())
+         .collect(Collectors.toList());
+   }
+
+   private List<Path> segments(Path directory) throws IOException {
+      try (var files = Files.list(directory)) {
+         return files.filter(LogSegment::isSegment).sorted().collect(Collectors.toList());
+      }
+   }
+
+   @Test
+   public void testAppendAndRoll() throws IOException {
+      var directory = folder.getRoot().toPath();
+      var log = SegmentedLog.apply(directory, CONFIG);
+
+      var flushed = log.appendAll(List.of(entry("a"), entry("b"), entry("c")));
+      assertTrue(log.awaitEntries(0).toCompletableFuture().isDone());
+      assertFalse(flushed.toCompletableFuture().isDone());
+
+      log.flush();
+      assertTrue(flushed.toCompletableFuture().isDone());
+
+      // an entry larger than a segment gets its own segment
+      log.append(String.format("%-100s", "d").getBytes(StandardCharsets.UTF_8));
+      log.flush();
+
+      var entries = log.getConsumerGroup("group").poll(10);
+      assertEquals(List.of("a", "b", "c", "d"), values(entries));
+      assertEquals(List.of(18L, 36L, 54L, 162L), entries.stream().map(Pair::second).collect(Collectors.toList()));
+      assertEquals(3, segments(directory).size());
+      assertFalse(log.awaitEntries(162).toCompletableFuture().isDone());
+   }
+
+   @Test
+   public void testConsumerGroups() {
+      var directory = folder.getRoot().toPath();
+      var log = SegmentedLog.apply(directory, CONFIG);
+      log.appendAll(List.of(entry("a"), entry("b"), entry("c")));
+
+      var first = log.getConsumerGroup("first");
+      var second = log.getConsumerGroup("second");
+
+      assertEquals(List.of("a", "b"), values(first.poll(2)));
+      assertEquals(List.of("c"), values(first.poll(2)));
+      assertEquals(List.of("a"), values(second.poll(1)));
+
+      first.commit(54);
+      second.commit(18);
+      log.flush();
+
+      // a reopened group continues from its committed offset
+      var reopened = SegmentedLog.apply(directory, CONFIG);
+      assertEquals(List.of(), values(reopened.getConsumerGroup("first").poll(10)));
+      assertEquals(List.of("b", "c"), values(reopened.getConsumerGroup("second").poll(10)));
+   }
+
+   @Test
+   public void testRetention() throws IOException {
+      var directory = folder.getRoot().toPath();
+      var log = SegmentedLog.apply(directory, CONFIG);
+      log.appendAll(List.of(entry("a"), entry("b"), entry("c"), entry("d"), entry("e")));
+      log.flush();
+
+      // segments are kept as long as no group exists
+      assertEquals(3, segments(directory).size());
+
+      var first = log.getConsumerGroup("first");
+      var second = log.getConsumerGroup("second");
+      first.poll(10);
+      first.commit(90);
+      log.flush();
+      assertEquals(3, segments(directory).size());
+
+      second.poll(3);
+      second.commit(54);
+      log.flush();
+      assertEquals(2, segments(directory).size());
+      assertEquals(36, log.getStartOffset());
+
+      // a new group starts at the first stored entry
+      assertEquals(List.of("c", "d", "e"), values(log.getConsumerGroup("third").poll(10)));
+
+      // stored groups retain segments after reopening, even if they are not consumed yet
+      var reopened = SegmentedLog.apply(directory, CONFIG);
+      var group = reopened.getConsumerGroup("first");
+      reopened.append(entry("f"));
+      group.commit(group.poll(10).get(0).second());
+      reopened.flush();
+      assertEquals(2, segments(directory).size());
+      assertEquals(36, reopened.getStartOffset());
+   }
+
+   @Test
+   public void testRecovery() throws IOException {
+      var directory = folder.getRoot().toPath();
+      var log = SegmentedLog.apply(directory, CONFIG);
+      log.appendAll(List.of(entry("a"), entry("b"), entry("c")));
+      log.flush();
+
+      assertEquals(List.of("a", "b", "c"), values(SegmentedLog.apply(directory, CONFIG).getConsumerGroup("g1").poll(10)));
+
+      // corrupt the payload of the second entry of the first segment
+      try (var channel = FileChannel.open(segments(directory).get(0), StandardOpenOption.WRITE)) {
+         channel.write(ByteBuffer.wrap(new byte[]{ 'x' }), 18 + 8 + 1);
+      }
+
+      var recovered = SegmentedLog.apply(directory, CONFIG);
+      assertEquals(List.of("a", "c"), values(recovered.getConsumerGroup("g2").poll(10)));
+
+      // entries are appended to the last segment, behind the entries of the truncated segment
+      recovered.append(entry("d"));
+      recovered.flush();
+
+      assertEquals(List.of("a", "c", "d"), values(SegmentedLog.apply(directory, CONFIG).getConsumerGroup("g3").poll(10)));
+   }
+
+   @Test
+   public void testDeleteSegment() throws IOException {
+      var directory = folder.getRoot().toPath();
+      var segment = LogSegment.create(directory, 0, 100);
+      segment.append(entry("a"));
+
+      assertTrue(segment.read(0).isPresent());
+      assertEquals(1, segments(directory).size());
+
+      // the mapping is released, reads of the deleted segment return no entries
+      segment.delete();
+      segment.force();
+      assertFalse(segment.read(0).isPresent());
+      assertEquals(0, segments(directory).size());
+   }
+
+}
@@ -0,0 +1,98 @@
+package alpakkeer.core.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SpscLongRingBufferUTest {
+
+   private static final long EMPTY = Long.MIN_VALUE;
+
+   @Test
+   public void testFifo() {
+      var buffer = SpscLongRingBuffer.apply(3);
+      assertEquals(4, buffer.capacity());
+      assertEquals(EMPTY, buffer.poll(EMPTY));
+
+      // wrap around without growing
+      for (var i = 0; i < 10; i++) {
+         buffer.offer(i);
+         buffer.offer(-i);
+         assertEquals(i, buffer.poll(EMPTY));
+         assertEquals(-i, buffer.poll(EMPTY));
+      }
+
+      assertEquals(4, buffer.capacity());
+
+      // grow while the values wrap around the end of the buffer
+      buffer.offer(1);
+      buffer.offer(2);
+      buffer.offer(3);
+      assertEquals(1, buffer.poll(EMPTY));
+
+      for (var i = 4; i <= 20; i++) {
+         buffer.offer(i);
+      }
+
+      assertEquals(32, buffer.capacity());
+      assertEquals(19, buffer.size());
+
+      for (var i = 2; i <= 20; i++) {
+         assertEquals(i, buffer.poll(EMPTY));
+      }
+
+      assertEquals(0, buffer.size());
+      assertEquals(EMPTY, buffer.poll(EMPTY));
+   }
+
+   @Test(timeout = 60000)
+   public void testConcurrentProducerAndConsumer() throws InterruptedException {
+      var buffer = SpscLongRingBuffer.apply(2);
+      var count = 2_000_000L;
+      var failure = new AtomicReference<Throwable>();
+
+      var producer = new Thread(() -> {
+         try {
+            for (var i = 0L; i < count; i++) {
+               while (buffer.size() > 100_000) {
+                  Thread.onSpinWait();
+               }
+
+               buffer.offer(i);
+            }
+         } catch (Throwable t) {
+            failure.set(t);
+         }
+      });
+
+      producer.start();
+
+      var expected = 0L;
+
+      while (expected < count && failure.get() == null) {
+         var value = buffer.poll(EMPTY);
+
+         if (value != EMPTY) {
+            assertEquals(expected, value);
+            expected++;
+
+            // the consumer pauses from time to time, thus the buffer is resized while the consumer reads
+            if (expected % 200_000 == 0) {
+               Thread.sleep(1);
+            }
+         }
+      }
+
+      producer.join();
+
+      assertNull(failure.get());
+      assertEquals(count, expected);
+      assertEquals(EMPTY, buffer.poll(EMPTY));
+      assertTrue(buffer.capacity() > 2);
+   }
+
+}
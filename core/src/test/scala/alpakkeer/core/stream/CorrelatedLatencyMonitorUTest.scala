@@ -0,0 +1,91 @@
+package alpakkeer.core.stream
+
+import akka.actor.ActorSystem
+import akka.stream.scaladsl._
+import alpakkeer.core.stream.CorrelatedLatencyMonitor.CorrelationContext
+import alpakkeer.core.stream.LatencyMonitor.Stats
+import org.junit.Assert._
+import org.junit.{After, Test}
+
+import scala.concurrent.duration._
+import scala.concurrent.{Await, Future}
+
+class CorrelatedLatencyMonitorUTest {
+
+  private implicit val system: ActorSystem = ActorSystem("CorrelatedLatencyMonitorUTest")
+
+  @After
+  def tearDown(): Unit = Await.result(system.terminate(), 10.seconds)
+
+  /**
+   * Runs the elements through the monitored flow, the stats are pulled every 10 milliseconds.
+   */
+  private def run[B](flow: Flow[Int, B, _], outKey: B => Int): (Seq[B], Seq[Stats]) = {
+    val stats = Pulse[Stats](10.millis, initiallyOpen = true).toMat(Sink.seq)(Keep.right)
+    val monitored = CorrelatedLatencyMonitor(flow, (i: Int) => i, outKey, stats, 30.seconds, histogram = true)(Keep.right)
+
+    val (statsResult, elementsResult) = Source(1 to 1000)
+      .viaMat(monitored)(Keep.right)
+      .toMat(Sink.seq)(Keep.both)
+      .run()
+
+    (Await.result(elementsResult, 10.seconds), Await.result(statsResult, 10.seconds))
+  }
+
+  @Test
+  def testFilteringFlow(): Unit = {
+    val (elements, stats) = run(Flow[Int].filter(_ % 10 != 0), (i: Int) => i)
+
+    assertEquals(900, elements.size)
+    assertEquals(900, stats.map(_.count).sum)
+
+    // elements which were filtered are reported as dropped when the flow completes
+    assertEquals(100, stats.map(_.dropped).sum)
+    assertEquals(100, stats.last.dropped)
+  }
+
+  @Test
+  def testUnorderedFlow(): Unit = {
+    import system.dispatcher
+
+    val flow = Flow[Int].mapAsyncUnordered(8) { i =>
+      Future {
+        Thread.sleep(i % 3)
+        i.toString
+      }
+    }
+
+    val (elements, stats) = run(flow, (s: String) => s.toInt)
+
+    assertEquals((1 to 1000).toSet, elements.map(_.toInt).toSet)
+    assertNotEquals((1 to 1000).map(_.toString), elements)
+    assertEquals(1000, stats.map(_.count).sum)
+    assertEquals(0, stats.map(_.dropped).sum)
+
+    // the elements with a delay of 2ms were measured
+    assertTrue(stats.exists(_.percentiles.max >= 2.millis.toNanos))
+  }
+
+  @Test
+  def testEvictionOrder(): Unit = {
+    val ctx = new CorrelationContext[Int]
+    (1 to 3).foreach(ctx.start)
+
+    // matched elements are only evicted after all elements which were started before them
+    assertTrue(ctx.stop(2) >= 0)
+    assertTrue(ctx.stop(3) >= 0)
+    assertEquals(0, ctx.evict(1.minute.toNanos))
+    assertTrue(ctx.stop(3) >= 0)
+
+    assertTrue(ctx.stop(1) >= 0)
+    assertEquals(0, ctx.evict(1.minute.toNanos))
+    assertEquals(-1, ctx.stop(3))
+
+    // pending elements are evicted from the oldest one on when they timed out
+    (4 to 6).foreach(ctx.start)
+    assertTrue(ctx.stop(5) >= 0)
+    assertEquals(2, ctx.evict(0))
+    assertEquals(-1, ctx.stop(5))
+  }
+
+}